@@ -78,6 +78,34 @@ public interface CommandDispatcher<C> extends AutoCloseable {
      */
     <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception;
 
+    /**
+     * Submits the specified command on the specified node for execution, without blocking the caller.
+     * The specified listener is notified of the response once received.
+     * Commands submitted this way may be bundled with other messages to the same node.
+     *
+     * @param <R>      the return value type
+     * @param command  the command to execute
+     * @param node     the node to execute the command on
+     * @param listener the listener to notify of the response
+     * @throws Exception if the command could not be sent
+     */
+    <R> void submitOnNode(Command<R, C> command, Node node, CommandResponseListener<R> listener) throws Exception;
+
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes, without blocking the caller.
+     * The specified listener is notified of the response of each node once all responses were received.
+     * A node that leaves the group before responding is notified with a response holding the resulting exception,
+     * and a node that does not respond in time is notified with a response holding a {@link java.util.concurrent.TimeoutException}.
+     * Commands submitted this way may be bundled with other messages.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param listener      the listener to notify of the response of each node
+     * @param excludedNodes the set of nodes to exclude
+     * @throws Exception if the command could not be broadcast
+     */
+    <R> void submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception;
+
     /**
      * Closes any resources used by this dispatcher.
      * Once closed, a dispatcher can no longer execute commands.
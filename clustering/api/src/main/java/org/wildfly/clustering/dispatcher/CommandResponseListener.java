@@ -0,0 +1,41 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Listener for the response of a command submitted for asynchronous execution.
+ *
+ * @param <R> the response type
+ */
+public interface CommandResponseListener<R> {
+
+    /**
+     * Indicates that the specified node responded to a command.
+     * This is invoked by the thread that received the response, and thus should not block.
+     *
+     * @param node     the node that executed the command
+     * @param response the response of the command execution, which may hold an exception raised during execution or transmission
+     */
+    void responseReceived(Node node, CommandResponse<R> response);
+}
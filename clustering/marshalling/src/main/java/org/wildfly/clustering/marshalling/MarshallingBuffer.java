@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reusable output buffer into which values are marshalled.
+ * <p/>
+ * Each thread keeps a single buffer, which is reused as long as it does not grow beyond {@link #MAX_RETAINED_SIZE}.
+ * A nested marshalling operation, e.g. of a marshalled value within a marshalled value, gets a buffer of its own.
+ * The marshalled size of each type is remembered, so that a buffer can be sized appropriately up front,
+ * instead of growing, and copying its content, repeatedly.
+ * This class is not thread safe.
+ */
+final class MarshallingBuffer extends OutputStream {
+
+    static final int DEFAULT_SIZE = 256;
+    static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<MarshallingBuffer> BUFFER = new ThreadLocal<MarshallingBuffer>() {
+        @Override
+        protected MarshallingBuffer initialValue() {
+            return new MarshallingBuffer(DEFAULT_SIZE, true);
+        }
+    };
+
+    private static final ClassValue<AtomicInteger> SIZE_HINTS = new ClassValue<AtomicInteger>() {
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(DEFAULT_SIZE);
+        }
+    };
+
+    /**
+     * Obtains a buffer for marshalling an object of the specified type.
+     * The buffer must be {@link #release(Class) released} once its content was consumed.
+     */
+    static MarshallingBuffer acquire(Class<?> type) {
+        int hint = SIZE_HINTS.get(type).get();
+        MarshallingBuffer buffer = BUFFER.get();
+        if (buffer.inUse) {
+            return new MarshallingBuffer(hint, false);
+        }
+        buffer.inUse = true;
+        buffer.ensureCapacity(hint);
+        return buffer;
+    }
+
+    private final boolean pooled;
+    private boolean inUse = false;
+    private byte[] buffer;
+    private int size = 0;
+
+    private MarshallingBuffer(int capacity, boolean pooled) {
+        this.buffer = new byte[capacity];
+        this.pooled = pooled;
+    }
+
+    /**
+     * Records the size of the content of this buffer as the size hint for the specified type, and returns this buffer to the pool.
+     */
+    void release(Class<?> type) {
+        AtomicInteger hint = SIZE_HINTS.get(type);
+        int current = hint.get();
+        // Follow increases immediately, and decreases gradually
+        // Never hint beyond the retained size, lest a single large value cause every subsequent buffer of this type to be discarded
+        int next = Math.min(Math.max(this.size, current - (current >> 3)), MAX_RETAINED_SIZE);
+        if (next != current) {
+            hint.compareAndSet(current, next);
+        }
+        if (this.pooled) {
+            this.size = 0;
+            this.inUse = false;
+            if (this.buffer.length > MAX_RETAINED_SIZE) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureCapacity(this.size + 1);
+        this.buffer[this.size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    void writeInt(int value) {
+        this.ensureCapacity(this.size + 4);
+        this.buffer[this.size++] = (byte) (value >>> 24);
+        this.buffer[this.size++] = (byte) (value >>> 16);
+        this.buffer[this.size++] = (byte) (value >>> 8);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    /**
+     * Writes the content of this buffer to the specified output, without copying it first.
+     */
+    void writeTo(DataOutput output) throws IOException {
+        output.write(this.buffer, 0, this.size);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.buffer.length) {
+            if (capacity < 0) {
+                throw new OutOfMemoryError();
+            }
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(capacity, this.buffer.length << 1));
+        }
+    }
+}
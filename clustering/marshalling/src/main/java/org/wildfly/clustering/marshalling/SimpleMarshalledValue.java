@@ -23,7 +23,6 @@
 package org.wildfly.clustering.marshalling;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -33,7 +32,6 @@ import java.util.Arrays;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.Marshalling;
 import org.jboss.marshalling.SimpleDataInput;
-import org.jboss.marshalling.SimpleDataOutput;
 import org.jboss.marshalling.Unmarshaller;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
@@ -66,20 +64,38 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
     byte[] getBytes() throws IOException {
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
-        if (this.object == null) return null;
+        T object = this.object;
+        if (object == null) return null;
+        MarshallingBuffer buffer = this.marshal(object);
+        try {
+            return buffer.toByteArray();
+        } finally {
+            buffer.release(object.getClass());
+        }
+    }
+
+    /**
+     * Marshals the specified object into a pooled buffer, which the caller must release.
+     */
+    private MarshallingBuffer marshal(T object) throws IOException {
         int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(object.getClass());
+        boolean success = false;
         ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
-            data.writeInt(version);
+        try {
+            buffer.writeInt(version);
             try (Marshaller marshaller = this.context.createMarshaller(version)) {
-                marshaller.start(data);
-                marshaller.writeObject(this.object);
+                marshaller.start(Marshalling.createByteOutput(buffer));
+                marshaller.writeObject(object);
                 marshaller.finish();
-                return output.toByteArray();
             }
+            success = true;
+            return buffer;
         } finally {
             setThreadContextClassLoader(loader);
+            if (!success) {
+                buffer.release(object.getClass());
+            }
         }
     }
 
@@ -147,10 +163,20 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        byte[] bytes = this.getBytes();
+        byte[] bytes = this.bytes;
+        T object = this.object;
         if (bytes != null) {
             out.writeInt(bytes.length);
             out.write(bytes);
+        } else if (object != null) {
+            // Write directly from the marshalling buffer, instead of copying it into a byte[] first
+            MarshallingBuffer buffer = this.marshal(object);
+            try {
+                out.writeInt(buffer.size());
+                buffer.writeTo(out);
+            } finally {
+                buffer.release(object.getClass());
+            }
         } else {
             out.writeInt(0);
         }
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MarshallingBuffer}.
+ */
+public class MarshallingBufferTestCase {
+
+    @Test
+    public void reuse() {
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(Integer.class);
+        buffer.writeInt(1);
+        assertEquals(4, buffer.size());
+        buffer.release(Integer.class);
+
+        MarshallingBuffer reused = MarshallingBuffer.acquire(Integer.class);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.size());
+
+        // A nested operation gets a buffer of its own
+        MarshallingBuffer nested = MarshallingBuffer.acquire(Integer.class);
+        assertNotSame(reused, nested);
+        nested.release(Integer.class);
+        reused.release(Integer.class);
+    }
+
+    @Test
+    public void largeValue() {
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(Long.class);
+        buffer.write(new byte[MarshallingBuffer.MAX_RETAINED_SIZE * 2], 0, MarshallingBuffer.MAX_RETAINED_SIZE * 2);
+        buffer.release(Long.class);
+
+        // A buffer that grew beyond the retained size is discarded
+        MarshallingBuffer next = MarshallingBuffer.acquire(Long.class);
+        assertNotSame(buffer, next);
+        next.release(Long.class);
+
+        // The size hint must not exceed the retained size, otherwise every subsequent buffer would be discarded too
+        assertSame(next, MarshallingBuffer.acquire(Long.class));
+        next.release(Long.class);
+    }
+}
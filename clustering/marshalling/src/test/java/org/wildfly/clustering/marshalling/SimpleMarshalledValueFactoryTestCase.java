@@ -28,6 +28,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import org.jboss.marshalling.Marshalling;
@@ -144,6 +147,31 @@ public class SimpleMarshalledValueFactoryTestCase {
         assertEquals(0, mv.hashCode());
     }
 
+    /**
+     * Verifies values which are marshalled while marshalling another value, and values exceeding the retained buffer size.
+     */
+    @Test
+    public void nested() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        char[] chars = new char[MarshallingBuffer.MAX_RETAINED_SIZE * 2];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        List<Object> list = new ArrayList<>();
+        list.add(this.factory.createMarshalledValue(uuid));
+        list.add(large);
+        SimpleMarshalledValue<List<Object>> mv = this.factory.createMarshalledValue(list);
+
+        for (int i = 0; i < 2; ++i) {
+            SimpleMarshalledValue<List<Object>> copy = replicate(mv);
+            List<Object> result = copy.get(this.context);
+            assertEquals(2, result.size());
+            @SuppressWarnings("unchecked")
+            SimpleMarshalledValue<UUID> value = (SimpleMarshalledValue<UUID>) result.get(0);
+            assertEquals(uuid, value.get(this.context));
+            assertEquals(large, result.get(1));
+        }
+    }
+
     <T> void validateHashCode(T original, SimpleMarshalledValue<T> copy) {
         assertEquals(0, copy.hashCode());
     }
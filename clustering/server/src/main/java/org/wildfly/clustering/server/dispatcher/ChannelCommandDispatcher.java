@@ -26,8 +26,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -35,14 +37,19 @@ import java.util.concurrent.TimeoutException;
 
 import org.jgroups.Address;
 import org.jgroups.Message;
+import org.jgroups.SuspectedException;
 import org.jgroups.blocks.MessageDispatcher;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
 import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.clustering.group.NodeFactory;
 import org.wildfly.clustering.server.Addressable;
@@ -165,6 +172,72 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
         return this.dispatcher.sendMessageWithFuture(this.createMessage(command, node), this.createRequestOptions());
     }
 
+    @Override
+    public <R> void submitOnNode(Command<R, C> command, final Node node, final CommandResponseListener<R> listener) throws Exception {
+        // Bypass MessageDispatcher if target node is local
+        if (this.isLocal(node)) {
+            this.localDispatcher.submitOnNode(command, node, listener);
+            return;
+        }
+        NotifyingFuture<R> future = this.dispatcher.sendMessageWithFuture(this.createMessage(command, node), this.createAsyncRequestOptions());
+        future.setListener(new FutureListener<R>() {
+            @Override
+            public void futureDone(Future<R> future) {
+                CommandResponse<R> response;
+                try {
+                    response = new SimpleCommandResponse<>(future.get());
+                } catch (ExecutionException e) {
+                    // e.g. the node left before it responded
+                    response = new SimpleCommandResponse<>(e);
+                } catch (InterruptedException | RuntimeException e) {
+                    response = new SimpleCommandResponse<>(e);
+                }
+                listener.responseReceived(node, response);
+            }
+        });
+    }
+
+    @Override
+    public <R> void submitOnCluster(Command<R, C> command, final CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
+        final Set<Node> excluded = (excludedNodes != null) ? new HashSet<>(Arrays.asList(excludedNodes)) : Collections.<Node>emptySet();
+        final List<Address> members = this.dispatcher.getChannel().getView().getMembers();
+        final ServiceRspFilter filter = new ServiceRspFilter();
+        NotifyingFuture<RspList<R>> future = this.dispatcher.castMessageWithFuture(null, this.createMessage(command), this.createAsyncRequestOptions(filter, excludedNodes));
+        future.setListener(new FutureListener<RspList<R>>() {
+            @Override
+            public void futureDone(Future<RspList<R>> future) {
+                try {
+                    for (Map.Entry<Address, Rsp<R>> entry: future.get().entrySet()) {
+                        Address address = entry.getKey();
+                        Rsp<R> response = entry.getValue();
+                        if (response.wasSuspected() || response.wasUnreachable()) {
+                            // The node left the group before it responded, which the caller cannot tell from a missing response
+                            listener.responseReceived(ChannelCommandDispatcher.this.factory.createNode(address), new SimpleCommandResponse<R>(new SuspectedException(address)));
+                        } else if (response.wasReceived()) {
+                            listener.responseReceived(ChannelCommandDispatcher.this.factory.createNode(address), createCommandResponse(response));
+                        } else if (!filter.isServiceUnavailable(address)) {
+                            // The node did not respond before the request timed out
+                            listener.responseReceived(ChannelCommandDispatcher.this.factory.createNode(address), new SimpleCommandResponse<R>(new TimeoutException()));
+                        }
+                    }
+                } catch (ExecutionException e) {
+                    this.failed(new SimpleCommandResponse<R>(e));
+                } catch (InterruptedException | RuntimeException e) {
+                    this.failed(new SimpleCommandResponse<R>(e));
+                }
+            }
+
+            private void failed(CommandResponse<R> response) {
+                for (Address address: members) {
+                    Node node = ChannelCommandDispatcher.this.factory.createNode(address);
+                    if (!excluded.contains(node)) {
+                        listener.responseReceived(node, response);
+                    }
+                }
+            }
+        });
+    }
+
     private <R> Message createMessage(Command<R, C> command) {
         return this.createMessage(command, null);
     }
@@ -186,7 +259,23 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     }
 
     private RequestOptions createRequestOptions(Node... excludedNodes) {
-        RequestOptions options = this.createRequestOptions();
+        return exclude(this.createRequestOptions(), excludedNodes);
+    }
+
+    private RequestOptions createRequestOptions() {
+        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
+    }
+
+    private RequestOptions createAsyncRequestOptions(Node... excludedNodes) {
+        return this.createAsyncRequestOptions(FILTER, excludedNodes);
+    }
+
+    private RequestOptions createAsyncRequestOptions(RspFilter filter, Node... excludedNodes) {
+        // Since the caller does not wait for the response, let the transport bundle the message with other messages to the same destination
+        return exclude(new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, filter, Message.Flag.OOB), excludedNodes);
+    }
+
+    private static RequestOptions exclude(RequestOptions options, Node... excludedNodes) {
         if ((excludedNodes != null) && (excludedNodes.length > 0)) {
             Address[] addresses = new Address[excludedNodes.length];
             for (int i = 0; i < excludedNodes.length; ++i) {
@@ -197,10 +286,6 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
         return options;
     }
 
-    private RequestOptions createRequestOptions() {
-        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
-    }
-
     static <R> CommandResponse<R> createCommandResponse(Rsp<R> response) {
         Throwable exception = response.getException();
         return (exception != null) ? new SimpleCommandResponse<R>(exception) : new SimpleCommandResponse<>(response.getValue());
@@ -209,4 +294,30 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     private Address getLocalAddress() {
         return this.dispatcher.getChannel().getAddress();
     }
+
+    /**
+     * Response filter that remembers the nodes on which the dispatcher's service is not installed,
+     * so that their missing responses are not mistaken for timeouts.
+     */
+    private static class ServiceRspFilter implements RspFilter {
+        private final Set<Address> unavailable = Collections.newSetFromMap(new ConcurrentHashMap<Address, Boolean>());
+
+        @Override
+        public boolean isAcceptable(Object response, Address sender) {
+            if (response instanceof NoSuchService) {
+                this.unavailable.add(sender);
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean needMoreResponses() {
+            return true;
+        }
+
+        boolean isServiceUnavailable(Address address) {
+            return this.unavailable.contains(address);
+        }
+    }
 }
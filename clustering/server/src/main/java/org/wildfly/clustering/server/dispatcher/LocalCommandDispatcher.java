@@ -37,6 +37,7 @@ import org.jgroups.UnreachableException;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
@@ -101,6 +102,30 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
         return Collections.singletonMap(this.node, this.submitOnNode(command, this.node));
     }
 
+    @Override
+    public <R> void submitOnNode(final Command<R, C> command, final Node node, final CommandResponseListener<R> listener) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                CommandResponse<R> response;
+                try {
+                    response = LocalCommandDispatcher.this.executeOnNode(command, node);
+                } catch (RuntimeException e) {
+                    response = new SimpleCommandResponse<>(e);
+                }
+                listener.responseReceived(node, response);
+            }
+        };
+        this.executor.execute(task);
+    }
+
+    @Override
+    public <R> void submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) {
+        if ((excludedNodes == null) || (excludedNodes.length == 0) || !Arrays.asList(excludedNodes).contains(this.node)) {
+            this.submitOnNode(command, this.node, listener);
+        }
+    }
+
     @Override
     public void close() {
         this.executor.shutdown();
@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.jgroups.Address;
+import org.jgroups.Channel;
+import org.jgroups.Message;
+import org.jgroups.SuspectedException;
+import org.jgroups.View;
+import org.jgroups.blocks.MessageDispatcher;
+import org.jgroups.blocks.RequestOptions;
+import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.jgroups.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+import org.wildfly.clustering.server.group.AddressableNode;
+
+/**
+ * Tests the asynchronous submission of commands to remote nodes via a {@link ChannelCommandDispatcher}.
+ */
+public class ChannelCommandDispatcherTestCase {
+
+    private final MessageDispatcher messageDispatcher = mock(MessageDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final CommandMarshaller<String> marshaller = mock(CommandMarshaller.class);
+    @SuppressWarnings("unchecked")
+    private final NodeFactory<Address> nodeFactory = mock(NodeFactory.class);
+    @SuppressWarnings("unchecked")
+    private final CommandDispatcher<String> localDispatcher = mock(CommandDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final Command<String, String> command = mock(Command.class);
+    @SuppressWarnings("unchecked")
+    private final CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+
+    private final Address localAddress = UUID.randomUUID();
+    private final Address address1 = UUID.randomUUID();
+    private final Address address2 = UUID.randomUUID();
+    private final Address address3 = UUID.randomUUID();
+    private final Node node1 = new AddressableNode(this.address1, "node1", null);
+    private final Node node2 = new AddressableNode(this.address2, "node2", null);
+    private final Node node3 = new AddressableNode(this.address3, "node3", null);
+
+    private ChannelCommandDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        Channel channel = mock(Channel.class);
+        View view = mock(View.class);
+        when(this.messageDispatcher.getChannel()).thenReturn(channel);
+        when(channel.getAddress()).thenReturn(this.localAddress);
+        when(channel.getView()).thenReturn(view);
+        when(view.getMembers()).thenReturn(Arrays.asList(this.localAddress, this.address1, this.address2, this.address3));
+        when(this.marshaller.marshal(this.command)).thenReturn(new byte[0]);
+        when(this.nodeFactory.createNode(this.localAddress)).thenReturn(new AddressableNode(this.localAddress, "local", null));
+        when(this.nodeFactory.createNode(this.address1)).thenReturn(this.node1);
+        when(this.nodeFactory.createNode(this.address2)).thenReturn(this.node2);
+        when(this.nodeFactory.createNode(this.address3)).thenReturn(this.node3);
+        this.dispatcher = new ChannelCommandDispatcher<String>(this.messageDispatcher, this.marshaller, this.nodeFactory, 1000, this.localDispatcher) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void submitOnNode() throws Exception {
+        NotifyingFuture<String> future = this.sendMessage(this.node1);
+        when(future.get()).thenReturn("result");
+        complete(future);
+
+        assertEquals("result", this.verifyResponse(this.node1).get());
+    }
+
+    @Test
+    public void submitOnNodeFailure() throws Exception {
+        NotifyingFuture<String> future = this.sendMessage(this.node1);
+        when(future.get()).thenThrow(new ExecutionException(new IllegalStateException()));
+        complete(future);
+
+        assertTrue(this.verifyException(this.node1) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void submitOnNodeLeaving() throws Exception {
+        NotifyingFuture<String> future = this.sendMessage(this.node1);
+        // The node leaves the group while the response is pending
+        when(future.get()).thenThrow(new ExecutionException(new SuspectedException(this.address1)));
+        complete(future);
+
+        assertTrue(this.verifyException(this.node1) instanceof SuspectedException);
+    }
+
+    @Test
+    public void submitOnCluster() throws Exception {
+        NotifyingFuture<RspList<String>> future = this.castMessage(this.node2);
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "result"));
+        responses.put(this.address3, new Rsp<String>(this.address3, new IllegalStateException()));
+        when(future.get()).thenReturn(responses);
+        complete(future);
+
+        assertEquals("result", this.verifyResponse(this.node1).get());
+        assertTrue(this.verifyException(this.node3) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void submitOnClusterLeaving() throws Exception {
+        NotifyingFuture<RspList<String>> future = this.castMessage();
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "result"));
+        // The node leaves the group while the response is pending
+        Rsp<String> suspected = new Rsp<>(this.address2);
+        suspected.setSuspected();
+        responses.put(this.address2, suspected);
+        when(future.get()).thenReturn(responses);
+        complete(future);
+
+        assertEquals("result", this.verifyResponse(this.node1).get());
+        assertTrue(this.verifyException(this.node2) instanceof SuspectedException);
+    }
+
+    @Test
+    public void submitOnClusterTimeout() throws Exception {
+        NotifyingFuture<RspList<String>> future = this.castMessage();
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "result"));
+        // The request timed out before these nodes responded
+        responses.put(this.address2, new Rsp<String>(this.address2));
+        responses.put(this.address3, new Rsp<String>(this.address3));
+        // The dispatcher's service is not installed on this node
+        RspFilter filter = this.verifyRequestOptions().getRspFilter();
+        assertFalse(filter.isAcceptable(NoSuchService.INSTANCE, this.address3));
+        when(future.get()).thenReturn(responses);
+        complete(future);
+
+        assertEquals("result", this.verifyResponse(this.node1).get());
+        assertTrue(this.verifyException(this.node2) instanceof TimeoutException);
+        verify(this.listener, never()).responseReceived(same(this.node3), any(CommandResponse.class));
+    }
+
+    @Test
+    public void submitOnClusterFailure() throws Exception {
+        NotifyingFuture<RspList<String>> future = this.castMessage(this.node2);
+        when(future.get()).thenThrow(new ExecutionException(new IllegalStateException()));
+        complete(future);
+
+        // Every member that was not excluded is notified of the failure
+        assertTrue(this.verifyException(this.node1) instanceof IllegalStateException);
+        assertTrue(this.verifyException(this.node3) instanceof IllegalStateException);
+    }
+
+    @SuppressWarnings("unchecked")
+    private NotifyingFuture<String> sendMessage(Node node) throws Exception {
+        NotifyingFuture<String> future = mock(NotifyingFuture.class);
+        doReturn(future).when(this.messageDispatcher).sendMessageWithFuture(any(Message.class), any(RequestOptions.class));
+        this.dispatcher.submitOnNode(this.command, node, this.listener);
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private NotifyingFuture<RspList<String>> castMessage(Node... excludedNodes) throws Exception {
+        NotifyingFuture<RspList<String>> future = mock(NotifyingFuture.class);
+        doReturn(future).when(this.messageDispatcher).castMessageWithFuture(anyCollectionOf(Address.class), any(Message.class), any(RequestOptions.class));
+        this.dispatcher.submitOnCluster(this.command, this.listener, excludedNodes);
+        return future;
+    }
+
+    private RequestOptions verifyRequestOptions() throws Exception {
+        ArgumentCaptor<RequestOptions> captor = ArgumentCaptor.forClass(RequestOptions.class);
+        verify(this.messageDispatcher).castMessageWithFuture(anyCollectionOf(Address.class), any(Message.class), captor.capture());
+        return captor.getValue();
+    }
+
+    /**
+     * Completes the specified future, as JGroups does once all responses were received.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <T> void complete(NotifyingFuture<T> future) {
+        ArgumentCaptor<FutureListener> captor = ArgumentCaptor.forClass(FutureListener.class);
+        verify(future).setListener(captor.capture());
+        captor.getValue().futureDone(future);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private CommandResponse<String> verifyResponse(Node node) {
+        ArgumentCaptor<CommandResponse> captor = ArgumentCaptor.forClass(CommandResponse.class);
+        verify(this.listener).responseReceived(same(node), captor.capture());
+        return captor.getValue();
+    }
+
+    private Throwable verifyException(Node node) {
+        try {
+            this.verifyResponse(node).get();
+            fail();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Tests the asynchronous submission of commands to a {@link LocalCommandDispatcher}.
+ */
+public class LocalCommandDispatcherTestCase {
+
+    private final Node node = mock(Node.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final LocalCommandDispatcher<String> dispatcher = new LocalCommandDispatcher<>(this.node, "context", this.executor);
+
+    @After
+    public void tearDown() {
+        this.dispatcher.close();
+    }
+
+    @Test
+    public void submitOnNode() throws Exception {
+        ResponseQueue<String> listener = new ResponseQueue<>();
+        this.dispatcher.submitOnNode(new EchoCommand(), this.node, listener);
+
+        ResponseQueue.Entry<String> entry = listener.take();
+        assertSame(this.node, entry.node);
+        assertEquals("context", entry.response.get());
+    }
+
+    @Test
+    public void submitOnNodeFailure() throws Exception {
+        ResponseQueue<String> listener = new ResponseQueue<>();
+        this.dispatcher.submitOnNode(new FailingCommand(), this.node, listener);
+
+        ResponseQueue.Entry<String> entry = listener.take();
+        assertSame(this.node, entry.node);
+        try {
+            entry.response.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void submitOnUnknownNode() throws Exception {
+        Node other = mock(Node.class);
+        ResponseQueue<String> listener = new ResponseQueue<>();
+        this.dispatcher.submitOnNode(new EchoCommand(), other, listener);
+
+        ResponseQueue.Entry<String> entry = listener.take();
+        assertSame(other, entry.node);
+        try {
+            entry.response.get();
+            fail();
+        } catch (ExecutionException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void submitOnCluster() throws Exception {
+        ResponseQueue<String> listener = new ResponseQueue<>();
+        this.dispatcher.submitOnCluster(new EchoCommand(), listener);
+
+        ResponseQueue.Entry<String> entry = listener.take();
+        assertSame(this.node, entry.node);
+        assertEquals("context", entry.response.get());
+
+        // Excluding the only node must not notify the listener at all
+        this.dispatcher.submitOnCluster(new EchoCommand(), listener, this.node);
+        this.executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+        assertTrue(listener.isEmpty());
+    }
+
+    static class EchoCommand implements Command<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String execute(String context) {
+            return context;
+        }
+    }
+
+    static class FailingCommand implements Command<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String execute(String context) {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Collects the responses passed to a listener.
+     */
+    static class ResponseQueue<R> implements CommandResponseListener<R> {
+        private final BlockingQueue<Entry<R>> responses = new LinkedBlockingQueue<>();
+
+        @Override
+        public void responseReceived(Node node, CommandResponse<R> response) {
+            this.responses.add(new Entry<>(node, response));
+        }
+
+        Entry<R> take() throws InterruptedException {
+            Entry<R> entry = this.responses.poll(10, TimeUnit.SECONDS);
+            if (entry == null) {
+                fail("No response received");
+            }
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return this.responses.isEmpty();
+        }
+
+        static class Entry<R> {
+            final Node node;
+            final CommandResponse<R> response;
+
+            Entry(Node node, CommandResponse<R> response) {
+                this.node = node;
+                this.response = response;
+            }
+        }
+    }
+}
@@ -43,6 +43,8 @@ import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.AffinityIdentifierFactory;
 import org.wildfly.clustering.web.infinispan.session.coarse.CoarseSessionCacheEntry;
 import org.wildfly.clustering.web.infinispan.session.coarse.CoarseSessionFactory;
+import org.wildfly.clustering.web.infinispan.session.coarse.DeltaSessionFactory;
+import org.wildfly.clustering.web.infinispan.session.coarse.MarshalledSessionAttributes;
 import org.wildfly.clustering.web.infinispan.session.coarse.SessionAttributesCacheKey;
 import org.wildfly.clustering.web.infinispan.session.fine.FineSessionCacheEntry;
 import org.wildfly.clustering.web.infinispan.session.fine.FineSessionFactory;
@@ -51,6 +53,7 @@ import org.wildfly.clustering.web.session.SessionContext;
 import org.wildfly.clustering.web.session.SessionManager;
 import org.wildfly.clustering.web.session.SessionManagerConfiguration;
 import org.wildfly.clustering.web.session.SessionManagerFactory;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Factory for creating session managers.
@@ -58,6 +61,13 @@ import org.wildfly.clustering.web.session.SessionManagerFactory;
  */
 public class InfinispanSessionManagerFactory implements SessionManagerFactory<TransactionBatch> {
 
+    /**
+     * Enables replication of only the changed attributes of coarse granularity sessions.
+     * Must be set consistently across the cluster, since it changes the format of the cache entries holding session attributes.
+     */
+    public static final String COARSE_DELTA_PROPERTY = "org.wildfly.clustering.web.session.coarse.delta";
+    static final boolean COARSE_DELTA = Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(COARSE_DELTA_PROPERTY, "false"));
+
     private final InfinispanSessionManagerFactoryConfiguration config;
 
     public InfinispanSessionManagerFactory(InfinispanSessionManagerFactoryConfiguration config) {
@@ -126,6 +136,11 @@ public class InfinispanSessionManagerFactory implements SessionManagerFactory<Tr
             }
             case COARSE: {
                 Cache<String, CoarseSessionCacheEntry<L>> sessionCache = this.config.getCache();
+                if (COARSE_DELTA) {
+                    Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> attributesCache = this.config.getCache();
+                    Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller = new MarshalledValueMarshaller<>(factory, marshallingContext);
+                    return new DeltaSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory);
+                }
                 Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache = this.config.getCache();
                 Marshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller = new MarshalledValueMarshaller<>(factory, marshallingContext);
                 return new CoarseSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory);
@@ -22,14 +22,21 @@
 package org.wildfly.clustering.web.infinispan.session;
 
 import java.security.AccessController;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.threads.JBossThreadFactory;
 import org.wildfly.clustering.ee.Batch;
@@ -39,46 +46,77 @@ import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.infinispan.spi.distribution.Locality;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.session.ImmutableSession;
+import org.wildfly.security.manager.WildFlySecurityManager;
 import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 /**
  * Session expiration scheduler that eagerly expires sessions as soon as they are eligible.
  * If/When Infinispan implements expiration notifications (ISPN-694), this will be obsolete.
+ * <p/>
+ * Sessions are grouped into buckets by their expiration time, rounded up to the configured resolution.
+ * A single task is scheduled per bucket, which expires all sessions of the bucket within as few batches as possible.
  * @author Paul Ferraro
  */
 public class SessionExpirationScheduler implements Scheduler {
 
-    final Map<String, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+    static final String THREADS_PROPERTY = "org.wildfly.clustering.web.session.expiration.threads";
+    static final String RESOLUTION_PROPERTY = "org.wildfly.clustering.web.session.expiration.resolution";
+    static final int DEFAULT_THREADS = 1;
+    static final long DEFAULT_RESOLUTION = 100;
+    /** The maximum number of sessions expired within a single batch */
+    static final int MAX_BATCH_SIZE = 100;
+
+    /** Expiration bucket time of each scheduled session */
+    final ConcurrentMap<String, Long> expirations = new ConcurrentHashMap<>();
+    final ConcurrentMap<Long, ExpirationBucket> buckets = new ConcurrentHashMap<>();
     final Batcher<TransactionBatch> batcher;
     final Remover<String> remover;
     private final ScheduledExecutorService executor;
+    private final long resolution;
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private volatile long lag;
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
-        this(batcher, remover, createScheduledExecutor(createThreadFactory()));
+        this(batcher, remover, Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(THREADS_PROPERTY, Integer.toString(DEFAULT_THREADS))), Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(RESOLUTION_PROPERTY, Long.toString(DEFAULT_RESOLUTION))));
+    }
+
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, int threads, long resolution) {
+        this(batcher, remover, createScheduledExecutor(createThreadFactory(), threads), resolution);
     }
 
     private static ThreadFactory createThreadFactory() {
         return new JBossThreadFactory(new ThreadGroup(SessionExpirationScheduler.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
     }
 
-    private static ScheduledExecutorService createScheduledExecutor(ThreadFactory factory) {
-        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory);
+    private static ScheduledExecutorService createScheduledExecutor(ThreadFactory factory, int threads) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(threads, 1), factory);
         executor.setRemoveOnCancelPolicy(true);
         executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
         return executor;
     }
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor) {
+        this(batcher, remover, executor, DEFAULT_RESOLUTION);
+    }
+
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor, long resolution) {
         this.batcher = batcher;
         this.remover = remover;
         this.executor = executor;
+        this.resolution = Math.max(resolution, 1);
     }
 
     @Override
     public void cancel(String sessionId) {
-        Future<?> future = this.expirationFutures.remove(sessionId);
-        if (future != null) {
-            future.cancel(false);
+        Long time = this.expirations.remove(sessionId);
+        if (time != null) {
+            ExpirationBucket bucket = this.buckets.get(time);
+            if ((bucket != null) && bucket.remove(sessionId)) {
+                // Bucket is now empty
+                this.buckets.remove(time, bucket);
+                bucket.cancel();
+            }
         }
     }
 
@@ -87,19 +125,46 @@ public class SessionExpirationScheduler implements Scheduler {
         long timeout = session.getMetaData().getMaxInactiveInterval(TimeUnit.MILLISECONDS);
         if (timeout > 0) {
             long lastAccessed = session.getMetaData().getLastAccessedTime().getTime();
-            long delay = Math.max(lastAccessed + timeout - System.currentTimeMillis(), 0);
             String id = session.getId();
-            Runnable task = new ExpirationTask(id);
+            // Round up, so that a session never expires early
+            long expiration = lastAccessed + timeout;
+            long time = ((expiration + this.resolution - 1) / this.resolution) * this.resolution;
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d ms", id, timeout);
-            synchronized (task) {
-                this.expirationFutures.put(id, this.executor.schedule(task, delay, TimeUnit.MILLISECONDS));
+            Long previous = this.expirations.put(id, time);
+            if ((previous != null) && (previous.longValue() != time)) {
+                ExpirationBucket bucket = this.buckets.get(previous);
+                if ((bucket != null) && bucket.remove(id)) {
+                    this.buckets.remove(previous, bucket);
+                    bucket.cancel();
+                }
+            }
+            while (true) {
+                ExpirationBucket bucket = this.buckets.get(time);
+                boolean created = false;
+                if (bucket == null) {
+                    ExpirationBucket newBucket = new ExpirationBucket(time);
+                    bucket = this.buckets.putIfAbsent(time, newBucket);
+                    if (bucket == null) {
+                        bucket = newBucket;
+                        created = true;
+                    }
+                }
+                if (bucket.add(id)) {
+                    if (created) {
+                        long delay = Math.max(time - System.currentTimeMillis(), 0);
+                        bucket.setFuture(this.executor.schedule(bucket, delay, TimeUnit.MILLISECONDS));
+                    }
+                    return;
+                }
+                // Bucket was already closed, make way for a new one
+                this.buckets.remove(time, bucket);
             }
         }
     }
 
     @Override
     public void cancel(Locality locality) {
-        for (String sessionId: this.expirationFutures.keySet()) {
+        for (String sessionId: this.expirations.keySet()) {
             if (!locality.isLocal(sessionId)) {
                 this.cancel(sessionId);
             }
@@ -109,10 +174,14 @@ public class SessionExpirationScheduler implements Scheduler {
     @Override
     public void close() {
         this.executor.shutdown();
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(false);
+        List<Future<?>> futures = new ArrayList<>(this.buckets.size());
+        for (ExpirationBucket bucket: this.buckets.values()) {
+            Future<?> future = bucket.cancel();
+            if (future != null) {
+                futures.add(future);
+            }
         }
-        for (Future<?> future: this.expirationFutures.values()) {
+        for (Future<?> future: futures) {
             if (!future.isDone()) {
                 try {
                     future.get();
@@ -123,39 +192,173 @@ public class SessionExpirationScheduler implements Scheduler {
                 }
             }
         }
-        this.expirationFutures.clear();
+        this.buckets.clear();
+        this.expirations.clear();
+    }
+
+    /**
+     * @return the number of sessions currently scheduled for expiration
+     */
+    public int getScheduledCount() {
+        return this.expirations.size();
+    }
+
+    /**
+     * @return the number of pending expiration buckets
+     */
+    public int getBucketCount() {
+        return this.buckets.size();
+    }
+
+    /**
+     * @return the number of sessions expired by this scheduler
+     */
+    public long getExpiredCount() {
+        return this.expiredCount.get();
+    }
+
+    /**
+     * @return the delay, in milliseconds, with which the most recent expiration bucket was processed
+     */
+    public long getLag() {
+        return this.lag;
     }
 
-    private class ExpirationTask implements Runnable {
-        private final String id;
+    /**
+     * @return the maximum delay, in milliseconds, with which an expiration bucket was processed
+     */
+    public long getMaxLag() {
+        return this.maxLag.get();
+    }
 
-        public ExpirationTask(String id) {
-            this.id = id;
+    void expire(List<String> ids) {
+        // Expire as many sessions as possible within a single batch
+        for (int i = 0; i < ids.size(); i += MAX_BATCH_SIZE) {
+            List<String> batchIds = ids.subList(i, Math.min(i + MAX_BATCH_SIZE, ids.size()));
+            if (!this.expire(batchIds, false)) {
+                // Fall back to a batch per session, so that a single failure does not prevent the others from expiring
+                for (String id: batchIds) {
+                    this.expire(Collections.singletonList(id), true);
+                }
+            }
         }
+    }
 
-        @Override
-        public void run() {
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", this.id);
-            try {
-                Batch batch = SessionExpirationScheduler.this.batcher.createBatch();
-                boolean success = false;
+    private boolean expire(List<String> ids, boolean log) {
+        InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring sessions %s", ids);
+        Batch batch = this.batcher.createBatch();
+        boolean success = false;
+        try {
+            for (String id: ids) {
                 try {
-                    SessionExpirationScheduler.this.remover.remove(this.id);
-                    success = true;
+                    this.remover.remove(id);
                 } catch (Throwable e) {
-                    InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, this.id);
-                } finally {
-                    if (success) {
-                        batch.close();
+                    if (log) {
+                        InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, id);
                     } else {
-                        batch.discard();
+                        InfinispanWebLogger.ROOT_LOGGER.debugf(e, "Failed to expire session %s, retrying in a batch of its own", id);
                     }
+                    return false;
                 }
-            } finally {
-                synchronized (this) {
-                    SessionExpirationScheduler.this.expirationFutures.remove(this.id);
+            }
+            success = true;
+            this.expiredCount.addAndGet(ids.size());
+            return true;
+        } finally {
+            if (success) {
+                batch.close();
+            } else {
+                batch.discard();
+            }
+        }
+    }
+
+    void recordLag(long lag) {
+        this.lag = lag;
+        long max = this.maxLag.get();
+        while ((lag > max) && !this.maxLag.compareAndSet(max, lag)) {
+            max = this.maxLag.get();
+        }
+    }
+
+    /**
+     * The sessions expiring within the same time window.
+     */
+    private class ExpirationBucket implements Runnable {
+        private final long time;
+        private final Set<String> ids = new HashSet<>();
+        private Future<?> future;
+        private boolean closed = false;
+
+        ExpirationBucket(long time) {
+            this.time = time;
+        }
+
+        /**
+         * Adds the specified session to this bucket.
+         * @return false, if this bucket was already closed
+         */
+        synchronized boolean add(String id) {
+            if (this.closed) {
+                return false;
+            }
+            this.ids.add(id);
+            return true;
+        }
+
+        /**
+         * Removes the specified session from this bucket, closing it if it becomes empty.
+         * @return true, if this bucket was closed as a result
+         */
+        synchronized boolean remove(String id) {
+            if (this.closed) {
+                return false;
+            }
+            if (this.ids.remove(id) && this.ids.isEmpty()) {
+                this.closed = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void setFuture(Future<?> future) {
+            if (this.closed) {
+                future.cancel(false);
+            }
+            this.future = future;
+        }
+
+        synchronized Future<?> cancel() {
+            this.closed = true;
+            if (this.future != null) {
+                this.future.cancel(false);
+            }
+            return this.future;
+        }
+
+        private synchronized List<String> drain() {
+            this.closed = true;
+            List<String> result = new ArrayList<>(this.ids);
+            this.ids.clear();
+            return result;
+        }
+
+        @Override
+        public void run() {
+            SessionExpirationScheduler scheduler = SessionExpirationScheduler.this;
+            scheduler.buckets.remove(this.time, this);
+            scheduler.recordLag(Math.max(System.currentTimeMillis() - this.time, 0));
+            List<String> ids = this.drain();
+            Iterator<String> sessions = ids.iterator();
+            while (sessions.hasNext()) {
+                // Skip sessions that were rescheduled in the meantime
+                if (!scheduler.expirations.remove(sessions.next(), this.time)) {
+                    sessions.remove();
                 }
             }
+            if (!ids.isEmpty()) {
+                scheduler.expire(ids);
+            }
         }
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.wildfly.clustering.ee.infinispan.Mutator;
+import org.wildfly.clustering.infinispan.spi.distribution.ConsistentHashLocality;
+import org.wildfly.clustering.web.session.SessionMetaData;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Mutator for the cache entry holding the meta data of a session, which throttles the replication of last accessed time updates.
+ * <p/>
+ * A change to the last accessed time alone only replicates once it moves the expiration of the session by more than
+ * a fraction of its max inactive interval, since the last accessed time was last replicated.
+ * In between, the primary owner of the session tracks the last accessed time locally, and schedules expiration accordingly.
+ * Consequently, following a failover, a session may expire early, by at most that fraction of its max inactive interval.
+ * <p/>
+ * Throttling is disabled by default, and only applies to distributed caches, when the session is accessed on its primary owner.
+ */
+public class SessionMetaDataMutator implements Mutator {
+
+    public static final String THRESHOLD_PROPERTY = "org.wildfly.clustering.web.session.last-accessed-time.threshold";
+    static final float THRESHOLD = Float.parseFloat(WildFlySecurityManager.getPropertyPrivileged(THRESHOLD_PROPERTY, "0"));
+
+    /**
+     * Creates a mutator for the meta data of the specified session, throttling last accessed time replication if enabled and applicable.
+     * @param cache the session cache
+     * @param id a session identifier
+     * @param metaData the session meta data
+     * @param mutator the mutator of the cache entry holding the session meta data
+     * @return a mutator
+     */
+    public static Mutator create(Cache<String, ?> cache, String id, SessionMetaData metaData, Mutator mutator) {
+        if ((THRESHOLD > 0) && (mutator != Mutator.PASSIVE) && (metaData instanceof SimpleSessionMetaData) && cache.getCacheConfiguration().clustering().cacheMode().isDistributed() && new ConsistentHashLocality(cache).isLocal(id)) {
+            return new SessionMetaDataMutator(mutator, (SimpleSessionMetaData) metaData, THRESHOLD);
+        }
+        return mutator;
+    }
+
+    private final Mutator mutator;
+    private final SimpleSessionMetaData metaData;
+    private final float threshold;
+    private final long maxInactiveInterval;
+
+    SessionMetaDataMutator(Mutator mutator, SimpleSessionMetaData metaData, float threshold) {
+        this.mutator = mutator;
+        this.metaData = metaData;
+        this.threshold = threshold;
+        this.maxInactiveInterval = metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void mutate() {
+        long maxInactiveInterval = this.metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS);
+        long lastAccessedTime = this.metaData.getLastAccessedTime().getTime();
+        // Always replicate changes to the max inactive interval, and the last accessed time of immortal sessions
+        if ((maxInactiveInterval != this.maxInactiveInterval) || (maxInactiveInterval <= 0) || ((lastAccessedTime - this.metaData.getReplicatedLastAccessedTime()) > (maxInactiveInterval * this.threshold))) {
+            this.metaData.setReplicatedLastAccessedTime(lastAccessedTime);
+            this.mutator.mutate();
+        }
+    }
+}
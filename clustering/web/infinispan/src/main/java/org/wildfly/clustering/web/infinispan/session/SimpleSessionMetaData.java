@@ -35,18 +35,22 @@ public class SimpleSessionMetaData implements SessionMetaData {
     private final Date creationTime;
     private volatile Date lastAccessedTime;
     private volatile Time maxInactiveInterval;
+    // The last accessed time known to the other owners of this session, not itself replicated
+    private volatile long replicatedLastAccessedTime;
 
     public SimpleSessionMetaData() {
         Date now = new Date();
         this.creationTime = now;
         this.lastAccessedTime = now;
         this.maxInactiveInterval = new Time(0, TimeUnit.MILLISECONDS);
+        this.replicatedLastAccessedTime = now.getTime();
     }
 
     public SimpleSessionMetaData(Date creationTime, Date lastAccessedTime, Time maxInactiveInterval) {
         this.creationTime = creationTime;
         this.lastAccessedTime = lastAccessedTime;
         this.maxInactiveInterval = maxInactiveInterval;
+        this.replicatedLastAccessedTime = (lastAccessedTime != null) ? lastAccessedTime.getTime() : 0;
     }
 
     @Override
@@ -85,4 +89,12 @@ public class SimpleSessionMetaData implements SessionMetaData {
     public void setMaxInactiveInterval(long interval, TimeUnit unit) {
         this.maxInactiveInterval = new Time(interval, unit);
     }
+
+    long getReplicatedLastAccessedTime() {
+        return this.replicatedLastAccessedTime;
+    }
+
+    void setReplicatedLastAccessedTime(long time) {
+        this.replicatedLastAccessedTime = time;
+    }
 }
@@ -40,6 +40,7 @@ import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
+import org.wildfly.clustering.web.infinispan.session.SessionMetaDataMutator;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
@@ -77,7 +78,7 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
         MutableCacheEntry<Map<String, Object>> attributesEntry = entry.getMutableAttributesEntry();
         SessionMetaData metaData = sessionEntry.getValue().getMetaData();
         SessionAttributes attributes = new CoarseSessionAttributes(attributesEntry.getValue(), attributesEntry.getMutator());
-        return new InfinispanSession<>(id, metaData, attributes, sessionEntry.getValue().getLocalContext(), this.localContextFactory, this.context, sessionEntry.getMutator(), this);
+        return new InfinispanSession<>(id, metaData, attributes, sessionEntry.getValue().getLocalContext(), this.localContextFactory, this.context, SessionMetaDataMutator.create(this.sessionCache, id, metaData, sessionEntry.getMutator()), this);
     }
 
     @Override
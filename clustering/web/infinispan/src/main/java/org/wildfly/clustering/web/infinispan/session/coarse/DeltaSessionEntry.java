@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.Map;
+
+import org.wildfly.clustering.ee.infinispan.MutableCacheEntry;
+
+/**
+ * Wrapper for the session cache entry and the session attributes of a coarse granularity session replicating deltas.
+ */
+public class DeltaSessionEntry<L> {
+    private final MutableCacheEntry<CoarseSessionCacheEntry<L>> sessionEntry;
+    private final Map<String, Object> attributes;
+    private final SessionAttributesDeltaMutator mutator;
+
+    public DeltaSessionEntry(MutableCacheEntry<CoarseSessionCacheEntry<L>> sessionEntry, Map<String, Object> attributes, SessionAttributesDeltaMutator mutator) {
+        this.sessionEntry = sessionEntry;
+        this.attributes = attributes;
+        this.mutator = mutator;
+    }
+
+    public MutableCacheEntry<CoarseSessionCacheEntry<L>> getMutableSessionEntry() {
+        return this.sessionEntry;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return this.attributes;
+    }
+
+    public SessionAttributesDeltaMutator getAttributesMutator() {
+        return this.mutator;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.TransactionConfiguration;
+import org.infinispan.context.Flag;
+import org.infinispan.transaction.LockingMode;
+import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
+import org.wildfly.clustering.ee.infinispan.MutableCacheEntry;
+import org.wildfly.clustering.ee.infinispan.Mutator;
+import org.wildfly.clustering.marshalling.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.Marshaller;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+import org.wildfly.clustering.web.LocalContextFactory;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
+import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.SessionFactory;
+import org.wildfly.clustering.web.infinispan.session.SessionMetaDataMutator;
+import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
+import org.wildfly.clustering.web.session.ImmutableSession;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+import org.wildfly.clustering.web.session.Session;
+import org.wildfly.clustering.web.session.SessionAttributes;
+import org.wildfly.clustering.web.session.SessionContext;
+import org.wildfly.clustering.web.session.SessionMetaData;
+
+/**
+ * {@link SessionFactory} for coarse granularity sessions, which replicates only the attributes changed by a request.
+ * Like {@link CoarseSessionFactory}, a given session is mapped to 2 co-located cache entries, one containing the session meta data and local context,
+ * and the other containing the session attributes, each of which is marshalled separately.
+ * Changes to the session attributes are applied to the latter cache entry as a {@link SessionAttributesDelta}.
+ */
+public class DeltaSessionFactory<L> implements SessionFactory<DeltaSessionEntry<L>, L> {
+
+    private final SessionContext context;
+    private final Cache<String, CoarseSessionCacheEntry<L>> sessionCache;
+    private final Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> attributesCache;
+    private final Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller;
+    private final LocalContextFactory<L> localContextFactory;
+
+    public DeltaSessionFactory(Cache<String, CoarseSessionCacheEntry<L>> sessionCache, Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> attributesCache, SessionContext context, Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+        this.sessionCache = sessionCache;
+        this.attributesCache = attributesCache;
+        this.context = context;
+        this.marshaller = marshaller;
+        this.localContextFactory = localContextFactory;
+    }
+
+    @Override
+    public Session<L> createSession(String id, DeltaSessionEntry<L> entry) {
+        MutableCacheEntry<CoarseSessionCacheEntry<L>> sessionEntry = entry.getMutableSessionEntry();
+        SessionMetaData metaData = sessionEntry.getValue().getMetaData();
+        SessionAttributes attributes = new DeltaSessionAttributes(entry.getAttributes(), entry.getAttributesMutator());
+        return new InfinispanSession<>(id, metaData, attributes, sessionEntry.getValue().getLocalContext(), this.localContextFactory, this.context, SessionMetaDataMutator.create(this.sessionCache, id, metaData, sessionEntry.getMutator()), this);
+    }
+
+    @Override
+    public ImmutableSession createImmutableSession(String id, DeltaSessionEntry<L> entry) {
+        ImmutableSessionMetaData metaData = entry.getMutableSessionEntry().getValue().getMetaData();
+        ImmutableSessionAttributes attributes = new CoarseImmutableSessionAttributes(entry.getAttributes());
+        return new InfinispanImmutableSession(id, metaData, attributes, this.context);
+    }
+
+    @Override
+    public DeltaSessionEntry<L> createValue(String id, Void context) {
+        CoarseSessionCacheEntry<L> entry = new CoarseSessionCacheEntry<>(new SimpleSessionMetaData());
+        CoarseSessionCacheEntry<L> existingEntry = this.sessionCache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).putIfAbsent(id, entry);
+        SessionAttributesCacheKey key = new SessionAttributesCacheKey(id);
+        MarshalledSessionAttributes value = new MarshalledSessionAttributes();
+        if (existingEntry == null) {
+            this.attributesCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).put(key, value);
+            return new DeltaSessionEntry<>(new MutableCacheEntry<>(entry, Mutator.PASSIVE), new HashMap<String, Object>(), new SessionAttributesDeltaMutator(value, this.marshaller));
+        }
+        MutableCacheEntry<CoarseSessionCacheEntry<L>> sessionEntry = new MutableCacheEntry<>(existingEntry, new CacheEntryMutator<>(this.sessionCache, id, existingEntry));
+        MarshalledSessionAttributes existingValue = this.attributesCache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).putIfAbsent(key, value);
+        if (existingValue != null) {
+            try {
+                return new DeltaSessionEntry<>(sessionEntry, this.read(existingValue), new SessionAttributesDeltaMutator(this.attributesCache, key, this.marshaller));
+            } catch (InvalidSerializedFormException e) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToActivateSession(e, id);
+                new CacheEntryMutator<>(this.attributesCache, key, value).mutate();
+            }
+        }
+        return new DeltaSessionEntry<>(sessionEntry, new HashMap<String, Object>(), new SessionAttributesDeltaMutator(value, this.marshaller));
+    }
+
+    @Override
+    public DeltaSessionEntry<L> findValue(String id) {
+        TransactionConfiguration transaction = this.sessionCache.getCacheConfiguration().transaction();
+        boolean pessimistic = transaction.transactionMode().isTransactional() && (transaction.lockingMode() == LockingMode.PESSIMISTIC);
+        Cache<String, CoarseSessionCacheEntry<L>> cache = pessimistic ? this.sessionCache.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK) : this.sessionCache;
+        CoarseSessionCacheEntry<L> entry = cache.get(id);
+        if (entry != null) {
+            MutableCacheEntry<CoarseSessionCacheEntry<L>> sessionEntry = new MutableCacheEntry<>(entry, new CacheEntryMutator<>(this.sessionCache, id, entry));
+            SessionAttributesCacheKey key = new SessionAttributesCacheKey(id);
+            MarshalledSessionAttributes value = this.attributesCache.get(key);
+            if (value != null) {
+                try {
+                    return new DeltaSessionEntry<>(sessionEntry, this.read(value), new SessionAttributesDeltaMutator(this.attributesCache, key, this.marshaller));
+                } catch (InvalidSerializedFormException e) {
+                    InfinispanWebLogger.ROOT_LOGGER.failedToActivateSession(e, id);
+                }
+            }
+            this.remove(id);
+        }
+        return null;
+    }
+
+    private Map<String, Object> read(MarshalledSessionAttributes value) throws InvalidSerializedFormException {
+        Map<String, Object> attributes = new HashMap<>();
+        for (Map.Entry<String, MarshalledValue<Object, MarshallingContext>> entry: value.getAttributes().entrySet()) {
+            attributes.put(entry.getKey(), this.marshaller.read(entry.getValue()));
+        }
+        return attributes;
+    }
+
+    @Override
+    public void remove(String id) {
+        this.sessionCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(id);
+        this.attributesCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(new SessionAttributesCacheKey(id));
+    }
+
+    @Override
+    public void evict(String id) {
+        try {
+            this.sessionCache.evict(id);
+            this.attributesCache.evict(new SessionAttributesCacheKey(id));
+        } catch (Throwable e) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToPassivateSession(e, id);
+        }
+    }
+}
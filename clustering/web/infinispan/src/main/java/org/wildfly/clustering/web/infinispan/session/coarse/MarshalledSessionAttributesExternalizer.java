@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.clustering.infinispan.spi.io.AbstractSimpleExternalizer;
+import org.wildfly.clustering.infinispan.spi.io.SimpleMarshalledValueExternalizer;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+import org.wildfly.clustering.marshalling.SimpleMarshalledValue;
+
+/**
+ * Externalizer for {@link MarshalledSessionAttributes}.
+ */
+public class MarshalledSessionAttributesExternalizer extends AbstractSimpleExternalizer<MarshalledSessionAttributes> {
+    private static final long serialVersionUID = 2405934471347587143L;
+
+    private static final SimpleMarshalledValueExternalizer EXTERNALIZER = new SimpleMarshalledValueExternalizer();
+
+    public MarshalledSessionAttributesExternalizer() {
+        super(MarshalledSessionAttributes.class);
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, MarshalledSessionAttributes attributes) throws IOException {
+        writeAttributes(output, attributes.getAttributes());
+    }
+
+    @Override
+    public MarshalledSessionAttributes readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        Map<String, MarshalledValue<Object, MarshallingContext>> attributes = new ConcurrentHashMap<>();
+        readAttributes(input, attributes);
+        return new MarshalledSessionAttributes(attributes);
+    }
+
+    static void writeAttributes(ObjectOutput output, Map<String, MarshalledValue<Object, MarshallingContext>> attributes) throws IOException {
+        output.writeInt(attributes.size());
+        for (Map.Entry<String, MarshalledValue<Object, MarshallingContext>> entry: attributes.entrySet()) {
+            output.writeUTF(entry.getKey());
+            MarshalledValue<Object, MarshallingContext> value = entry.getValue();
+            output.writeBoolean(value != null);
+            if (value != null) {
+                EXTERNALIZER.writeObject(output, (SimpleMarshalledValue<?>) value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static void readAttributes(ObjectInput input, Map<String, MarshalledValue<Object, MarshallingContext>> attributes) throws IOException, ClassNotFoundException {
+        int size = input.readInt();
+        for (int i = 0; i < size; ++i) {
+            String name = input.readUTF();
+            attributes.put(name, input.readBoolean() ? (MarshalledValue<Object, MarshallingContext>) EXTERNALIZER.readObject(input) : null);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.DeltaAware;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+
+/**
+ * The changes made to the attributes of a coarse granularity session, applied to the {@link MarshalledSessionAttributes} of each owner.
+ * A null value indicates a removed attribute.
+ */
+public class SessionAttributesDelta implements Delta {
+
+    private final Map<String, MarshalledValue<Object, MarshallingContext>> changes;
+    private final boolean complete;
+
+    /**
+     * @param changes the changed attributes, by name
+     * @param complete indicates whether the changes replace all attributes
+     */
+    public SessionAttributesDelta(Map<String, MarshalledValue<Object, MarshallingContext>> changes, boolean complete) {
+        this.changes = changes;
+        this.complete = complete;
+    }
+
+    public Map<String, MarshalledValue<Object, MarshallingContext>> getChanges() {
+        return this.changes;
+    }
+
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    @Override
+    public DeltaAware merge(DeltaAware value) {
+        // Never modify the existing value, as it might be in use by concurrent readers
+        Map<String, MarshalledValue<Object, MarshallingContext>> attributes = new ConcurrentHashMap<>();
+        if (!this.complete && (value instanceof MarshalledSessionAttributes)) {
+            attributes.putAll(((MarshalledSessionAttributes) value).getAttributes());
+        }
+        for (Map.Entry<String, MarshalledValue<Object, MarshallingContext>> entry: this.changes.entrySet()) {
+            MarshalledValue<Object, MarshallingContext> attribute = entry.getValue();
+            if (attribute != null) {
+                attributes.put(entry.getKey(), attribute);
+            } else {
+                attributes.remove(entry.getKey());
+            }
+        }
+        return new MarshalledSessionAttributes(attributes);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.wildfly.clustering.infinispan.spi.io.AbstractSimpleExternalizer;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+
+/**
+ * Externalizer for {@link SessionAttributesDelta}.
+ */
+public class SessionAttributesDeltaExternalizer extends AbstractSimpleExternalizer<SessionAttributesDelta> {
+    private static final long serialVersionUID = -4310850128549541722L;
+
+    public SessionAttributesDeltaExternalizer() {
+        super(SessionAttributesDelta.class);
+    }
+
+    @Override
+    public void writeObject(ObjectOutput output, SessionAttributesDelta delta) throws IOException {
+        output.writeBoolean(delta.isComplete());
+        MarshalledSessionAttributesExternalizer.writeAttributes(output, delta.getChanges());
+    }
+
+    @Override
+    public SessionAttributesDelta readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        boolean complete = input.readBoolean();
+        // Removed attributes are represented by a null value
+        Map<String, MarshalledValue<Object, MarshallingContext>> changes = new HashMap<>();
+        MarshalledSessionAttributesExternalizer.readAttributes(input, changes);
+        return new SessionAttributesDelta(changes, complete);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.Collections;
+
+import org.infinispan.Cache;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.Marshaller;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+
+/**
+ * Replicates changes to individual attributes of a coarse granularity session as a {@link SessionAttributesDelta}.
+ */
+public class SessionAttributesDeltaMutator {
+
+    private final Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> cache;
+    private final SessionAttributesCacheKey key;
+    private final Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller;
+    private final MarshalledSessionAttributes value;
+
+    /**
+     * Creates a mutator for the attributes of a new session, which are not yet replicated, and thus are modified directly.
+     */
+    public SessionAttributesDeltaMutator(MarshalledSessionAttributes value, Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller) {
+        this.cache = null;
+        this.key = null;
+        this.marshaller = marshaller;
+        this.value = value;
+    }
+
+    /**
+     * Creates a mutator for the attributes of an existing session.
+     */
+    public SessionAttributesDeltaMutator(Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> cache, SessionAttributesCacheKey key, Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller) {
+        this.cache = cache;
+        this.key = key;
+        this.marshaller = marshaller;
+        this.value = null;
+    }
+
+    /**
+     * Indicates that the specified attribute has changed and needs to be replicated.
+     * @param name an attribute name
+     * @param attribute the attribute value, or null, if the attribute was removed
+     */
+    public synchronized void mutate(String name, Object attribute) {
+        MarshalledValue<Object, MarshallingContext> value = this.marshaller.write(attribute);
+        if (this.value != null) {
+            if (value != null) {
+                this.value.getAttributes().put(name, value);
+            } else {
+                this.value.getAttributes().remove(name);
+            }
+        } else {
+            // Each delta holds a single change and is never modified once applied, since a transactional cache
+            // only replicates it on commit; successive deltas are combined by merging each into the result of the last
+            this.cache.getAdvancedCache().applyDelta(this.key, new SessionAttributesDelta(Collections.singletonMap(name, value), false), this.key);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
+import org.wildfly.clustering.web.infinispan.session.SessionMetaDataMutator;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
@@ -75,7 +76,7 @@ public class FineSessionFactory<L> implements SessionFactory<MutableCacheEntry<F
         FineSessionCacheEntry<L> sessionEntry = entry.getValue();
         SessionMetaData metaData = sessionEntry.getMetaData();
         SessionAttributes attributes = new FineSessionAttributes<>(id, this.attributeCache, this.marshaller);
-        return new InfinispanSession<>(id, metaData, attributes, sessionEntry.getLocalContext(), this.localContextFactory, this.context, entry.getMutator(), this);
+        return new InfinispanSession<>(id, metaData, attributes, sessionEntry.getLocalContext(), this.localContextFactory, this.context, SessionMetaDataMutator.create(this.sessionCache, id, metaData, entry.getMutator()), this);
     }
 
     @Override
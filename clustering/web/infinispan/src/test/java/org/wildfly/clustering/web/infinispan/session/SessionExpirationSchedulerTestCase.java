@@ -21,8 +21,10 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -91,4 +93,39 @@ public class SessionExpirationSchedulerTestCase {
         verify(batch).close();
     }
 
+    @Test
+    public void batch() throws InterruptedException {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        TransactionBatch batch = mock(TransactionBatch.class);
+        Remover<String> remover = mock(Remover.class);
+        SessionMetaData metaData = mock(SessionMetaData.class);
+        int count = 10;
+
+        when(batcher.createBatch()).thenReturn(batch);
+        when(metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS)).thenReturn(1L);
+        when(metaData.getLastAccessedTime()).thenReturn(new Date());
+
+        try (SessionExpirationScheduler scheduler = new SessionExpirationScheduler(batcher, remover, 1, 1000)) {
+            for (int i = 0; i < count; ++i) {
+                ImmutableSession session = mock(ImmutableSession.class);
+                when(session.getId()).thenReturn(String.valueOf(i));
+                when(session.getMetaData()).thenReturn(metaData);
+                scheduler.schedule(session);
+            }
+            assertEquals(count, scheduler.getScheduledCount());
+            assertEquals(1, scheduler.getBucketCount());
+
+            Thread.sleep(1500);
+
+            assertEquals(0, scheduler.getScheduledCount());
+            assertEquals(count, scheduler.getExpiredCount());
+        }
+
+        for (int i = 0; i < count; ++i) {
+            verify(remover).remove(String.valueOf(i));
+        }
+        // All sessions expiring within the same window are removed within a single batch
+        verify(batcher, times(1)).createBatch();
+        verify(batch).close();
+    }
 }
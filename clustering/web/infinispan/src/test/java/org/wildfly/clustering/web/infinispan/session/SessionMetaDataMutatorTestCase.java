@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.infinispan.Mutator;
+
+public class SessionMetaDataMutatorTestCase {
+
+    @Test
+    public void mutate() {
+        Mutator mutator = mock(Mutator.class);
+        long now = System.currentTimeMillis();
+        SimpleSessionMetaData metaData = new SimpleSessionMetaData(new Date(now), new Date(now), new Time(100, TimeUnit.SECONDS));
+
+        // Moves expiration by less than 10% of the max inactive interval
+        metaData.setLastAccessedTime(new Date(now + 5000));
+        new SessionMetaDataMutator(mutator, metaData, 0.1F).mutate();
+        verify(mutator, never()).mutate();
+
+        // Moves expiration by more than 10% of the max inactive interval, since the last replication
+        metaData.setLastAccessedTime(new Date(now + 10001));
+        new SessionMetaDataMutator(mutator, metaData, 0.1F).mutate();
+        verify(mutator).mutate();
+        reset(mutator);
+
+        metaData.setLastAccessedTime(new Date(now + 15000));
+        new SessionMetaDataMutator(mutator, metaData, 0.1F).mutate();
+        verify(mutator, never()).mutate();
+
+        // Changes to the max inactive interval always replicate
+        SessionMetaDataMutator sessionMutator = new SessionMetaDataMutator(mutator, metaData, 0.1F);
+        metaData.setMaxInactiveInterval(200, TimeUnit.SECONDS);
+        sessionMutator.mutate();
+        verify(mutator).mutate();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.atomic.Delta;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.marshalling.MarshalledValue;
+import org.wildfly.clustering.marshalling.Marshaller;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+
+public class DeltaSessionAttributesTestCase {
+
+    @SuppressWarnings("unchecked")
+    private final Marshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller = mock(Marshaller.class);
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void newSession() {
+        MarshalledValue<Object, MarshallingContext> value = mock(MarshalledValue.class);
+        MarshalledSessionAttributes marshalledAttributes = new MarshalledSessionAttributes();
+        when(this.marshaller.write("value")).thenReturn(value);
+
+        DeltaSessionAttributes attributes = new DeltaSessionAttributes(new HashMap<String, Object>(), new SessionAttributesDeltaMutator(marshalledAttributes, this.marshaller));
+
+        assertNull(attributes.setAttribute("name", "value"));
+        assertSame(value, marshalledAttributes.getAttributes().get("name"));
+
+        assertEquals("value", attributes.removeAttribute("name"));
+        assertTrue(marshalledAttributes.getAttributes().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void existingSession() {
+        Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> cache = mock(Cache.class);
+        AdvancedCache<SessionAttributesCacheKey, MarshalledSessionAttributes> advancedCache = mock(AdvancedCache.class);
+        SessionAttributesCacheKey key = new SessionAttributesCacheKey("session");
+        MarshalledValue<Object, MarshallingContext> value = mock(MarshalledValue.class);
+
+        when(cache.getAdvancedCache()).thenReturn(advancedCache);
+        when(this.marshaller.write("value")).thenReturn(value);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("immutable", "immutable");
+        map.put("mutable", new Object());
+        DeltaSessionAttributes attributes = new DeltaSessionAttributes(map, new SessionAttributesDeltaMutator(cache, key, this.marshaller));
+
+        attributes.getAttribute("immutable");
+        verify(advancedCache, never()).applyDelta(any(SessionAttributesCacheKey.class), any(Delta.class), anyVararg());
+
+        attributes.setAttribute("name", "value");
+        attributes.getAttribute("mutable");
+        attributes.removeAttribute("immutable");
+
+        // Each change replicates only the changed attribute
+        ArgumentCaptor<Delta> captor = ArgumentCaptor.forClass(Delta.class);
+        verify(advancedCache, times(3)).applyDelta(same(key), captor.capture(), same(key));
+        List<Delta> deltas = captor.getAllValues();
+        assertEquals(Collections.singletonMap("name", value), ((SessionAttributesDelta) deltas.get(0)).getChanges());
+        assertEquals(Collections.singleton("mutable"), ((SessionAttributesDelta) deltas.get(1)).getChanges().keySet());
+        assertEquals(Collections.singletonMap("immutable", null), ((SessionAttributesDelta) deltas.get(2)).getChanges());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void successiveChanges() {
+        Cache<SessionAttributesCacheKey, MarshalledSessionAttributes> cache = mock(Cache.class);
+        AdvancedCache<SessionAttributesCacheKey, MarshalledSessionAttributes> advancedCache = mock(AdvancedCache.class);
+        SessionAttributesCacheKey key = new SessionAttributesCacheKey("session");
+        MarshalledValue<Object, MarshallingContext> value1 = mock(MarshalledValue.class);
+        MarshalledValue<Object, MarshallingContext> value2 = mock(MarshalledValue.class);
+        MarshalledValue<Object, MarshallingContext> value3 = mock(MarshalledValue.class);
+
+        when(cache.getAdvancedCache()).thenReturn(advancedCache);
+        when(this.marshaller.write("value1")).thenReturn(value1);
+        when(this.marshaller.write("value2")).thenReturn(value2);
+        when(this.marshaller.write("value3")).thenReturn(value3);
+
+        MarshalledSessionAttributes existing = new MarshalledSessionAttributes();
+        existing.getAttributes().put("a", value1);
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "value1");
+        DeltaSessionAttributes attributes = new DeltaSessionAttributes(map, new SessionAttributesDeltaMutator(cache, key, this.marshaller));
+
+        attributes.setAttribute("b", "value2");
+        ArgumentCaptor<Delta> captor = ArgumentCaptor.forClass(Delta.class);
+        verify(advancedCache).applyDelta(same(key), captor.capture(), same(key));
+        Delta first = captor.getValue();
+
+        attributes.setAttribute("c", "value3");
+        attributes.removeAttribute("a");
+        attributes.setAttribute("b", "value1");
+
+        // A transactional cache replicates the applied deltas only on commit, so a delta must not change once applied
+        assertEquals(Collections.singletonMap("b", value2), ((SessionAttributesDelta) first).getChanges());
+
+        captor = ArgumentCaptor.forClass(Delta.class);
+        verify(advancedCache, times(4)).applyDelta(same(key), captor.capture(), same(key));
+        List<Delta> deltas = captor.getAllValues();
+        assertSame(first, deltas.get(0));
+
+        // Merging each delta into the result of the previous one yields all changes
+        MarshalledSessionAttributes result = existing;
+        for (Delta delta : deltas) {
+            result = (MarshalledSessionAttributes) delta.merge(result);
+        }
+        Map<String, MarshalledValue<Object, MarshallingContext>> expected = new HashMap<>();
+        expected.put("b", value1);
+        expected.put("c", value3);
+        assertEquals(expected, result.getAttributes());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void merge() {
+        MarshalledValue<Object, MarshallingContext> value1 = mock(MarshalledValue.class);
+        MarshalledValue<Object, MarshallingContext> value2 = mock(MarshalledValue.class);
+        MarshalledValue<Object, MarshallingContext> value3 = mock(MarshalledValue.class);
+        MarshalledSessionAttributes existing = new MarshalledSessionAttributes();
+        existing.getAttributes().put("a", value1);
+        existing.getAttributes().put("b", value2);
+
+        Map<String, MarshalledValue<Object, MarshallingContext>> changes = new HashMap<>();
+        changes.put("a", null);
+        changes.put("c", value3);
+
+        MarshalledSessionAttributes merged = (MarshalledSessionAttributes) new SessionAttributesDelta(changes, false).merge(existing);
+        assertEquals(2, merged.getAttributes().size());
+        assertSame(value2, merged.getAttributes().get("b"));
+        assertSame(value3, merged.getAttributes().get("c"));
+        // The existing value remains untouched
+        assertEquals(2, existing.getAttributes().size());
+        assertSame(value1, existing.getAttributes().get("a"));
+
+        // Applied to a missing value
+        merged = (MarshalledSessionAttributes) new SessionAttributesDelta(changes, false).merge(null);
+        assertEquals(Collections.singletonMap("c", value3), merged.getAttributes());
+
+        // A complete delta replaces all attributes
+        merged = (MarshalledSessionAttributes) existing.delta().merge(new MarshalledSessionAttributes());
+        assertEquals(existing.getAttributes(), merged.getAttributes());
+    }
+}
@@ -1,7 +1,6 @@
 package org.jboss.as.ee.component;
 
 import org.jboss.as.ee.logging.EeLogger;
-import org.jboss.invocation.InterceptorContext;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -38,14 +37,26 @@ public class ComponentClientInstance implements Serializable {
         contextInformation.put(key, data);
     }
 
-    void prepareInterceptorContext(InterceptorContext interceptorContext){
+    /**
+     * Copies the view instance data into an array of alternating keys and values, so that it can be put into
+     * interceptor contexts without iterating over the map.
+     */
+    Object[] copyInterceptorContextData() {
+        final Object[] data = new Object[contextInformation.size() << 1];
+        int i = 0;
         for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
-            interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+            data[i++] = entry.getKey();
+            data[i++] = entry.getValue();
         }
+        return data;
     }
 
     void constructionComplete() {
         constructionComplete = true;
     }
 
+    boolean isConstructionComplete() {
+        return constructionComplete;
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The public context data of an invocation, which only allocates its backing map once an entry is put into it.
+ * Most invocations never write to their context data, so this saves the allocation of a map per invocation.
+ */
+final class LazyContextData extends AbstractMap<String, Object> {
+
+    private Map<String, Object> data;
+
+    @Override
+    public Object get(final Object key) {
+        return (this.data != null) ? this.data.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return (this.data != null) && this.data.containsKey(key);
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        if (this.data == null) {
+            this.data = new HashMap<String, Object>();
+        }
+        return this.data.put(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        return (this.data != null) ? this.data.remove(key) : null;
+    }
+
+    @Override
+    public int size() {
+        return (this.data != null) ? this.data.size() : 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (this.data == null) || this.data.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        if (this.data != null) {
+            this.data.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // a view over this map, rather than over the backing map, which may not exist yet
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                final Map<String, Object> data = LazyContextData.this.data;
+                return (data != null) ? data.entrySet().iterator() : Collections.<Entry<String, Object>>emptyIterator();
+            }
+
+            @Override
+            public int size() {
+                return LazyContextData.this.size();
+            }
+        };
+    }
+}
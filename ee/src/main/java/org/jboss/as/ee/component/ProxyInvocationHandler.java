@@ -24,7 +24,6 @@ package org.jboss.as.ee.component;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.jboss.invocation.Interceptor;
@@ -40,6 +39,11 @@ public final class ProxyInvocationHandler implements InvocationHandler {
     private final Map<Method, Interceptor> interceptors;
     private final ComponentView componentView;
     private final ComponentClientInstance instance;
+    /**
+     * The private data put into the context of every invocation, as alternating keys and values.
+     * Built on the first invocation after the construction of the view instance completed.
+     */
+    private volatile Object[] privateData;
 
     /**
      * Construct a new instance.
@@ -63,13 +67,33 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         final InterceptorContext context = new InterceptorContext();
         // special location for original proxy
         context.putPrivateData(Object.class, proxy);
-        context.putPrivateData(Component.class, componentView.getComponent());
-        context.putPrivateData(ComponentView.class, componentView);
-        instance.prepareInterceptorContext(context);
+        final Object[] privateData = this.getPrivateData();
+        for (int i = 0; i < privateData.length; i += 2) {
+            context.putPrivateData(privateData[i], privateData[i + 1]);
+        }
         context.setParameters(args);
         context.setMethod(method);
-        // setup the public context data
-        context.setContextData(new HashMap<String, Object>());
+        // setup the public context data, which most invocations never write to
+        context.setContextData(new LazyContextData());
         return interceptor.processInvocation(context);
     }
+
+    private Object[] getPrivateData() {
+        Object[] privateData = this.privateData;
+        if (privateData == null) {
+            // the view instance data may still change until construction completes
+            final boolean complete = this.instance.isConstructionComplete();
+            final Object[] instanceData = this.instance.copyInterceptorContextData();
+            privateData = new Object[instanceData.length + 4];
+            privateData[0] = Component.class;
+            privateData[1] = this.componentView.getComponent();
+            privateData[2] = ComponentView.class;
+            privateData[3] = this.componentView;
+            System.arraycopy(instanceData, 0, privateData, 4, instanceData.length);
+            if (complete) {
+                this.privateData = privateData;
+            }
+        }
+        return privateData;
+    }
 }
@@ -25,6 +25,7 @@ package org.jboss.as.ee.logging;
 import static org.jboss.logging.Logger.Level.ERROR;
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -1087,4 +1088,12 @@ public interface EeLogger extends BasicLogger {
 
     @Message(id = 111, value = "Cannot run scheduled task %s as container is suspended")
     IllegalStateException cannotRunScheduledTask(Object delegate);
+
+    @LogMessage(level = WARN)
+    @Message(id = 112, value = "Failed to read the cached annotation index %s")
+    void failedToReadCachedAnnotationIndex(@Cause Throwable cause, File file);
+
+    @LogMessage(level = WARN)
+    @Message(id = 113, value = "Failed to write the annotation index of %s to the cache")
+    void failedToWriteCachedAnnotationIndex(@Cause Throwable cause, VirtualFile root);
 }
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import static org.jboss.as.ee.logging.EeLogger.ROOT_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.as.server.ServerEnvironment;
+import org.jboss.as.server.deployment.AttachmentKey;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.vfs.VirtualFile;
+import org.jboss.vfs.util.SuffixMatchFilter;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * An on-disk cache of the annotation indexes of resource roots, so that unchanged archives need not be indexed again
+ * when they are redeployed or when the server restarts.
+ * <p/>
+ * A cached index is keyed by a fingerprint of the resource root, a SHA-1 digest of the path, size and modification
+ * time of each of its class files, and of the paths excluded from indexing. Computing the fingerprint only needs the
+ * entries of an archive, not their content. The cache directory can be deleted at any time.
+ * <p/>
+ * Cache files whose resource root changed are never read again. Loading a cached index updates the modification time of
+ * its file, so that, once the cache holds more than its maximum number of indexes, the least recently used ones are
+ * {@link #prune() pruned}.
+ * <p/>
+ * The cache is disabled by default, and enabled with the {@value #ENABLED_PROPERTY} system property.
+ */
+public class AnnotationIndexCache {
+
+    public static final String ENABLED_PROPERTY = "org.jboss.as.ee.annotation-index-cache";
+
+    private static final String DIRECTORY_NAME = "annotation-index";
+    private static final String FILE_SUFFIX = ".idx";
+    private static final SuffixMatchFilter CLASS_FILTER = new SuffixMatchFilter(".class");
+    private static final FileFilter INDEX_FILTER = new FileFilter() {
+        @Override
+        public boolean accept(final File file) {
+            return file.getName().endsWith(FILE_SUFFIX) && file.isFile();
+        }
+    };
+    private static final Comparator<Map.Entry<Long, File>> LEAST_RECENTLY_USED = new Comparator<Map.Entry<Long, File>>() {
+        @Override
+        public int compare(final Map.Entry<Long, File> entry1, final Map.Entry<Long, File> entry2) {
+            return entry1.getKey().compareTo(entry2.getKey());
+        }
+    };
+
+    /** The default maximum number of cached indexes */
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /** The fingerprint of a resource root whose index was not cached */
+    static final AttachmentKey<String> FINGERPRINT = AttachmentKey.create(String.class);
+    /** The time at which indexing of a deployment started, and the number of indexes loaded from the cache */
+    static final AttachmentKey<long[]> INDEXING_STATISTICS = AttachmentKey.create(long[].class);
+
+    private final File directory;
+    private final int maxEntries;
+
+    public AnnotationIndexCache(final File directory) {
+        this(directory, DEFAULT_MAX_ENTRIES);
+    }
+
+    AnnotationIndexCache(final File directory, final int maxEntries) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Creates the cache of the server, if it is enabled.
+     *
+     * @return the cache, or null if it is disabled or the server has no data directory
+     */
+    public static AnnotationIndexCache create() {
+        if (!Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(ENABLED_PROPERTY, Boolean.FALSE.toString()))) {
+            return null;
+        }
+        final String dataDir = WildFlySecurityManager.getPropertyPrivileged(ServerEnvironment.SERVER_DATA_DIR, null);
+        return (dataDir != null) ? new AnnotationIndexCache(new File(dataDir, DIRECTORY_NAME)) : null;
+    }
+
+    /**
+     * Computes the fingerprint of a resource root, under which its index is cached.
+     */
+    public String fingerprint(final ResourceRoot resourceRoot) throws IOException {
+        final VirtualFile root = resourceRoot.getRoot();
+        // sort by path, as the order of the entries of an exploded directory is unspecified
+        final Map<String, VirtualFile> classes = new TreeMap<String, VirtualFile>();
+        for (VirtualFile file : root.getChildrenRecursively(CLASS_FILTER)) {
+            classes.put(file.getPathNameRelativeTo(root), file);
+        }
+        final MessageDigest digest = createDigest();
+        final byte[] buffer = new byte[Long.SIZE / Byte.SIZE];
+        for (Map.Entry<String, VirtualFile> entry : classes.entrySet()) {
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update(toBytes(buffer, entry.getValue().getSize()));
+            digest.update(toBytes(buffer, entry.getValue().getLastModified()));
+        }
+        final List<String> ignoredPaths = resourceRoot.getAttachmentList(Attachments.INDEX_IGNORE_PATHS);
+        for (String path : ignoredPaths) {
+            digest.update((byte) 0);
+            digest.update(path.getBytes(StandardCharsets.UTF_8));
+        }
+        final StringBuilder fingerprint = new StringBuilder(40);
+        for (byte b : digest.digest()) {
+            fingerprint.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Reads a cached index.
+     *
+     * @return the index, or null if there is no valid index cached under this fingerprint
+     */
+    public Index load(final String fingerprint) {
+        final File file = new File(this.directory, fingerprint + FILE_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            final Index index = new IndexReader(input).read();
+            // mark the index as recently used
+            file.setLastModified(System.currentTimeMillis());
+            return index;
+        } catch (IOException | RuntimeException e) {
+            ROOT_LOGGER.failedToReadCachedAnnotationIndex(e, file);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Caches the index of a resource root. The index is written to a temporary file first, so that a concurrent or
+     * interrupted write never leaves a partial index behind.
+     */
+    public void store(final String fingerprint, final Index index, final ResourceRoot resourceRoot) {
+        try {
+            Files.createDirectories(this.directory.toPath());
+            final File temp = File.createTempFile(fingerprint, null, this.directory);
+            try {
+                try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+                    new IndexWriter(output).write(index);
+                }
+                Files.move(temp.toPath(), new File(this.directory, fingerprint + FILE_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                temp.delete();
+            }
+        } catch (IOException | RuntimeException e) {
+            ROOT_LOGGER.failedToWriteCachedAnnotationIndex(e, resourceRoot.getRoot());
+        }
+    }
+
+    /**
+     * Deletes the least recently used cached indexes, if the cache holds more than its maximum number of indexes.
+     */
+    public void prune() {
+        final File[] files = this.directory.listFiles(INDEX_FILTER);
+        if ((files == null) || (files.length <= this.maxEntries)) {
+            return;
+        }
+        // read the modification times once, as a concurrent load may update them while sorting
+        final List<Map.Entry<Long, File>> entries = new ArrayList<Map.Entry<Long, File>>(files.length);
+        for (File file : files) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<Long, File>(file.lastModified(), file));
+        }
+        Collections.sort(entries, LEAST_RECENTLY_USED);
+        for (Map.Entry<Long, File> entry : entries.subList(0, files.length - this.maxEntries)) {
+            entry.getValue().delete();
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] toBytes(final byte[] buffer, final long value) {
+        for (int i = 0; i < buffer.length; ++i) {
+            buffer[i] = (byte) (value >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+        return buffer;
+    }
+}
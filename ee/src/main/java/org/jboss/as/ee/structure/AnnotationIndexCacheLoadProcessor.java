@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import static org.jboss.as.ee.logging.EeLogger.ROOT_LOGGER;
+
+import java.io.IOException;
+
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.DeploymentUtils;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+
+/**
+ * Processor that attaches the cached annotation index of every unchanged resource root of a deployment, right before
+ * the annotation index processor runs, which then skips these resource roots.
+ *
+ * @see AnnotationIndexCacheStoreProcessor
+ */
+public class AnnotationIndexCacheLoadProcessor implements DeploymentUnitProcessor {
+
+    private static final String INDEX_LOCATION = "META-INF/jandex.idx";
+
+    private final AnnotationIndexCache cache;
+
+    public AnnotationIndexCacheLoadProcessor(final AnnotationIndexCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void deploy(final DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final long start = System.nanoTime();
+        long loaded = 0;
+        for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
+            if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+                continue;
+            }
+            final Boolean shouldIndex = resourceRoot.getAttachment(Attachments.INDEX_RESOURCE_ROOT);
+            if (shouldIndex != null && !shouldIndex) {
+                continue;
+            }
+            // archives shipping their own index are cheap to index anyway
+            if (resourceRoot.getRoot().getChild(INDEX_LOCATION).exists()) {
+                continue;
+            }
+            try {
+                final String fingerprint = this.cache.fingerprint(resourceRoot);
+                final Index index = this.cache.load(fingerprint);
+                if (index != null) {
+                    resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+                    loaded++;
+                } else {
+                    resourceRoot.putAttachment(AnnotationIndexCache.FINGERPRINT, fingerprint);
+                }
+            } catch (IOException e) {
+                ROOT_LOGGER.debugf(e, "Could not compute the fingerprint of %s", resourceRoot.getRoot());
+            }
+        }
+        deploymentUnit.putAttachment(AnnotationIndexCache.INDEXING_STATISTICS, new long[] { start, loaded });
+    }
+
+    @Override
+    public void undeploy(final DeploymentUnit context) {
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import static org.jboss.as.ee.logging.EeLogger.ROOT_LOGGER;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.DeploymentUtils;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+
+/**
+ * Processor that caches the annotation indexes built by the annotation index processor for the resource roots of a
+ * deployment which had no cached index yet, and logs how long indexing the deployment took.
+ *
+ * @see AnnotationIndexCacheLoadProcessor
+ */
+public class AnnotationIndexCacheStoreProcessor implements DeploymentUnitProcessor {
+
+    private final AnnotationIndexCache cache;
+
+    public AnnotationIndexCacheStoreProcessor(final AnnotationIndexCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void deploy(final DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final long[] statistics = deploymentUnit.removeAttachment(AnnotationIndexCache.INDEXING_STATISTICS);
+        final long indexed = System.nanoTime();
+        int stored = 0;
+        for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
+            final String fingerprint = resourceRoot.removeAttachment(AnnotationIndexCache.FINGERPRINT);
+            if (fingerprint == null) {
+                continue;
+            }
+            final Index index = resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX);
+            if (index != null) {
+                this.cache.store(fingerprint, index, resourceRoot);
+                stored++;
+            }
+        }
+        if (stored > 0) {
+            this.cache.prune();
+        }
+        if (statistics != null && ROOT_LOGGER.isDebugEnabled()) {
+            ROOT_LOGGER.debugf("Indexed annotations of %s in %d ms, %d indexes loaded from cache, %d indexes built and cached in %d ms",
+                    deploymentUnit.getName(), TimeUnit.NANOSECONDS.toMillis(indexed - statistics[0]), statistics[1], stored,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexed));
+        }
+    }
+
+    @Override
+    public void undeploy(final DeploymentUnit context) {
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative durations with a fixed number of log-linear buckets.
+ * <p/>
+ * Durations below 16 have a bucket each. Every higher power of two range is split into 8 buckets, so the value
+ * reported for a percentile is at most 12.5% above the actual one. Recording is a single atomic increment, and
+ * never allocates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values below this limit have a bucket of their own */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - 1 - LINEAR_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long value) {
+        this.counts.incrementAndGet(bucket(value));
+    }
+
+    /**
+     * Returns the value below which the passed fraction of the recorded values falls.
+     *
+     * @param quantile a fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the upper bound of the bucket holding that percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(double quantile) {
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            snapshot[i] = this.counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            count += snapshot[i];
+            if (count >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (value < 0) ? 0 : (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        final int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_EXPONENT;
+        final int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
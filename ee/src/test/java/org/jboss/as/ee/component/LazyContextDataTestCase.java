@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LazyContextData}
+ */
+public class LazyContextDataTestCase {
+
+    @Test
+    public void empty() {
+        LazyContextData data = new LazyContextData();
+
+        assertTrue(data.isEmpty());
+        assertEquals(0, data.size());
+        assertNull(data.get("key"));
+        assertFalse(data.containsKey("key"));
+        assertFalse(data.containsValue("value"));
+        assertNull(data.remove("key"));
+        assertTrue(data.entrySet().isEmpty());
+        assertFalse(data.entrySet().iterator().hasNext());
+        assertTrue(data.keySet().isEmpty());
+        data.clear();
+        assertTrue(data.isEmpty());
+
+        assertEquals(new HashMap<String, Object>(), data);
+        assertEquals(data, new HashMap<String, Object>());
+        assertEquals(new HashMap<String, Object>().hashCode(), data.hashCode());
+    }
+
+    @Test
+    public void allocated() {
+        LazyContextData data = new LazyContextData();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        // Views obtained before the backing map exists must reflect later changes
+        Set<Map.Entry<String, Object>> entries = data.entrySet();
+
+        assertNull(data.put("key", "value"));
+        expected.put("key", "value");
+
+        assertFalse(data.isEmpty());
+        assertEquals(1, data.size());
+        assertEquals("value", data.get("key"));
+        assertTrue(data.containsKey("key"));
+        assertTrue(data.containsValue("value"));
+        assertFalse(data.containsKey("other"));
+        assertEquals(1, entries.size());
+        assertEquals(expected.entrySet(), entries);
+        assertEquals(expected, data);
+        assertEquals(data, expected);
+        assertEquals(expected.hashCode(), data.hashCode());
+
+        assertEquals("value", data.put("key", "other"));
+        assertNull(data.put("null", null));
+        expected.put("key", "other");
+        expected.put("null", null);
+        assertTrue(data.containsKey("null"));
+        assertEquals(expected, data);
+        assertEquals(expected.hashCode(), data.hashCode());
+
+        assertEquals("other", data.remove("key"));
+        expected.remove("key");
+        assertNull(data.remove("key"));
+        assertEquals(expected, data);
+
+        // Removal via the entry set view
+        Iterator<Map.Entry<String, Object>> iterator = entries.iterator();
+        assertTrue(iterator.hasNext());
+        assertEquals("null", iterator.next().getKey());
+        iterator.remove();
+        assertTrue(data.isEmpty());
+        assertEquals(new HashMap<String, Object>(), data);
+
+        data.put("key", "value");
+        data.clear();
+        assertTrue(data.isEmpty());
+        assertTrue(entries.isEmpty());
+        assertNull(data.get("key"));
+    }
+}
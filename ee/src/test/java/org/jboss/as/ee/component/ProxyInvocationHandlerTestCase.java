@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ProxyInvocationHandler}
+ */
+public class ProxyInvocationHandlerTestCase {
+
+    private final Component component = (Component) Proxy.newProxyInstance(Component.class.getClassLoader(), new Class<?>[] { Component.class }, new TestInvocationHandler(null));
+    private final TestInvocationHandler viewHandler = new TestInvocationHandler(this.component);
+    private final ComponentView view = (ComponentView) Proxy.newProxyInstance(ComponentView.class.getClassLoader(), new Class<?>[] { ComponentView.class }, this.viewHandler);
+    private final ComponentClientInstance instance = new ComponentClientInstance();
+    private final Object proxy = new Object();
+    private final Method method = Runnable.class.getMethods()[0];
+    private final Interceptor interceptor = new Interceptor() {
+        @Override
+        public Object processInvocation(InterceptorContext context) {
+            ProxyInvocationHandlerTestCase.this.context = context;
+            return "result";
+        }
+    };
+    private InterceptorContext context;
+    private ProxyInvocationHandler handler;
+
+    @Before
+    public void setUp() {
+        this.handler = new ProxyInvocationHandler(Collections.singletonMap(this.method, this.interceptor), this.instance, this.view);
+    }
+
+    @Test
+    public void invoke() throws Throwable {
+        this.instance.setViewInstanceData("key", "value");
+        this.instance.constructionComplete();
+        Object[] args = new Object[0];
+
+        assertEquals("result", this.handler.invoke(this.proxy, this.method, args));
+
+        assertSame(this.proxy, this.context.getPrivateData(Object.class));
+        assertSame(this.component, this.context.getPrivateData(Component.class));
+        assertSame(this.view, this.context.getPrivateData(ComponentView.class));
+        assertEquals("value", this.context.getPrivateData("key"));
+        assertSame(this.method, this.context.getMethod());
+        assertSame(args, this.context.getParameters());
+
+        Map<String, Object> contextData = this.context.getContextData();
+        assertTrue(contextData instanceof LazyContextData);
+        assertTrue(contextData.isEmpty());
+
+        // Every invocation gets its own context data
+        contextData.put("key", "value");
+        this.handler.invoke(this.proxy, this.method, args);
+        assertNotSame(contextData, this.context.getContextData());
+        assertTrue(this.context.getContextData().isEmpty());
+    }
+
+    @Test
+    public void privateDataDuringConstruction() throws Throwable {
+        this.instance.setViewInstanceData("key", "constructing");
+        this.handler.invoke(this.proxy, this.method, null);
+        assertEquals("constructing", this.context.getPrivateData("key"));
+
+        // Until construction completes, the private data is not cached, since the view instance data may still change
+        this.instance.setViewInstanceData("key", "constructed");
+        this.handler.invoke(this.proxy, this.method, null);
+        assertEquals("constructed", this.context.getPrivateData("key"));
+        assertEquals(2, this.viewHandler.components);
+
+        this.instance.constructionComplete();
+        this.handler.invoke(this.proxy, this.method, null);
+        assertEquals(3, this.viewHandler.components);
+
+        // Once construction completed, the private data is built only once
+        for (int i = 0; i < 3; ++i) {
+            this.handler.invoke(this.proxy, this.method, null);
+            assertSame(this.component, this.context.getPrivateData(Component.class));
+            assertEquals("constructed", this.context.getPrivateData("key"));
+        }
+        assertEquals(3, this.viewHandler.components);
+    }
+
+    @Test(expected = NoSuchMethodError.class)
+    public void unknownMethod() throws Throwable {
+        this.handler.invoke(this.proxy, Object.class.getMethod("toString"), null);
+    }
+
+    /**
+     * Handles the methods of {@link Object}, and counts the lookups of the component of a view.
+     */
+    static class TestInvocationHandler implements InvocationHandler {
+        private final Component component;
+        int components;
+
+        TestInvocationHandler(Component component) {
+            this.component = component;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getComponent":
+                    this.components += 1;
+                    return this.component;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return proxy.getClass().getName();
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.structure;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.vfs.VFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AnnotationIndexCache}
+ */
+public class AnnotationIndexCacheTestCase {
+
+    private File root;
+    private File directory;
+    private AnnotationIndexCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        this.root = createDirectory("deployment");
+        this.directory = createDirectory("cache");
+        this.cache = new AnnotationIndexCache(this.directory, 2);
+        write(new File(this.root, "org/test/A.class"), 10);
+        write(new File(this.root, "org/test/B.class"), 20);
+    }
+
+    @After
+    public void tearDown() {
+        delete(this.root);
+        delete(this.directory);
+    }
+
+    @Test
+    public void fingerprintStability() throws IOException {
+        String fingerprint = this.fingerprint();
+        assertEquals(40, fingerprint.length());
+        assertEquals(fingerprint, this.fingerprint());
+
+        // Only class files are fingerprinted
+        write(new File(this.root, "META-INF/MANIFEST.MF"), 10);
+        assertEquals(fingerprint, this.fingerprint());
+    }
+
+    @Test
+    public void fingerprintSensitivity() throws IOException {
+        File file = new File(this.root, "org/test/A.class");
+        long lastModified = file.lastModified();
+        String fingerprint = this.fingerprint();
+
+        // size
+        write(file, 11);
+        file.setLastModified(lastModified);
+        String resized = this.fingerprint();
+        assertFalse(fingerprint.equals(resized));
+
+        // modification time
+        file.setLastModified(lastModified - 10000);
+        String modified = this.fingerprint();
+        assertFalse(resized.equals(modified));
+
+        // path
+        File moved = new File(this.root, "org/test/C.class");
+        assertTrue(file.renameTo(moved));
+        assertFalse(modified.equals(this.fingerprint()));
+        assertTrue(moved.renameTo(file));
+        assertEquals(modified, this.fingerprint());
+
+        // ignored paths
+        ResourceRoot resourceRoot = new ResourceRoot(VFS.getChild(this.root.getAbsolutePath()), null);
+        resourceRoot.addToAttachmentList(Attachments.INDEX_IGNORE_PATHS, "org/test");
+        assertFalse(modified.equals(this.cache.fingerprint(resourceRoot)));
+    }
+
+    @Test
+    public void storeAndLoad() throws IOException {
+        String fingerprint = this.fingerprint();
+        assertNull(this.cache.load(fingerprint));
+
+        this.cache.store(fingerprint, index(), new ResourceRoot(VFS.getChild(this.root.getAbsolutePath()), null));
+
+        Index index = this.cache.load(fingerprint);
+        assertNotNull(index);
+        assertNotNull(index.getClassByName(DotName.createSimple(AnnotationIndexCacheTestCase.class.getName())));
+        // Only the index file remains in the cache directory
+        assertEquals(1, this.directory.list().length);
+    }
+
+    @Test
+    public void corruptIndex() throws IOException {
+        String fingerprint = this.fingerprint();
+        File file = new File(this.directory, fingerprint + ".idx");
+        write(file, 100);
+
+        assertNull(this.cache.load(fingerprint));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void prune() throws IOException {
+        ResourceRoot resourceRoot = new ResourceRoot(VFS.getChild(this.root.getAbsolutePath()), null);
+        Index index = index();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; ++i) {
+            this.cache.store("index" + i, index, resourceRoot);
+            new File(this.directory, "index" + i + ".idx").setLastModified(now - (3 - i) * 60000);
+        }
+        // Loading an index makes it the most recently used
+        assertNotNull(this.cache.load("index0"));
+
+        this.cache.prune();
+
+        assertNotNull(this.cache.load("index0"));
+        assertNull(this.cache.load("index1"));
+        assertNotNull(this.cache.load("index2"));
+
+        // Nothing to prune
+        this.cache.prune();
+        assertEquals(2, this.directory.list().length);
+    }
+
+    private String fingerprint() throws IOException {
+        return this.cache.fingerprint(new ResourceRoot(VFS.getChild(this.root.getAbsolutePath()), null));
+    }
+
+    private static Index index() throws IOException {
+        Indexer indexer = new Indexer();
+        try (InputStream input = AnnotationIndexCacheTestCase.class.getResourceAsStream(AnnotationIndexCacheTestCase.class.getSimpleName() + ".class")) {
+            indexer.index(input);
+        }
+        return indexer.complete();
+    }
+
+    private static File createDirectory(String prefix) throws IOException {
+        File directory = File.createTempFile(prefix, null);
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        return directory;
+    }
+
+    private static void write(File file, int size) throws IOException {
+        file.getParentFile().mkdirs();
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[size]);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTestCase {
+
+    @Test
+    public void buckets() {
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; ++i) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(Long.SIZE - 1);
+            int bucket = LatencyHistogram.bucket(value);
+            long upperBound = LatencyHistogram.upperBound(bucket);
+            assertTrue(value <= upperBound);
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+            // relative error of at most 12.5%
+            assertTrue(upperBound - value <= value / 8);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)));
+        assertEquals(0, LatencyHistogram.bucket(-1));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 0; i < 990; ++i) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 9; ++i) {
+            histogram.record(100);
+        }
+        histogram.record(10000);
+        assertEquals(5, histogram.getPercentile(0.5));
+        assertEquals(5, histogram.getPercentile(0.99));
+        long p999 = histogram.getPercentile(0.999);
+        assertTrue(p999 >= 100 && p999 <= 112);
+        long max = histogram.getPercentile(1);
+        assertTrue(max >= 10000 && max <= 11250);
+    }
+}
@@ -95,4 +95,9 @@ public interface Cache<K, V extends Identifiable<K>> extends AffinitySupport<K>,
     int getPassivatedCount();
 
     int getTotalSize();
+
+    /**
+     * @return the number of lookups that found the requested object, whether in memory or after activating it
+     */
+    long getHitCount();
 }
@@ -22,6 +22,7 @@
 package org.jboss.as.ejb3.cache.distributable;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.ejb3.cache.Cache;
 import org.jboss.as.ejb3.cache.Contextual;
@@ -51,6 +52,7 @@ public class DistributableCache<K, V extends Identifiable<K> & Contextual<Batch>
     private final BeanManager<UUID, K, V, Batch> manager;
     private final StatefulObjectFactory<V> factory;
     private final RemoveListener<V> listener;
+    private final AtomicLong hits = new AtomicLong();
 
     public DistributableCache(BeanManager<UUID, K, V, Batch> manager, StatefulObjectFactory<V> factory) {
         this.manager = manager;
@@ -119,6 +121,7 @@ public class DistributableCache<K, V extends Identifiable<K> & Contextual<Batch>
             }
             V result = bean.acquire();
             result.setCacheContext(batch);
+            this.hits.incrementAndGet();
             return result;
         } catch (RuntimeException | Error e) {
             batch.discard();
@@ -189,4 +192,9 @@ public class DistributableCache<K, V extends Identifiable<K> & Contextual<Batch>
     public int getTotalSize() {
         return this.manager.getActiveCount() + this.manager.getPassiveCount();
     }
+
+    @Override
+    public long getHitCount() {
+        return this.hits.get();
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.SimpleDataInput;
+import org.jboss.marshalling.SimpleDataOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Stores passivated beans of a {@link SimpleCache} in files of a local directory, one file per bean.
+ * <p/>
+ * The directory is private to a single cache, and is deleted when the cache stops, since passivated beans do not
+ * outlive the bean's deployment.
+ *
+ * @param <V> the bean type
+ */
+public class FileBeanStore<V> {
+
+    private final File parent;
+    private final String prefix;
+    private final MarshallingContext context;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile File directory;
+
+    public FileBeanStore(File parent, String prefix, MarshallingContext context) {
+        this.parent = parent;
+        this.prefix = prefix;
+        this.context = context;
+    }
+
+    public void start() {
+        if (!this.parent.isDirectory() && !this.parent.mkdirs() && !this.parent.isDirectory()) {
+            throw EjbLogger.ROOT_LOGGER.passivationDirectoryCreationFailed(this.parent.getPath());
+        }
+        try {
+            this.directory = Files.createTempDirectory(this.parent.toPath(), this.prefix).toFile();
+        } catch (IOException e) {
+            throw EjbLogger.ROOT_LOGGER.passivationDirectoryCreationFailed(this.parent.getPath());
+        }
+    }
+
+    public void stop() {
+        File directory = this.directory;
+        if (directory != null) {
+            this.directory = null;
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Writes the specified bean to a new file.
+     *
+     * @return the file holding the bean
+     */
+    public File write(V bean) throws IOException {
+        File file = new File(this.directory, Long.toString(this.sequence.incrementAndGet()));
+        int version = this.context.getCurrentVersion();
+        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+        try (SimpleDataOutput output = new SimpleDataOutput(Marshalling.createByteOutput(new BufferedOutputStream(new FileOutputStream(file))))) {
+            output.writeInt(version);
+            try (Marshaller marshaller = this.context.createMarshaller(version)) {
+                marshaller.start(output);
+                marshaller.writeObject(bean);
+                marshaller.finish();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            file.delete();
+            throw e;
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+        return file;
+    }
+
+    /**
+     * Reads the bean stored in the specified file.
+     */
+    public V read(File file) throws IOException, ClassNotFoundException {
+        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+        try (SimpleDataInput input = new SimpleDataInput(Marshalling.createByteInput(new BufferedInputStream(new FileInputStream(file))))) {
+            int version = input.readInt();
+            try (Unmarshaller unmarshaller = this.context.createUnmarshaller(version)) {
+                unmarshaller.start(input);
+                @SuppressWarnings("unchecked")
+                V bean = (V) unmarshaller.readObject();
+                unmarshaller.finish();
+                return bean;
+            }
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+    }
+
+    public void delete(File file) {
+        file.delete();
+    }
+
+    private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
+        return (loader != null) ? WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader) : null;
+    }
+}
@@ -21,6 +21,11 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -29,6 +34,9 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.cache.Cache;
@@ -39,9 +47,18 @@ import org.jboss.as.server.ServerEnvironment;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.NodeAffinity;
 import org.wildfly.clustering.ejb.IdentifierFactory;
+import org.wildfly.clustering.ejb.PassivationListener;
 
 /**
- * Simple {@link Cache} implementation using in-memory storage and eager expiration.
+ * Simple {@link Cache} implementation using in-memory storage and lazy expiration.
+ * <p/>
+ * Releasing a bean only records the time it was last used. A single task sweeps the cache periodically, and removes
+ * all beans that have been idle for longer than the stateful timeout in one pass. The sweep runs at a fraction of the
+ * timeout, so a bean is removed at most 1/8 of the timeout (and never more than a minute) after it expired.
+ * <p/>
+ * If the cache is bounded, the least recently used idle beans are passivated to a {@link FileBeanStore} whenever more
+ * than the maximum number of beans are held in memory, and activated again on their next lookup. Eviction works in
+ * batches down to slightly below the maximum size, so that its cost is spread over many lookups.
  *
  * @author Paul Ferraro
  *
@@ -50,33 +67,65 @@ import org.wildfly.clustering.ejb.IdentifierFactory;
  */
 public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
 
-    final Map<K, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+    private static final int MAX_SWEEP_FRACTION = 8;
+    private static final long MIN_SWEEP_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    /** Eviction passivates this fraction of the maximum size beyond what is needed to get back below it */
+    private static final int EVICTION_BATCH_SHIFT = 4;
+
     private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
     private final StatefulObjectFactory<V> factory;
     private final IdentifierFactory<K> identifierFactory;
     private final StatefulTimeoutInfo timeout;
     private final ServerEnvironment environment;
     private final ScheduledExecutorService executor;
+    private final PassivationListener<V> passivationListener;
+    private final int maxSize;
+    private final FileBeanStore<V> store;
+    private final Lock evictionLock = new ReentrantLock();
+    private final AtomicInteger passivated = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private volatile Future<?> sweepFuture;
 
     public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor) {
+        this(factory, identifierFactory, timeout, environment, executor, null, 0, null);
+    }
+
+    /**
+     * Creates a cache that holds at most the specified number of beans in memory.
+     *
+     * @param maxSize the maximum number of beans in memory, or 0 if the cache is unbounded
+     * @param store the store of passivated beans, required if the cache is bounded
+     */
+    public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor, PassivationListener<V> passivationListener, int maxSize, FileBeanStore<V> store) {
         this.factory = factory;
         this.identifierFactory = identifierFactory;
         this.timeout = timeout;
         this.environment = environment;
         this.executor = executor;
+        this.passivationListener = passivationListener;
+        this.maxSize = maxSize;
+        this.store = store;
     }
 
     @Override
     public void start() {
-        // Do nothing
+        if (this.store != null) {
+            this.store.start();
+        }
+        long timeout = this.getTimeout();
+        if (timeout > 0) {
+            long interval = Math.min(Math.max(timeout / MAX_SWEEP_FRACTION, MIN_SWEEP_INTERVAL), MAX_SWEEP_INTERVAL);
+            this.sweepFuture = this.executor.scheduleWithFixedDelay(new SweepTask(timeout), interval, interval, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
     public void stop() {
-        for (Future<?> future: this.expirationFutures.values()) {
+        Future<?> future = this.sweepFuture;
+        if (future != null) {
+            this.sweepFuture = null;
             future.cancel(true);
-        }
-        for (Future<?> future: this.expirationFutures.values()) {
             if (!future.isCancelled() && !future.isDone()) {
                 try {
                     future.get();
@@ -88,10 +137,30 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
             }
         }
         for(Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
-            this.factory.destroyInstance(entry.getValue().getValue());
+            Entry<V> value = entry.getValue();
+            synchronized (value) {
+                // Passivated beans are discarded along with the store
+                if (!value.isPassivated() && (value.getValue() != null)) {
+                    this.factory.destroyInstance(value.getValue());
+                }
+            }
         }
-        this.expirationFutures.clear();
         this.entries.clear();
+        this.passivated.set(0);
+        if (this.store != null) {
+            this.store.stop();
+        }
+    }
+
+    /**
+     * @return the stateful timeout in nanoseconds, 0 if beans are removed as soon as they are released, or -1 if beans never expire
+     */
+    private long getTimeout() {
+        if (this.timeout == null) {
+            return -1;
+        }
+        long value = this.timeout.getValue();
+        return (value > 0) ? this.timeout.getTimeUnit().toNanos(value) : value;
     }
 
     @Override
@@ -117,6 +186,7 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         }
         V bean = this.factory.createInstance();
         this.entries.put(bean.getId(), new Entry<>(bean));
+        this.evictIfNecessary();
         return bean;
     }
 
@@ -129,20 +199,44 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
     public void remove(K key) {
         Entry<V> entry = this.entries.remove(key);
         if (entry != null) {
-            this.factory.destroyInstance(entry.getValue());
+            V bean;
+            synchronized (entry) {
+                if (entry.isPassivated()) {
+                    this.store.delete(entry.expirePassivated());
+                    this.passivated.decrementAndGet();
+                    return;
+                }
+                bean = entry.getValue();
+            }
+            // A bean that failed to activate is already gone
+            if (bean != null) {
+                this.factory.destroyInstance(bean);
+            }
         }
     }
 
     @Override
     public V get(K key) {
-        Future<?> future = this.expirationFutures.get(key);
-        if (future != null) {
-            future.cancel(true);
-        }
         Entry<V> entry = this.entries.get(key);
         if (entry == null) return null;
-        entry.use();
-        return entry.getValue();
+        if (entry.use()) {
+            this.hits.incrementAndGet();
+            return entry.getValue();
+        }
+        // The bean is passivated, being passivated, or expired
+        V bean;
+        synchronized (entry) {
+            if (entry.isPassivated()) {
+                bean = this.activate(key, entry);
+            } else {
+                bean = entry.use() ? entry.getValue() : null;
+            }
+        }
+        if (bean != null) {
+            this.hits.incrementAndGet();
+            this.evictIfNecessary();
+        }
+        return bean;
     }
 
     @Override
@@ -155,71 +249,312 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         K id = bean.getId();
         Entry<V> entry = this.entries.get(id);
         if ((entry != null) && entry.done()) {
-            if (this.timeout != null) {
-                long value = this.timeout.getValue();
-                if (value > 0) {
-                    TimeUnit unit = this.timeout.getTimeUnit();
-                    RemoveTask task = new RemoveTask(id);
-                    // Make sure the expiration future map insertion happens before map removal (during task execution).
-                    synchronized (task) {
-                        this.expirationFutures.put(id, this.executor.schedule(task, value, unit));
-                    }
-                } else if (value == 0) {
-                    // The EJB specification allows a 0 timeout, which means the bean is immediately eligible for removal.
-                    // However, removing it directly is faster than scheduling it for immediate removal.
-                    remove(id);
-                }
+            if ((this.timeout != null) && (this.timeout.getValue() == 0)) {
+                // The EJB specification allows a 0 timeout, which means the bean is immediately eligible for removal.
+                // However, removing it directly is faster than waiting for the next sweep.
+                remove(id);
+            } else {
+                this.evictIfNecessary();
             }
         }
     }
 
     @Override
     public int getCacheSize() {
-        return this.entries.size();
+        return this.entries.size() - this.passivated.get();
     }
 
     @Override
     public int getPassivatedCount() {
-        return 0;
+        return this.passivated.get();
     }
 
     @Override
     public int getTotalSize() {
-        return this.getCacheSize();
+        return this.entries.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Activates a passivated entry, and marks it as in use. Must be called while holding the monitor of the entry.
+     */
+    private V activate(K key, Entry<V> entry) {
+        File file = entry.getFile();
+        V bean;
+        try {
+            bean = this.store.read(file);
+            this.passivationListener.postActivate(bean);
+        } catch (Throwable e) {
+            this.entries.remove(key, entry);
+            this.store.delete(entry.expirePassivated());
+            this.passivated.decrementAndGet();
+            throw EjbLogger.ROOT_LOGGER.activationFailed(e, key);
+        }
+        this.store.delete(file);
+        entry.activated(bean);
+        this.passivated.decrementAndGet();
+        return bean;
+    }
+
+    /**
+     * Passivates an idle entry, unless it was used since the specified time.
+     */
+    private boolean passivate(K key, Entry<V> entry, long lastUsed) {
+        synchronized (entry) {
+            if ((this.entries.get(key) != entry) || !entry.passivating(lastUsed)) {
+                return false;
+            }
+            V bean = entry.getValue();
+            try {
+                this.passivationListener.prePassivate(bean);
+            } catch (Throwable e) {
+                entry.restore(bean);
+                EjbLogger.ROOT_LOGGER.passivationFailedKeepingInMemory(e, key);
+                return false;
+            }
+            try {
+                entry.passivated(this.store.write(bean));
+                this.passivated.incrementAndGet();
+                return true;
+            } catch (Throwable e) {
+                // The bean remains in memory, so revert its pre-passivate callback
+                this.passivationListener.postActivate(bean);
+                entry.restore(bean);
+                EjbLogger.ROOT_LOGGER.passivationFailedKeepingInMemory(e, key);
+                return false;
+            }
+        }
+    }
+
+    private void evictIfNecessary() {
+        // Whoever holds the lock also evicts on behalf of concurrent callers, so keep going while the cache is too large
+        while ((this.maxSize > 0) && (this.getCacheSize() > this.maxSize) && this.evictionLock.tryLock()) {
+            try {
+                if (!this.evict()) return;
+            } finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Passivates the least recently used idle beans, until the cache holds a little less than its maximum size in memory.
+     *
+     * @return true, if any bean was passivated
+     */
+    private boolean evict() {
+        int excess = this.getCacheSize() - this.maxSize + (this.maxSize >> EVICTION_BATCH_SHIFT);
+        if (excess <= 0) return false;
+        int passivated = 0;
+        List<Candidate<K, V>> candidates = new ArrayList<>();
+        for (Map.Entry<K, Entry<V>> entry : this.entries.entrySet()) {
+            long lastUsed = entry.getValue().getIdleSince();
+            if (lastUsed != Entry.NEVER) {
+                candidates.add(new Candidate<>(entry.getKey(), entry.getValue(), lastUsed));
+            }
+        }
+        Collections.sort(candidates);
+        Iterator<Candidate<K, V>> iterator = candidates.iterator();
+        while ((excess > 0) && iterator.hasNext()) {
+            Candidate<K, V> candidate = iterator.next();
+            if (this.passivate(candidate.key, candidate.entry, candidate.lastUsed)) {
+                excess -= 1;
+                passivated += 1;
+            }
+        }
+        return passivated > 0;
     }
 
-    class RemoveTask implements Runnable {
-        private final K key;
+    static class Candidate<K, V> implements Comparable<Candidate<K, V>> {
+        final K key;
+        final Entry<V> entry;
+        final long lastUsed;
 
-        RemoveTask(K key) {
+        Candidate(K key, Entry<V> entry, long lastUsed) {
             this.key = key;
+            this.entry = entry;
+            this.lastUsed = lastUsed;
+        }
+
+        @Override
+        public int compareTo(Candidate<K, V> candidate) {
+            long difference = this.lastUsed - candidate.lastUsed;
+            return (difference < 0) ? -1 : ((difference > 0) ? 1 : 0);
+        }
+    }
+
+    class SweepTask implements Runnable {
+        private final long timeout;
+
+        SweepTask(long timeout) {
+            this.timeout = timeout;
         }
 
         @Override
-        public synchronized void run() {
-            if (!Thread.currentThread().isInterrupted()) {
-                SimpleCache.this.remove(this.key);
+        public void run() {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<K, Entry<V>>> entries = SimpleCache.this.entries.entrySet().iterator();
+            while (entries.hasNext() && !Thread.currentThread().isInterrupted()) {
+                Map.Entry<K, Entry<V>> entry = entries.next();
+                Entry<V> value = entry.getValue();
+                boolean expired = false;
+                if (value.isExpired(now, this.timeout)) {
+                    synchronized (value) {
+                        expired = value.expire(now, this.timeout);
+                    }
+                }
+                if (expired) {
+                    if (SimpleCache.this.entries.remove(entry.getKey(), value)) {
+                        try {
+                            SimpleCache.this.factory.destroyInstance(value.getValue());
+                        } catch (Throwable e) {
+                            // Do not let a failing bean cancel the sweep
+                            EjbLogger.ROOT_LOGGER.debugf(e, "Failed to destroy expired bean %s", entry.getKey());
+                        }
+                    }
+                } else if (value.isPassivated()) {
+                    // The EJB specification does not require pre-destroy callbacks for passivated beans that time out
+                    synchronized (value) {
+                        if (value.isPassivated() && value.isExpired(now, this.timeout) && SimpleCache.this.entries.remove(entry.getKey(), value)) {
+                            SimpleCache.this.store.delete(value.expirePassivated());
+                            SimpleCache.this.passivated.decrementAndGet();
+                        }
+                    }
+                }
             }
-            SimpleCache.this.expirationFutures.remove(this.key);
         }
     }
 
+    /**
+     * The state of a cached bean. Its usage count is negative while the bean is not in memory: once the entry expired,
+     * or while it is passivated. Claiming an idle entry, and state changes away from a passivated entry, require the
+     * monitor of the entry, so that a caller whose {@link #use()} failed can wait on the monitor for the state to settle.
+     */
     static class Entry<V> {
-        private final V value;
+        /** Usage count of an entry that was removed by the sweep */
+        private static final int EXPIRED = -1;
+        /** Usage count of an entry whose bean is passivated, or being passivated */
+        private static final int PASSIVATED = -2;
+        /** Last used time of an entry that was never released */
+        static final long NEVER = Long.MIN_VALUE;
+
         private final AtomicInteger usage = new AtomicInteger();
+        private volatile V value;
+        private volatile File file;
+        private volatile long lastUsed = NEVER;
 
         Entry(V value) {
             this.value = value;
         }
 
-        void use() {
-            this.usage.incrementAndGet();
+        /**
+         * @return false, if the bean is not in memory
+         */
+        boolean use() {
+            int current = this.usage.get();
+            while (current >= 0) {
+                if (this.usage.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                current = this.usage.get();
+            }
+            return false;
         }
 
         boolean done() {
+            // Record the time before the entry becomes idle, so that expire(...) never sees an idle entry with a stale time
+            this.lastUsed = System.nanoTime();
             return this.usage.decrementAndGet() == 0;
         }
 
+        /**
+         * @return the last used time of this idle entry, or {@link #NEVER} if it is in use or not in memory
+         */
+        long getIdleSince() {
+            long lastUsed = this.lastUsed;
+            return (this.usage.get() == 0) ? lastUsed : NEVER;
+        }
+
+        boolean isExpired(long now, long timeout) {
+            long lastUsed = this.lastUsed;
+            return (lastUsed != NEVER) && (now - lastUsed >= timeout);
+        }
+
+        /**
+         * Marks this entry as expired, if it has been idle for at least the specified timeout.
+         * Once expired, {@link #use()} fails. Must be called while holding the monitor of the entry.
+         */
+        boolean expire(long now, long timeout) {
+            long lastUsed = this.lastUsed;
+            return (lastUsed != NEVER) && (now - lastUsed >= timeout) && this.claim(lastUsed, EXPIRED);
+        }
+
+        /**
+         * Marks this entry as passivated, unless it was used since the specified time.
+         * Must be called while holding the monitor of the entry.
+         */
+        boolean passivating(long lastUsed) {
+            return this.claim(lastUsed, PASSIVATED);
+        }
+
+        private boolean claim(long lastUsed, int state) {
+            if ((this.lastUsed != lastUsed) || !this.usage.compareAndSet(0, state)) {
+                return false;
+            }
+            if (this.lastUsed != lastUsed) {
+                // The entry was used and released again in the meantime
+                this.usage.set(0);
+                return false;
+            }
+            return true;
+        }
+
+        void passivated(File file) {
+            this.file = file;
+            this.value = null;
+        }
+
+        /**
+         * Makes a bean that could not be passivated available again.
+         */
+        void restore(V value) {
+            this.value = value;
+            this.usage.set(0);
+        }
+
+        /**
+         * Makes an activated bean available, already in use by the caller.
+         */
+        void activated(V value) {
+            this.value = value;
+            this.file = null;
+            this.usage.set(1);
+        }
+
+        /**
+         * Marks a passivated entry as expired.
+         *
+         * @return the file holding the passivated bean
+         */
+        File expirePassivated() {
+            File file = this.file;
+            this.file = null;
+            this.usage.set(EXPIRED);
+            return file;
+        }
+
+        boolean isPassivated() {
+            return this.usage.get() == PASSIVATED;
+        }
+
+        File getFile() {
+            return this.file;
+        }
+
         V getValue() {
             return this.value;
         }
@@ -50,10 +50,15 @@ public class SimpleCacheFactoryBuilderService<K, V extends Identifiable<K>> exte
     private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup(SimpleCache.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
 
     private final String name;
+    private final int maxSize;
 
-    public SimpleCacheFactoryBuilderService(String name) {
+    /**
+     * @param maxSize the maximum number of beans held in memory by each cache, or 0 if caches are unbounded
+     */
+    public SimpleCacheFactoryBuilderService(String name, int maxSize) {
         super(name);
         this.name = name;
+        this.maxSize = maxSize;
     }
 
     @Override
@@ -68,11 +73,18 @@ public class SimpleCacheFactoryBuilderService<K, V extends Identifiable<K>> exte
 
     @Override
     public ServiceBuilder<? extends CacheFactory<K, V>> build(ServiceTarget target, ServiceName name, BeanContext context, StatefulTimeoutInfo timeout) {
-        return SimpleCacheFactoryService.build(this.name, target, name, context, timeout);
+        return SimpleCacheFactoryService.build(this.name, target, name, context, timeout, this.maxSize);
+    }
+
+    /**
+     * Returns a builder for caches of the same name which hold any number of beans in memory, and never passivate them.
+     */
+    public SimpleCacheFactoryBuilderService<K, V> unbounded() {
+        return (this.maxSize > 0) ? new SimpleCacheFactoryBuilderService<K, V>(this.name, 0) : this;
     }
 
     @Override
     public boolean supportsPassivation() {
-        return false;
+        return this.maxSize > 0;
     }
 }
@@ -21,6 +21,7 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.io.File;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.jboss.as.ejb3.cache.Cache;
@@ -28,6 +29,7 @@ import org.jboss.as.ejb3.cache.CacheFactory;
 import org.jboss.as.ejb3.cache.Identifiable;
 import org.jboss.as.ejb3.cache.StatefulObjectFactory;
 import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
+import org.jboss.as.ejb3.component.stateful.VersionedMarshallingConfigurationService;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.ServerEnvironmentService;
 import org.jboss.msc.service.AbstractService;
@@ -38,6 +40,9 @@ import org.jboss.msc.value.InjectedValue;
 import org.wildfly.clustering.ejb.BeanContext;
 import org.wildfly.clustering.ejb.IdentifierFactory;
 import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+import org.wildfly.clustering.marshalling.SimpleMarshallingContextFactory;
+import org.wildfly.clustering.marshalling.VersionedMarshallingConfiguration;
 
 /**
  * Service that provides a simple {@link CacheFactory}.
@@ -49,20 +54,34 @@ import org.wildfly.clustering.ejb.PassivationListener;
  */
 public class SimpleCacheFactoryService<K, V extends Identifiable<K>> extends AbstractService<CacheFactory<K, V>> implements CacheFactory<K, V> {
 
-    public static <K, V extends Identifiable<K>> ServiceBuilder<CacheFactory<K, V>> build(String name, ServiceTarget target, ServiceName serviceName, BeanContext context, StatefulTimeoutInfo timeout) {
-        SimpleCacheFactoryService<K, V> service = new SimpleCacheFactoryService<>(timeout);
-        return target.addService(serviceName, service)
+    private static final String PASSIVATION_DIRECTORY = "ejb3-passivation";
+
+    /**
+     * @param maxSize the maximum number of beans held in memory by each cache, or 0 if caches are unbounded
+     */
+    public static <K, V extends Identifiable<K>> ServiceBuilder<CacheFactory<K, V>> build(String name, ServiceTarget target, ServiceName serviceName, BeanContext context, StatefulTimeoutInfo timeout, int maxSize) {
+        SimpleCacheFactoryService<K, V> service = new SimpleCacheFactoryService<>(context, timeout, maxSize);
+        ServiceBuilder<CacheFactory<K, V>> builder = target.addService(serviceName, service)
                 .addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, service.environment)
                 .addDependency(context.getDeploymentUnitServiceName().append(name, "expiration"), ScheduledExecutorService.class, service.executor)
         ;
+        if (maxSize > 0) {
+            builder.addDependency(VersionedMarshallingConfigurationService.getServiceName(context.getDeploymentUnitServiceName()), VersionedMarshallingConfiguration.class, service.marshallingConfiguration);
+        }
+        return builder;
     }
 
     private final InjectedValue<ServerEnvironment> environment = new InjectedValue<>();
     private final InjectedValue<ScheduledExecutorService> executor = new InjectedValue<>();
+    private final InjectedValue<VersionedMarshallingConfiguration> marshallingConfiguration = new InjectedValue<>();
+    private final BeanContext context;
     private final StatefulTimeoutInfo timeout;
+    private final int maxSize;
 
-    private SimpleCacheFactoryService(StatefulTimeoutInfo timeout) {
+    private SimpleCacheFactoryService(BeanContext context, StatefulTimeoutInfo timeout, int maxSize) {
+        this.context = context;
         this.timeout = timeout;
+        this.maxSize = maxSize;
     }
 
     @Override
@@ -72,6 +91,12 @@ public class SimpleCacheFactoryService<K, V extends Identifiable<K>> extends Abs
 
     @Override
     public Cache<K, V> createCache(IdentifierFactory<K> identifierFactory, StatefulObjectFactory<V> factory, PassivationListener<V> passivationListener) {
-        return new SimpleCache<>(factory, identifierFactory, this.timeout, this.environment.getValue(), this.executor.getValue());
+        ServerEnvironment environment = this.environment.getValue();
+        if (this.maxSize > 0) {
+            MarshallingContext marshallingContext = new SimpleMarshallingContextFactory().createMarshallingContext(this.marshallingConfiguration.getValue(), this.context.getClassLoader());
+            FileBeanStore<V> store = new FileBeanStore<>(new File(environment.getServerTempDir(), PASSIVATION_DIRECTORY), this.context.getBeanName(), marshallingContext);
+            return new SimpleCache<>(factory, identifierFactory, this.timeout, environment, this.executor.getValue(), passivationListener, this.maxSize, store);
+        }
+        return new SimpleCache<>(factory, identifierFactory, this.timeout, environment, this.executor.getValue());
     }
 }
@@ -33,20 +33,54 @@ import org.jboss.as.ejb3.component.entity.EntityBeanComponent;
 import org.jboss.as.ejb3.component.entity.EntityBeanComponentInstance;
 
 /**
+ * Cache of entity bean component instances by primary key, shared by all transactions.
+ * <p/>
+ * Operations on the same primary key are serialized by one of a fixed number of locks, chosen by the hash of the key,
+ * so that invocations on different entities of the same type do not contend for a single lock. The only bean callback
+ * invoked while holding a lock is {@code ejbPassivate}, which is not allowed to access other enterprise beans, so a
+ * thread never needs more than one of these locks.
+ * <p/>
+ * An entity that is not cached yet is activated without holding a lock, as {@code ejbLoad} may access other entities.
+ * If another thread cached an instance for the same primary key in the meantime, that instance is used, and the one
+ * activated in vain is passivated and released.
+ *
  * @author John Bailey
  * @author <a href="wfink@redhat.com">Wolf-Dieter Fink</a>
  */
 public class ReferenceCountingEntityCache implements ReadyEntityCache {
+    private static final int LOCK_COUNT;
+
+    static {
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 4) {
+            count <<= 1;
+        }
+        LOCK_COUNT = Math.max(count, 16);
+    }
+
     private final ConcurrentMap<Object, CacheEntry> cache = new ConcurrentHashMap<Object, CacheEntry>();
     private final EntityBeanComponent component;
+    private final Object[] locks = new Object[LOCK_COUNT];
 
     public ReferenceCountingEntityCache(final EntityBeanComponent component) {
         this.component = component;
+        for (int i = 0; i < locks.length; ++i) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(final Object key) {
+        int hash = key.hashCode();
+        // spread the high bits, as primary keys often only differ in those
+        hash ^= (hash >>> 16);
+        return locks[hash & (locks.length - 1)];
     }
 
-    public synchronized void create(final EntityBeanComponentInstance instance) {
-        final CacheEntry entry = realCreate(instance);
-        entry.referenceCount.incrementAndGet();
+    public void create(final EntityBeanComponentInstance instance) {
+        synchronized (lockFor(instance.getPrimaryKey())) {
+            final CacheEntry entry = realCreate(instance);
+            entry.referenceCount.incrementAndGet();
+        }
     }
 
     private CacheEntry realCreate(final EntityBeanComponentInstance instance) {
@@ -64,32 +98,51 @@ public class ReferenceCountingEntityCache implements ReadyEntityCache {
     }
 
     @Override
-    public synchronized boolean contains(final Object key) {
-        if(cache.containsKey(key)) {
-            final CacheEntry cacheEntry = cache.get(key);
-            return true;
-        }
-        return false;
+    public boolean contains(final Object key) {
+        return cache.containsKey(key);
     }
     @Override
-    public synchronized boolean containsNotRemoved(final Object key) {
-        if(cache.containsKey(key)) {
+    public boolean containsNotRemoved(final Object key) {
+        synchronized (lockFor(key)) {
             final CacheEntry cacheEntry = cache.get(key);
-            if (cacheEntry.replacedInstance != null) {
-                return !cacheEntry.replacedInstance.isRemoved();
-            } else {
-                return !cacheEntry.instance.isRemoved();
+            if (cacheEntry != null) {
+                if (cacheEntry.replacedInstance != null) {
+                    return !cacheEntry.replacedInstance.isRemoved();
+                } else {
+                    return !cacheEntry.instance.isRemoved();
+                }
             }
+            return false;
         }
-        return false;
     }
 
-    public synchronized EntityBeanComponentInstance get(final Object key) throws NoSuchEntityException {
-        if (!cache.containsKey(key)) {
-            final EntityBeanComponentInstance instance = createInstance(key);
-            realCreate(instance);
+    public EntityBeanComponentInstance get(final Object key) throws NoSuchEntityException {
+        synchronized (lockFor(key)) {
+            final EntityBeanComponentInstance cached = reference(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final EntityBeanComponentInstance instance = createInstance(key);
+        final EntityBeanComponentInstance cached;
+        synchronized (lockFor(key)) {
+            cached = reference(key);
+            if (cached == null) {
+                realCreate(instance).referenceCount.incrementAndGet();
+                return instance;
+            }
         }
+        // another thread cached an instance while this one was being activated
+        instance.passivate();
+        component.releaseEntityBeanInstance(instance);
+        return cached;
+    }
+
+    private EntityBeanComponentInstance reference(final Object key) {
         final CacheEntry cacheEntry = cache.get(key);
+        if (cacheEntry == null) {
+            return null;
+        }
         cacheEntry.referenceCount.incrementAndGet();
         if (cacheEntry.replacedInstance != null) {
             return cacheEntry.replacedInstance;
@@ -97,59 +150,65 @@ public class ReferenceCountingEntityCache implements ReadyEntityCache {
             return cacheEntry.instance;
         }
     }
-    public synchronized void release(final EntityBeanComponentInstance instance, boolean success) {
+
+    public void release(final EntityBeanComponentInstance instance, boolean success) {
         if (instance.isDiscarded()) {
             return;
         }
-        if (instance.getPrimaryKey() == null) return;  // TODO: Should this be an Exception
-        final CacheEntry cacheEntry = cache.get(instance.getPrimaryKey());
-        if (cacheEntry == null) {
-            throw EjbLogger.ROOT_LOGGER.entityBeanInstanceNotFoundInCache(instance);
-        }
-        if (cacheEntry.replacedInstance != null) {
-            //this can happen if an entity is removed and a new entity with the same PK is added in a transactions
-            if (instance == cacheEntry.replacedInstance) {
-                if (success) {
-                    cacheEntry.instance = cacheEntry.replacedInstance;
-                } else if (cacheEntry.instance.isDiscarded()) {
-                    //if the TX was a failure, and the previous instance has been discarded
-                    //we just remove the entry and return
-                    cache.remove(instance.getPrimaryKey());
-                    return;
+        final Object pk = instance.getPrimaryKey();
+        if (pk == null) return;  // TODO: Should this be an Exception
+        synchronized (lockFor(pk)) {
+            final CacheEntry cacheEntry = cache.get(pk);
+            if (cacheEntry == null) {
+                throw EjbLogger.ROOT_LOGGER.entityBeanInstanceNotFoundInCache(instance);
+            }
+            if (cacheEntry.replacedInstance != null) {
+                //this can happen if an entity is removed and a new entity with the same PK is added in a transactions
+                if (instance == cacheEntry.replacedInstance) {
+                    if (success) {
+                        cacheEntry.instance = cacheEntry.replacedInstance;
+                    } else if (cacheEntry.instance.isDiscarded()) {
+                        //if the TX was a failure, and the previous instance has been discarded
+                        //we just remove the entry and return
+                        cache.remove(pk);
+                        return;
+                    }
+                    cacheEntry.replacedInstance = null;
                 }
-                cacheEntry.replacedInstance = null;
             }
-        }
-        //TODO: this should probably be somewhere else
-        //roll back unsuccessful removal
-        if (!success && instance.isRemoved()) {
-            instance.setRemoved(false);
-        }
-        if (cacheEntry.referenceCount.decrementAndGet() == 0) {
-            final Object pk = instance.getPrimaryKey();
-            try {
-                instance.passivate();
-                component.releaseEntityBeanInstance(instance);
-            } finally {
-                cache.remove(pk);
+            //TODO: this should probably be somewhere else
+            //roll back unsuccessful removal
+            if (!success && instance.isRemoved()) {
+                instance.setRemoved(false);
+            }
+            if (cacheEntry.referenceCount.decrementAndGet() == 0) {
+                try {
+                    instance.passivate();
+                    component.releaseEntityBeanInstance(instance);
+                } finally {
+                    cache.remove(pk);
+                }
             }
         }
     }
 
-    public synchronized void discard(final EntityBeanComponentInstance instance) {
-        if(instance.getPrimaryKey() == null) {
+    public void discard(final EntityBeanComponentInstance instance) {
+        final Object pk = instance.getPrimaryKey();
+        if(pk == null) {
             //instance has already been passivated
             return;
         }
-        final CacheEntry entry = cache.get(instance.getPrimaryKey());
-        if (entry != null) {
-            if (instance == entry.replacedInstance) {
-                //this instance that is being discarded is the new instance
-                //we can just set it to null
-                entry.replacedInstance = null;
-            } else if (entry.replacedInstance == null) {
-                //if there is a new instance we cannot discard the entry entirely
-                cache.remove(instance.getPrimaryKey());
+        synchronized (lockFor(pk)) {
+            final CacheEntry entry = cache.get(pk);
+            if (entry != null) {
+                if (instance == entry.replacedInstance) {
+                    //this instance that is being discarded is the new instance
+                    //we can just set it to null
+                    entry.replacedInstance = null;
+                } else if (entry.replacedInstance == null) {
+                    //if there is a new instance we cannot discard the entry entirely
+                    cache.remove(pk);
+                }
             }
         }
     }
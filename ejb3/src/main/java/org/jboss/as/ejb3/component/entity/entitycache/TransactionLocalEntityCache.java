@@ -21,8 +21,6 @@
  */
 package org.jboss.as.ejb3.component.entity.entitycache;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -38,6 +36,8 @@ import org.jboss.as.ejb3.component.entity.EntityBeanComponentInstance;
 
 /**
  * Cache of entity bean component instances by transaction key
+ * <p/>
+ * The instances of a transaction are kept in a concurrent map of their own, so no lock is shared between transactions.
  *
  * @author Stuart Douglas
  * @author <a href="wfink@redhat.com">Wolf-Dieter Fink</a>
@@ -53,7 +53,7 @@ public class TransactionLocalEntityCache implements ReadyEntityCache {
     }
 
     @Override
-    public synchronized boolean contains(final Object key) {
+    public boolean contains(final Object key) {
         if (!isTransactionActive() || !cache.containsKey(key)) {
             return false;
         }
@@ -63,7 +63,7 @@ public class TransactionLocalEntityCache implements ReadyEntityCache {
     }
 
     @Override
-    public synchronized boolean containsNotRemoved(final Object key) {
+    public boolean containsNotRemoved(final Object key) {
         if (!isTransactionActive() || !cache.containsKey(key)) {
             return false;
         }
@@ -177,10 +177,11 @@ public class TransactionLocalEntityCache implements ReadyEntityCache {
         if (map != null) {
             return map;
         }
-        map = Collections.synchronizedMap(new HashMap<Object, CacheEntry>());
+        map = new ConcurrentHashMap<Object, CacheEntry>(8, 0.75f, 1);
         final Map<Object, CacheEntry> existing = cache.putIfAbsent(key, map);
         if (existing != null) {
-            map = existing;
+            // the synchronization has already been registered
+            return existing;
         }
         transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
             @Override
@@ -22,61 +22,96 @@
 package org.jboss.as.ejb3.component.interceptors;
 
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.jboss.as.ejb3.logging.EjbLogger;
 
 /**
  * runnable used to invoke local ejb async methods
+ * <p/>
+ * The task does not hold a lock while it is waited upon. If the bean method returns a future that can notify about its
+ * completion, i.e. the future of another asynchronous invocation or, when running on Java 8, a
+ * {@code CompletionStage}, this task completes when that future does, instead of blocking an asynchronous executor
+ * thread until then.
  *
 * @author Stuart Douglas
 */
 public abstract class AsyncInvocationTask implements Runnable, Future<Object> {
-    private final CancellationFlag cancelledFlag;
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private static final AtomicIntegerFieldUpdater<AsyncInvocationTask> stateUpdater = AtomicIntegerFieldUpdater.newUpdater(AsyncInvocationTask.class, "state");
 
-    private volatile boolean running = false;
+    private final CancellationFlag cancelledFlag;
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final Queue<Runnable> completionListeners = new ConcurrentLinkedQueue<>();
 
-    private boolean done = false;
-    private Object result;
-    private Exception failed;
+    private volatile int state = NEW;
+    private volatile Object result;
+    private volatile Exception failed;
 
    public AsyncInvocationTask( final CancellationFlag cancelledFlag) {
         this.cancelledFlag = cancelledFlag;
     }
 
     @Override
-    public synchronized boolean cancel(final boolean mayInterruptIfRunning) {
-        if (!mayInterruptIfRunning && running) {
-            return false;
-        }
-        cancelledFlag.set(true);
-        if (!running) {
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        if (stateUpdater.compareAndSet(this, NEW, DONE)) {
+            cancelledFlag.set(true);
             done();
             return true;
         }
+        if (mayInterruptIfRunning) {
+            cancelledFlag.set(true);
+        }
         return false;
     }
 
     protected abstract Object runInvocation() throws Exception;
 
     public void run() {
-        synchronized (this) {
-            running = true;
-            if (cancelledFlag.get()) {
-                return;
-            }
+        if (!stateUpdater.compareAndSet(this, NEW, RUNNING)) {
+            // cancelled before it started
+            return;
         }
-        Object result;
+        final Object result;
         try {
             result = runInvocation();
         } catch (Exception e) {
             setFailed(e);
             return;
         }
-        Future<?> asyncResult = (Future<?>) result;
+        final Future<?> asyncResult = (Future<?>) result;
+        if (asyncResult == null || asyncResult.isDone()) {
+            complete(asyncResult);
+            return;
+        }
+        final Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                complete(asyncResult);
+            }
+        };
+        if (asyncResult instanceof AsyncInvocationTask) {
+            ((AsyncInvocationTask) asyncResult).addCompletionListener(listener);
+        } else if (!CompletionStageSupport.whenComplete(asyncResult, listener)) {
+            complete(asyncResult);
+        }
+    }
+
+    /**
+     * Completes this task with the outcome of the future returned by the bean method, waiting for it if it is not done.
+     */
+    private void complete(final Future<?> asyncResult) {
+        Object result = null;
         try {
             if(asyncResult != null) {
                 result = asyncResult.get();
@@ -94,41 +129,57 @@ public abstract class AsyncInvocationTask implements Runnable, Future<Object> {
                 setFailed(new UndeclaredThrowableException(throwable));
                 return;
             }
+        } catch (RuntimeException e) {
+            // e.g. the returned future was cancelled
+            setFailed(e);
+            return;
         }
         setResult(result);
-        return;
     }
 
-    private synchronized void setResult(final Object result) {
+    private void setResult(final Object result) {
         this.result = result;
+        this.state = DONE;
         done();
     }
 
-    private synchronized void setFailed(final Exception e) {
+    private void setFailed(final Exception e) {
         this.failed = e;
+        this.state = DONE;
         done();
     }
 
     private void done() {
-        done = true;
-        notifyAll();
+        completion.countDown();
+        Runnable listener;
+        while ((listener = completionListeners.poll()) != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Registers a task to run once this task is done. If it already is, the listener is run immediately.
+     */
+    void addCompletionListener(final Runnable listener) {
+        completionListeners.add(listener);
+        if (isDone() && completionListeners.remove(listener)) {
+            listener.run();
+        }
     }
 
     @Override
     public boolean isCancelled() {
-        return done && cancelledFlag.get();
+        return isDone() && cancelledFlag.get();
     }
 
     @Override
     public boolean isDone() {
-        return done;
+        return completion.getCount() == 0;
     }
 
     @Override
-    public synchronized Object get() throws InterruptedException, ExecutionException {
-        while (!isDone()) {
-            wait();
-        }
+    public Object get() throws InterruptedException, ExecutionException {
+        completion.await();
         if (failed != null) {
             throw new ExecutionException(failed);
         }
@@ -136,12 +187,9 @@ public abstract class AsyncInvocationTask implements Runnable, Future<Object> {
     }
 
     @Override
-    public synchronized Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        if (!isDone()) {
-            wait(unit.toMillis(timeout));
-            if (!isDone()) {
-                throw EjbLogger.ROOT_LOGGER.failToCompleteTaskBeforeTimeOut(timeout, unit);
-            }
+    public Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!completion.await(timeout, unit)) {
+            throw EjbLogger.ROOT_LOGGER.failToCompleteTaskBeforeTimeOut(timeout, unit);
         }
         if (cancelledFlag.get()) {
             throw EjbLogger.ROOT_LOGGER.taskWasCancelled();
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.interceptors;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Registers completion callbacks on {@code java.util.concurrent.CompletionStage}s, which are only available when
+ * running on Java 8 or later. The types are looked up reflectively, so that this works on Java 7 as well, where no
+ * future is a completion stage.
+ */
+final class CompletionStageSupport {
+
+    private static final Class<?> COMPLETION_STAGE;
+    private static final Class<?> BI_CONSUMER;
+    private static final Method WHEN_COMPLETE;
+
+    static {
+        Class<?> completionStage = null;
+        Class<?> biConsumer = null;
+        Method whenComplete = null;
+        try {
+            completionStage = Class.forName("java.util.concurrent.CompletionStage");
+            biConsumer = Class.forName("java.util.function.BiConsumer");
+            whenComplete = completionStage.getMethod("whenComplete", biConsumer);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            // not running on Java 8
+        }
+        COMPLETION_STAGE = completionStage;
+        BI_CONSUMER = biConsumer;
+        WHEN_COMPLETE = whenComplete;
+    }
+
+    private CompletionStageSupport() {
+    }
+
+    /**
+     * Runs the passed callback once the passed future completes, if it is a completion stage.
+     *
+     * @param future the future
+     * @param callback the callback, which is run in the thread that completes the future, or in the calling thread if
+     *                 the future is already complete
+     * @return true if the callback was registered, false if the future is not a completion stage
+     */
+    static boolean whenComplete(final Object future, final Runnable callback) {
+        if (WHEN_COMPLETE == null || !COMPLETION_STAGE.isInstance(future)) {
+            return false;
+        }
+        final Object consumer = Proxy.newProxyInstance(CompletionStageSupport.class.getClassLoader(), new Class<?>[] {BI_CONSUMER}, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return callback.toString();
+                    }
+                }
+                // BiConsumer.accept(result, throwable)
+                callback.run();
+                return null;
+            }
+        });
+        try {
+            WHEN_COMPLETE.invoke(future, consumer);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
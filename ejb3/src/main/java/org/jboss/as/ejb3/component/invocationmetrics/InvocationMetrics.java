@@ -30,9 +30,18 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.as.ee.utils.LatencyHistogram;
 
 /**
+ * Invocation statistics of a component, in total and per method.
+ * <p/>
+ * The invocation count, wait time and execution time are summed up in striped counters: every thread adds to the
+ * stripe picked by its id, and only reading a value sums up all stripes. Finishing an invocation therefore does
+ * not allocate, and threads on different stripes do not contend. Per method, the wait and execution times are
+ * also recorded in {@link LatencyHistogram}s, from which percentiles are computed on read.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
@@ -40,11 +49,13 @@ public class InvocationMetrics {
         final long invocations;
         final long executionTime;
         final long waitTime;
+        private final MethodStatistics statistics;
 
-        private Values(final long invocations, final long waitTime, final long executionTime) {
+        private Values(final long invocations, final long waitTime, final long executionTime, final MethodStatistics statistics) {
             this.invocations = invocations;
             this.executionTime = executionTime;
             this.waitTime = waitTime;
+            this.statistics = statistics;
         }
 
         public long getExecutionTime() {
@@ -58,40 +69,102 @@ public class InvocationMetrics {
         public long getWaitTime() {
             return waitTime;
         }
+
+        /**
+         * @param quantile a fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+         * @return the execution time percentile, with a relative error of at most 12.5%
+         */
+        public long getExecutionTimePercentile(final double quantile) {
+            return statistics.executionTimes.getPercentile(quantile);
+        }
+
+        /**
+         * @param quantile a fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+         * @return the wait time percentile, with a relative error of at most 12.5%
+         */
+        public long getWaitTimePercentile(final double quantile) {
+            return statistics.waitTimes.getPercentile(quantile);
+        }
+    }
+
+    /**
+     * Invocation count, wait time and execution time, striped by thread.
+     * Each stripe occupies {@link #PADDING} slots, so that the stripes of different threads do not share a cache line.
+     */
+    private static class Counters {
+        private static final int INVOCATIONS = 0;
+        private static final int WAIT_TIME = 1;
+        private static final int EXECUTION_TIME = 2;
+        private static final int PADDING = 8;
+        private static final int STRIPES = stripes();
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        private static int stripes() {
+            final int processors = Runtime.getRuntime().availableProcessors();
+            final int stripes = Integer.highestOneBit(processors);
+            return Math.min((stripes == processors) ? stripes : stripes << 1, 64);
+        }
+
+        private static int stripe() {
+            final long id = Thread.currentThread().getId();
+            int hash = (int) (id ^ (id >>> 32));
+            hash ^= (hash >>> 16);
+            hash *= 0x85ebca6b;
+            hash ^= (hash >>> 13);
+            return hash & (STRIPES - 1);
+        }
+
+        void add(final long waitTime, final long executionTime) {
+            final int base = stripe() * PADDING;
+            cells.incrementAndGet(base + INVOCATIONS);
+            cells.addAndGet(base + WAIT_TIME, waitTime);
+            cells.addAndGet(base + EXECUTION_TIME, executionTime);
+        }
+
+        long sum(final int field) {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; ++i) {
+                sum += cells.get(i * PADDING + field);
+            }
+            return sum;
+        }
+
+        Values values(final MethodStatistics statistics) {
+            return new Values(sum(INVOCATIONS), sum(WAIT_TIME), sum(EXECUTION_TIME), statistics);
+        }
+    }
+
+    private static class MethodStatistics {
+        final Counters counters = new Counters();
+        final LatencyHistogram waitTimes = new LatencyHistogram();
+        final LatencyHistogram executionTimes = new LatencyHistogram();
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private final Counters counters = new Counters();
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    private final ConcurrentMap<String, MethodStatistics> methods = new ConcurrentHashMap<String, MethodStatistics>();
 
     void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
-        }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
-        }
+        counters.add(invocationWaitTime, invocationExecutionTime);
+        final MethodStatistics methodStatistics = statistics(methods, method.getName());
+        methodStatistics.counters.add(invocationWaitTime, invocationExecutionTime);
+        methodStatistics.waitTimes.record(invocationWaitTime);
+        methodStatistics.executionTimes.record(invocationExecutionTime);
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
+    private static MethodStatistics statistics(final ConcurrentMap<String, MethodStatistics> map, final String key) {
+        MethodStatistics statistics = map.get(key);
+        if (statistics == null) {
+            statistics = new MethodStatistics();
+            final MethodStatistics previous = map.putIfAbsent(key, statistics);
+            if (previous != null)
+                statistics = previous;
         }
-        return ref;
+        return statistics;
     }
 
     public long getConcurrent() {
@@ -99,11 +172,11 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return counters.sum(Counters.EXECUTION_TIME);
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return counters.sum(Counters.INVOCATIONS);
     }
 
     public Map<String, Values> getMethods() {
@@ -113,7 +186,7 @@ public class InvocationMetrics {
                 return new AbstractSet<Entry<String, Values>>() {
                     @Override
                     public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
+                        final Iterator<Entry<String, MethodStatistics>> delegate = methods.entrySet().iterator();
                         return new Iterator<Entry<String, Values>>() {
                             @Override
                             public boolean hasNext() {
@@ -122,7 +195,7 @@ public class InvocationMetrics {
 
                             @Override
                             public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
+                                final Entry<String, MethodStatistics> next = delegate.next();
                                 return new Entry<String, Values>() {
                                     @Override
                                     public String getKey() {
@@ -131,7 +204,7 @@ public class InvocationMetrics {
 
                                     @Override
                                     public Values getValue() {
-                                        return next.getValue().get();
+                                        return next.getValue().counters.values(next.getValue());
                                     }
 
                                     @Override
@@ -162,7 +235,7 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return counters.sum(Counters.WAIT_TIME);
     }
 
     void startInvocation() {
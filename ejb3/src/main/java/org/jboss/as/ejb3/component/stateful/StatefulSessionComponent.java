@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ejb.EJBException;
 import javax.ejb.EJBLocalObject;
@@ -96,6 +97,8 @@ public class StatefulSessionComponent extends SessionBeanComponent implements St
     private final Value<CacheFactory> cacheFactory;
     private final InterceptorFactory ejb2XRemoveMethod;
     private Interceptor ejb2XRemoveMethodInterceptor;
+    private final AtomicLong passivationCount = new AtomicLong();
+    private final AtomicLong activationCount = new AtomicLong();
 
     /**
      * Set of context keys for serializable interceptors.
@@ -160,14 +163,30 @@ public class StatefulSessionComponent extends SessionBeanComponent implements St
 
     @Override
     public void postActivate(StatefulSessionComponentInstance instance) {
+        this.activationCount.incrementAndGet();
         instance.postActivate();
     }
 
     @Override
     public void prePassivate(StatefulSessionComponentInstance instance) {
+        this.passivationCount.incrementAndGet();
         instance.prePassivate();
     }
 
+    /**
+     * @return the number of times a bean of this component was passivated
+     */
+    public long getPassivationCount() {
+        return this.passivationCount.get();
+    }
+
+    /**
+     * @return the number of times a bean of this component was activated
+     */
+    public long getActivationCount() {
+        return this.activationCount.get();
+    }
+
     protected SessionID getSessionIdOf(final InterceptorContext ctx) {
         final StatefulSessionComponentInstance instance = (StatefulSessionComponentInstance) ctx.getPrivateData(ComponentInstance.class);
         return instance.getId();
@@ -43,6 +43,7 @@ import java.lang.reflect.Method;
 import java.util.Set;
 
 import org.jboss.as.ejb3.cache.CacheFactoryBuilder;
+import org.jboss.as.ejb3.cache.simple.SimpleCacheFactoryBuilderService;
 import org.jboss.modules.ModuleLoader;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
@@ -120,7 +121,12 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
     @Override
     public void start(StartContext context) throws StartException {
         super.start(context);
-        this.cacheFactoryBuilder.getValue().build(context.getChildTarget(), this.componentServiceName.append("cache"), this, this.statefulTimeout).install();
+        CacheFactoryBuilder<?, ?> builder = this.cacheFactoryBuilder.getValue();
+        if (!this.passivationCapable && (builder instanceof SimpleCacheFactoryBuilderService)) {
+            // A bean that is not passivation capable must never be passivated, even if its simple cache is bounded
+            builder = ((SimpleCacheFactoryBuilderService<?, ?>) builder).unbounded();
+        }
+        builder.build(context.getChildTarget(), this.componentServiceName.append("cache"), this, this.statefulTimeout).install();
     }
 
     @Override
@@ -27,11 +27,14 @@ import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.iiop.EjbIIOPService;
 import org.jboss.msc.value.InjectedValue;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Runtime information about an EJB in a module
@@ -50,6 +53,7 @@ public class EjbDeploymentInformation {
 
     private final InjectedValue<EjbIIOPService> iorFactory;
     private final Set<String> remoteViewClassNames = new HashSet<String>();
+    private final ConcurrentMap<ViewMethodKey, Method> viewMethods = new ConcurrentHashMap<ViewMethodKey, Method>();
 
     /**
      * @param ejbName               The EJB name
@@ -131,4 +135,71 @@ public class EjbDeploymentInformation {
     public boolean isRemoteView(final String viewClassName) {
         return this.remoteViewClassNames.contains(viewClassName);
     }
+
+    /**
+     * Returns the method of a view, matching the passed name and parameter types. The methods resolved by this
+     * method are cached for the lifetime of the deployment, so that repeated remote invocations of the same method
+     * don't have to search the methods of the view.
+     *
+     * @param viewClassName The fully qualified classname of the view
+     * @param methodName    The method name
+     * @param signature     The fully qualified classnames of the parameter types, separated by a comma
+     * @return the method, or null if the view has no such method
+     */
+    public Method getViewMethod(final String viewClassName, final String methodName, final String signature) {
+        final ViewMethodKey key = new ViewMethodKey(viewClassName, methodName, signature);
+        Method method = this.viewMethods.get(key);
+        if (method == null) {
+            method = findViewMethod(this.getView(viewClassName), methodName, signature);
+            if (method != null) {
+                // only successful lookups are cached, so that the cache is bounded by the number of view methods
+                this.viewMethods.putIfAbsent(key, method);
+            }
+        }
+        return method;
+    }
+
+    private static Method findViewMethod(final ComponentView componentView, final String methodName, final String signature) {
+        for (final Method method : componentView.getViewMethods()) {
+            if (method.getName().equals(methodName)) {
+                final StringBuilder methodSignature = new StringBuilder(signature.length());
+                for (final Class<?> paramType : method.getParameterTypes()) {
+                    if (methodSignature.length() > 0) {
+                        methodSignature.append(',');
+                    }
+                    methodSignature.append(paramType.getName());
+                }
+                if (signature.contentEquals(methodSignature)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class ViewMethodKey {
+        private final String viewClassName;
+        private final String methodName;
+        private final String signature;
+
+        ViewMethodKey(final String viewClassName, final String methodName, final String signature) {
+            this.viewClassName = viewClassName;
+            this.methodName = methodName;
+            this.signature = signature;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof ViewMethodKey)) {
+                return false;
+            }
+            final ViewMethodKey key = (ViewMethodKey) object;
+            return methodName.equals(key.methodName) && signature.equals(key.signature) && viewClassName.equals(key.viewClassName);
+        }
+
+        @Override
+        public int hashCode() {
+            return (viewClassName.hashCode() * 31 + methodName.hashCode()) * 31 + signature.hashCode();
+        }
+    }
 }
@@ -24,7 +24,6 @@ package org.jboss.as.ejb3.deployment.processors;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
 import java.util.concurrent.ExecutorService;
 
 import org.jboss.as.ee.component.Attachments;
@@ -44,6 +43,7 @@ import org.jboss.as.ejb3.timerservice.NonFunctionalTimerService;
 import org.jboss.as.ejb3.timerservice.TimedObjectInvokerImpl;
 import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
 import org.jboss.as.ejb3.timerservice.TimerServiceMetaData;
+import org.jboss.as.ejb3.timerservice.TimerWheel;
 import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
@@ -66,6 +66,7 @@ import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 public class TimerServiceDeploymentProcessor implements DeploymentUnitProcessor {
 
     public static final ServiceName TIMER_SERVICE_NAME = ServiceName.JBOSS.append("ejb3", "timer");
+    public static final ServiceName TIMER_WHEEL_SERVICE_NAME = TIMER_SERVICE_NAME.append("wheel");
 
     private final ServiceName timerServiceThreadPool;
     private final String defaultTimerDataStore;
@@ -133,7 +134,7 @@ public class TimerServiceDeploymentProcessor implements DeploymentUnitProcessor
                             final ServiceName serviceName = componentDescription.getServiceName().append(TimerServiceImpl.SERVICE_NAME);
                             final TimerServiceImpl service = new TimerServiceImpl(ejbComponentDescription.getScheduleMethods(), serviceName, timerServiceRegistry);
                             final ServiceBuilder<javax.ejb.TimerService> createBuilder = context.getServiceTarget().addService(serviceName, service);
-                            createBuilder.addDependency(TIMER_SERVICE_NAME, Timer.class, service.getTimerInjectedValue());
+                            createBuilder.addDependency(TIMER_WHEEL_SERVICE_NAME, TimerWheel.class, service.getTimerInjectedValue());
                             createBuilder.addDependency(componentDescription.getCreateServiceName(), EJBComponent.class, service.getEjbComponentInjectedValue());
                             createBuilder.addDependency(timerServiceThreadPool, ExecutorService.class, service.getExecutorServiceInjectedValue());
                             if (timerPersistenceServices.containsKey(ejbComponentDescription.getEJBName())) {
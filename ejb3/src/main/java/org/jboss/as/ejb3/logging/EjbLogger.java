@@ -2739,11 +2739,9 @@ public interface EjbLogger extends BasicLogger {
     @Message(id = 400, value = "Failed to passivate %s")
     RuntimeException passivationFailed(@Cause Throwable cause, Object id);
 
-    @Deprecated
     @Message(id = 401, value = "Failed to activate %s")
     RuntimeException activationFailed(@Cause Throwable cause, Object id);
 
-    @Deprecated
     @Message(id = 402, value = "Failed to create passivation directory: %s")
     RuntimeException passivationDirectoryCreationFailed(String path);
 
@@ -3032,4 +3030,23 @@ public interface EjbLogger extends BasicLogger {
     @Message(id = 465, value = "Invalid client descriptor configuration: 'profile' and 'remoting-ejb-receivers' cannot be used together")
     DeploymentUnitProcessingException profileAndRemotingEjbReceiversUsedTogether();
 
+    @LogMessage(level = ERROR)
+    @Message(id = 466, value = "Timer task %s failed")
+    void timerWheelTaskFailed(Runnable task, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 467, value = "Timer journal %s is incomplete or corrupt after offset %d, discarding the remaining %d bytes")
+    void timerJournalTruncated(File journal, long offset, long discarded);
+
+    @Message(id = 468, value = "%s is not a valid timer journal")
+    IllegalStateException invalidTimerJournal(File journal);
+
+    @LogMessage(level = INFO)
+    @Message(id = 469, value = "Migrated %d persistent timers in %s to the timer journal")
+    void migratedTimersToJournal(int count, File directory);
+
+    @LogMessage(level = WARN)
+    @Message(id = 470, value = "Failed to passivate %s, it will remain in memory")
+    void passivationFailedKeepingInMemory(@Cause Throwable cause, Object id);
+
 }
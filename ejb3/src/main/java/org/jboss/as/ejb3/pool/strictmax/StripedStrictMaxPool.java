@@ -0,0 +1,272 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size, whose permits and idle instances are spread over a number of stripes.
+ * <p/>
+ * Every thread has a home stripe (derived from its id) from which it takes a permit and an idle
+ * instance, and to which it returns them. Only when its home stripe is exhausted does a thread steal from
+ * the other stripes, so under load threads mostly touch disjoint state instead of a single semaphore and queue.
+ * The total number of permits across all stripes never exceeds the configured maximum, so the strict-max
+ * semantics of {@link StrictMaxPool} are preserved. A thread which finds no permit in any stripe blocks until
+ * one is released or the acquisition timeout elapses.
+ */
+public class StripedStrictMaxPool<T> extends AbstractPool<T> {
+
+    private final int maxSize;
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    /**
+     * Idle instances, one queue per stripe.
+     */
+    private final Queue<T>[] idle;
+    /**
+     * Available permits per stripe. Each stripe's counter lives at {@code index * PADDING},
+     * so that the counters of adjacent stripes do not share a cache line.
+     */
+    private final AtomicIntegerArray permits;
+    private final int mask;
+
+    private static final int PADDING = 16;
+
+    /**
+     * Number of threads currently blocked waiting for a permit.
+     * Releasing threads only take the monitor on {@link #waitLock} if this is non-zero.
+     */
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private final Object waitLock = new Object();
+
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(factory, maxSize, timeout, timeUnit, Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit, int concurrency) {
+        super(factory);
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        // Power of 2 stripe count, never more stripes than permits, so that every stripe starts with at least one permit
+        int count = Math.min(ceilingPowerOfTwo(Math.max(concurrency, 1)), Integer.highestOneBit(Math.max(maxSize, 1)));
+        this.idle = new Queue[count];
+        this.permits = new AtomicIntegerArray(count * PADDING);
+        this.mask = count - 1;
+        for (int i = 0; i < count; ++i) {
+            this.idle[i] = new ConcurrentLinkedQueue<T>();
+            this.permits.set(i * PADDING, (maxSize / count) + ((i < (maxSize % count)) ? 1 : 0));
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int result = Integer.highestOneBit(value);
+        return (result == value) ? result : result << 1;
+    }
+
+    private int homeIndex() {
+        long id = Thread.currentThread().getId();
+        // Spread the bits of the thread id, so that consecutive ids do not always land in neighbouring stripes
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash & this.mask;
+    }
+
+    /**
+     * Attempts to take a permit from the home stripe, then from every other stripe.
+     * @return the index of the stripe from which the permit was taken, or -1 if no permit was available
+     */
+    private int tryAcquire(int home) {
+        for (int i = 0; i < this.idle.length; ++i) {
+            int index = (home + i) & this.mask;
+            if (this.tryAcquireFrom(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean tryAcquireFrom(int index) {
+        int slot = index * PADDING;
+        int current = this.permits.get(slot);
+        while (current > 0) {
+            if (this.permits.compareAndSet(slot, current, current - 1)) {
+                return true;
+            }
+            current = this.permits.get(slot);
+        }
+        return false;
+    }
+
+    private int acquire() {
+        int home = this.homeIndex();
+        int index = this.tryAcquire(home);
+        if (index >= 0) {
+            return index;
+        }
+        long remaining = this.timeUnit.toNanos(this.timeout);
+        final long deadline = System.nanoTime() + remaining;
+        synchronized (this.waitLock) {
+            this.waiters.incrementAndGet();
+            try {
+                while (true) {
+                    index = this.tryAcquire(home);
+                    if (index >= 0) {
+                        return index;
+                    }
+                    if (remaining <= 0) {
+                        throw EjbLogger.ROOT_LOGGER.failedToAcquirePermit(this.timeout, this.timeUnit);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this.waitLock, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw EjbLogger.ROOT_LOGGER.acquireSemaphoreInterrupted();
+            } finally {
+                this.waiters.decrementAndGet();
+            }
+        }
+    }
+
+    private void releasePermit(int index) {
+        this.permits.incrementAndGet(index * PADDING);
+        if (this.waiters.get() > 0) {
+            synchronized (this.waitLock) {
+                this.waitLock.notifyAll();
+            }
+        }
+    }
+
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        this.releasePermit(this.homeIndex());
+
+        // Let the super do any other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        int available = 0;
+        for (int i = 0; i < this.idle.length; ++i) {
+            available += this.permits.get(i * PADDING);
+        }
+        return available;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        throw EjbLogger.ROOT_LOGGER.methodNotImplemented();
+    }
+
+    /**
+     * Get an instance without identity.
+     * Prefers an idle instance from the stripe owning the acquired permit, then steals an idle instance
+     * from any other stripe before creating a new one.
+     *
+     * @return Context /w instance
+     */
+    public T get() {
+        int index = this.acquire();
+
+        for (int i = 0; i < this.idle.length; ++i) {
+            T bean = this.idle[(index + i) & this.mask].poll();
+            if (bean != null) {
+                return bean;
+            }
+        }
+
+        T bean = null;
+        try {
+            // No idle instance in any stripe, create an instance
+            bean = create();
+        } finally {
+            if (bean == null) {
+                this.releasePermit(index);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Return an instance after invocation.
+     *
+     * @param obj
+     */
+    public void release(T obj) {
+        int index = this.homeIndex();
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", this.getAvailableCount(), this.maxSize, this);
+        }
+
+        this.idle[index].add(obj);
+
+        this.releasePermit(index);
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        this.releasePermit(this.homeIndex());
+        // let the super do the other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public void start() {
+        // Nothing to start
+    }
+
+    public void stop() {
+        for (Queue<T> queue : this.idle) {
+            for (T obj = queue.poll(); obj != null; obj = queue.poll()) {
+                destroy(obj);
+            }
+        }
+    }
+}
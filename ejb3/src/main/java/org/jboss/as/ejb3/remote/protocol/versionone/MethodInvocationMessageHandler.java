@@ -58,7 +58,6 @@ import java.io.ObjectStreamException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -95,13 +94,7 @@ public class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHan
         // read the method name
         final String methodName = input.readUTF();
         // method signature
-        String[] methodParamTypes = null;
         final String signature = input.readUTF();
-        if (signature.isEmpty()) {
-            methodParamTypes = new String[0];
-        } else {
-            methodParamTypes = signature.split(String.valueOf(METHOD_PARAM_TYPE_SEPARATOR));
-        }
 
         // read the Locator
         // we use a mutable ClassResolver, so that we can switch to a different (and correct deployment CL)
@@ -148,16 +141,17 @@ public class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHan
                 return;
             }
             final ComponentView componentView = ejbDeploymentInformation.getView(viewClassName);
-            final Method invokedMethod = this.findMethod(componentView, methodName, methodParamTypes);
+            final Method invokedMethod = ejbDeploymentInformation.getViewMethod(viewClassName, methodName, signature);
             if (invokedMethod == null) {
+                final String[] methodParamTypes = signature.isEmpty() ? new String[0] : signature.split(String.valueOf(METHOD_PARAM_TYPE_SEPARATOR));
                 this.writeNoSuchEJBMethodFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
                 return;
             }
 
-            final Object[] methodParams = new Object[methodParamTypes.length];
+            final Object[] methodParams = new Object[invokedMethod.getParameterTypes().length];
             // un-marshall the method arguments
-            if (methodParamTypes.length > 0) {
-                for (int i = 0; i < methodParamTypes.length; i++) {
+            if (methodParams.length > 0) {
+                for (int i = 0; i < methodParams.length; i++) {
                     try {
                         methodParams[i] = unmarshaller.readObject();
                     } catch (Throwable e) {
@@ -332,29 +326,6 @@ public class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHan
         }
     }
 
-    private Method findMethod(final ComponentView componentView, final String methodName, final String[] paramTypes) {
-        final Set<Method> viewMethods = componentView.getViewMethods();
-        for (final Method method : viewMethods) {
-            if (method.getName().equals(methodName)) {
-                final Class<?>[] methodParamTypes = method.getParameterTypes();
-                if (methodParamTypes.length != paramTypes.length) {
-                    continue;
-                }
-                boolean found = true;
-                for (int i = 0; i < methodParamTypes.length; i++) {
-                    if (!methodParamTypes[i].getName().equals(paramTypes[i])) {
-                        found = false;
-                        break;
-                    }
-                }
-                if (found) {
-                    return method;
-                }
-            }
-        }
-        return null;
-    }
-
     private void writeMethodInvocationResponse(final ChannelAssociation channelAssociation, final short invocationId, final Object result, final Map<String, Object> attachments, Method invokedMethod) throws IOException {
         final DataOutputStream outputStream;
         final MessageOutputStream messageOutputStream;
@@ -29,9 +29,13 @@ import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.controller.transform.description.DiscardAttributeChecker;
+import org.jboss.as.controller.transform.description.RejectAttributeChecker;
+import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
 import org.jboss.dmr.ModelType;
 
 /**
@@ -52,7 +56,15 @@ public class CacheFactoryResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_NONE)
                     .build();
 
-    private static final AttributeDefinition[] ATTRIBUTES = { ALIASES, PASSIVATION_STORE };
+    public static final SimpleAttributeDefinition MAX_SIZE =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_SIZE, ModelType.INT, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.MAX_SIZE.getLocalName())
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(1, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+
+    private static final AttributeDefinition[] ATTRIBUTES = { ALIASES, PASSIVATION_STORE, MAX_SIZE };
     private static final CacheFactoryAdd ADD_HANDLER = new CacheFactoryAdd(ATTRIBUTES);
     private static final CacheFactoryRemove REMOVE_HANDLER = new CacheFactoryRemove(ADD_HANDLER);
 
@@ -72,4 +84,19 @@ public class CacheFactoryResourceDefinition extends SimpleResourceDefinition {
             resourceRegistration.registerReadWriteAttribute(attribute,  null, handler);
         }
     }
+
+    static void registerTransformers_1_1_0(ResourceTransformationDescriptionBuilder parent) {
+        registerTransformers(parent);
+    }
+
+    static void registerTransformers_1_2_0(ResourceTransformationDescriptionBuilder parent) {
+        registerTransformers(parent);
+    }
+
+    private static void registerTransformers(ResourceTransformationDescriptionBuilder parent) {
+        parent.addChildResource(INSTANCE.getPathElement())
+            .getAttributeBuilder()
+            .setDiscard(DiscardAttributeChecker.UNDEFINED, MAX_SIZE)
+            .addRejectCheck(RejectAttributeChecker.DEFINED, MAX_SIZE);
+    }
 }
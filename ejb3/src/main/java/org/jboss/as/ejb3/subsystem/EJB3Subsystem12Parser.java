@@ -439,18 +439,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
                 case NAME:
                     poolName = value;
                     break;
-                case MAX_POOL_SIZE:
-                    StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.parseAndSetParameter(value, operation, reader);
-                    break;
-                case INSTANCE_ACQUISITION_TIMEOUT:
-                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parseAndSetParameter(value, operation, reader);
-                    break;
-                case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
-                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
-                    break;
-
                 default:
-                    throw unexpectedAttribute(reader, i);
+                    this.parseStrictMaxPoolAttribute(reader, i, attribute, value, operation);
             }
         }
         requireNoContent(reader);
@@ -464,6 +454,25 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
         operations.add(operation);
     }
 
+    /**
+     * Parses an attribute of a strict-max-bean-instance-pool element, other than its name, into the specified add operation.
+     */
+    protected void parseStrictMaxPoolAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case MAX_POOL_SIZE:
+                StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.parseAndSetParameter(value, operation, reader);
+                break;
+            case INSTANCE_ACQUISITION_TIMEOUT:
+                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parseAndSetParameter(value, operation, reader);
+                break;
+            case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
+                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                throw unexpectedAttribute(reader, index);
+        }
+    }
+
     private void parseCaches(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         // no attributes expected
         requireNoAttributes(reader);
@@ -481,7 +490,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
         }
     }
 
-    private void parseCache(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+    protected void parseCache(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         String name = null;
         ModelNode operation = Util.createAddOperation();
         //Set<String> aliases = new LinkedHashSet<String>();
@@ -47,6 +47,7 @@ import static org.jboss.as.controller.parsing.ParseUtils.requireNoContent;
 import static org.jboss.as.controller.parsing.ParseUtils.requireNoNamespaceAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedElement;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.CACHE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DATABASE_DATA_STORE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.REMOTE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.SERVICE;
@@ -104,6 +105,58 @@ public class EJB3Subsystem30Parser extends EJB3Subsystem20Parser {
             throw missingRequired(reader, missingRequiredAttributes);
         }
     }
+    @Override
+    protected void parseStrictMaxPoolAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case STRIPED:
+                StrictMaxPoolResourceDefinition.STRIPED.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                super.parseStrictMaxPoolAttribute(reader, index, attribute, value, operation);
+        }
+    }
+
+    @Override
+    protected void parseCache(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        String name = null;
+        ModelNode operation = Util.createAddOperation();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            switch (EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i))) {
+                case NAME: {
+                    name = value;
+                    break;
+                }
+                case PASSIVATION_STORE_REF: {
+                    CacheFactoryResourceDefinition.PASSIVATION_STORE.parseAndSetParameter(value, operation, reader);
+                    break;
+                }
+                case ALIASES: {
+                    for (String alias : reader.getListAttributeValue(i)) {
+                        CacheFactoryResourceDefinition.ALIASES.parseAndAddParameterElement(alias, operation, reader);
+                    }
+                    break;
+                }
+                case MAX_SIZE: {
+                    CacheFactoryResourceDefinition.MAX_SIZE.parseAndSetParameter(value, operation, reader);
+                    break;
+                }
+                default: {
+                    throw unexpectedAttribute(reader, i);
+                }
+            }
+        }
+        requireNoContent(reader);
+        if (name == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        // create /subsystem=ejb3/cache=name:add(...)
+        final PathAddress address = SUBSYSTEM_PATH.append(CACHE, name);
+        operation.get(OP_ADDR).set(address.toModelNode());
+        operations.add(operation);
+    }
+
     @Override
     protected void parseDatabaseDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         String name = null;
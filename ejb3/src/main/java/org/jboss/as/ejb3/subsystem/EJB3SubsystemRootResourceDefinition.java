@@ -307,6 +307,7 @@ public class EJB3SubsystemRootResourceDefinition extends SimpleResourceDefinitio
         EJB3RemoteResourceDefinition.registerTransformers_1_1_0(builder);
         UnboundedQueueThreadPoolResourceDefinition.registerTransformers1_0(builder, EJB3SubsystemModel.THREAD_POOL);
         StrictMaxPoolResourceDefinition.registerTransformers_1_1_0(builder);
+        CacheFactoryResourceDefinition.registerTransformers_1_1_0(builder);
         PassivationStoreResourceDefinition.registerTransformers_1_1_0(builder);
         FilePassivationStoreResourceDefinition.registerTransformers_1_1_0(builder);
         ClusterPassivationStoreResourceDefinition.registerTransformers_1_1_0(builder);
@@ -334,6 +335,8 @@ public class EJB3SubsystemRootResourceDefinition extends SimpleResourceDefinitio
         // We can always discard this attribute, because it's meaningless without the security-manager subsystem, and
         // a legacy slave can't have that subsystem in its profile.
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.DISABLE_DEFAULT_EJB_PERMISSIONS);
+        StrictMaxPoolResourceDefinition.registerTransformers_1_2_0(builder);
+        CacheFactoryResourceDefinition.registerTransformers_1_2_0(builder);
         PassivationStoreResourceDefinition.registerTransformers_1_2_0(builder);
         TimerServiceResourceDefinition.registerTransformers_1_2_0(builder);
         builder.rejectChildResource(PathElement.pathElement(EJB3SubsystemModel.REMOTING_PROFILE));
@@ -38,6 +38,7 @@ import org.jboss.as.controller.operations.validation.TimeUnitValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.controller.transform.description.DiscardAttributeChecker;
 import org.jboss.as.controller.transform.description.RejectAttributeChecker;
 import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
 import org.jboss.as.ejb3.component.pool.PoolConfigService;
@@ -78,6 +79,14 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
                     .setAllowExpression(true)
                     .build();
 
+    public static final SimpleAttributeDefinition STRIPED =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.STRIPED, ModelType.BOOLEAN, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.STRIPED.getLocalName())
+                    .setDefaultValue(new ModelNode().set(StrictMaxPoolConfig.DEFAULT_STRIPED))
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     static {
@@ -85,6 +94,7 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
         map.put(MAX_POOL_SIZE.getName(), MAX_POOL_SIZE);
         map.put(INSTANCE_ACQUISITION_TIMEOUT.getName(), INSTANCE_ACQUISITION_TIMEOUT);
         map.put(INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName(), INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+        map.put(STRIPED.getName(), STRIPED);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
@@ -106,6 +116,15 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
     static void registerTransformers_1_1_0(ResourceTransformationDescriptionBuilder parent) {
         parent.addChildResource(INSTANCE.getPathElement())
             .getAttributeBuilder()
-            .addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+            .addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, INSTANCE_ACQUISITION_TIMEOUT_UNIT)
+            .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolConfig.DEFAULT_STRIPED)), STRIPED)
+            .addRejectCheck(RejectAttributeChecker.DEFINED, STRIPED);
+    }
+
+    static void registerTransformers_1_2_0(ResourceTransformationDescriptionBuilder parent) {
+        parent.addChildResource(INSTANCE.getPathElement())
+            .getAttributeBuilder()
+            .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolConfig.DEFAULT_STRIPED)), STRIPED)
+            .addRejectCheck(RejectAttributeChecker.DEFINED, STRIPED);
     }
 }
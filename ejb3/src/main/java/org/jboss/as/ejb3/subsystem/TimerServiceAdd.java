@@ -22,8 +22,10 @@
 
 package org.jboss.as.ejb3.subsystem;
 
+import java.security.AccessController;
 import java.util.List;
 import java.util.Timer;
+import java.util.concurrent.ThreadFactory;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -34,6 +36,7 @@ import org.jboss.as.ejb3.deployment.processors.AroundTimeoutAnnotationParsingPro
 import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
+import org.jboss.as.ejb3.timerservice.TimerWheel;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.deployment.Phase;
@@ -44,6 +47,8 @@ import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 
@@ -95,6 +100,8 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
         newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
                 .install());
+        newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_WHEEL_SERVICE_NAME, new TimerWheelService())
+                .install());
 
     }
 
@@ -118,4 +125,31 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
             return timer;
         }
     }
+
+    /**
+     * Provides the {@link TimerWheel} which schedules the timeouts of all EJB timers.
+     */
+    private static final class TimerWheelService implements Service<TimerWheel> {
+
+        private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup(TimerWheel.class.getSimpleName()), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+
+        private TimerWheel wheel;
+
+        @Override
+        public synchronized void start(final StartContext context) throws StartException {
+            wheel = new TimerWheel(THREAD_FACTORY);
+            wheel.start();
+        }
+
+        @Override
+        public synchronized void stop(final StopContext context) {
+            wheel.stop();
+            wheel = null;
+        }
+
+        @Override
+        public synchronized TimerWheel getValue() throws IllegalStateException, IllegalArgumentException {
+            return wheel;
+        }
+    }
 }
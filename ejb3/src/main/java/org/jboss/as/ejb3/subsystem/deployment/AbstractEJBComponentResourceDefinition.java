@@ -80,7 +80,15 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
-    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME)
+    private static final AttributeDefinition EXECUTION_TIME_P50 = createPercentile("execution-time-p50");
+    private static final AttributeDefinition EXECUTION_TIME_P99 = createPercentile("execution-time-p99");
+    private static final AttributeDefinition EXECUTION_TIME_P999 = createPercentile("execution-time-p999");
+    private static final AttributeDefinition WAIT_TIME_P50 = createPercentile("wait-time-p50");
+    private static final AttributeDefinition WAIT_TIME_P99 = createPercentile("wait-time-p99");
+    private static final AttributeDefinition WAIT_TIME_P999 = createPercentile("wait-time-p999");
+
+    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME,
+            EXECUTION_TIME_P50, EXECUTION_TIME_P99, EXECUTION_TIME_P999, WAIT_TIME_P50, WAIT_TIME_P99, WAIT_TIME_P999)
             .setAllowNull(false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
@@ -111,6 +119,21 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
+    private static final AttributeDefinition CACHE_HIT_COUNT = new SimpleAttributeDefinitionBuilder("cache-hit-count", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition PASSIVATION_COUNT = new SimpleAttributeDefinitionBuilder("passivation-count", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition ACTIVATION_COUNT = new SimpleAttributeDefinitionBuilder("activation-count", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     // Pool attributes
 
     public static final SimpleAttributeDefinition POOL_AVAILABLE_COUNT = new SimpleAttributeDefinitionBuilder("pool-available-count", ModelType.INT, false)
@@ -129,6 +152,13 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
 
     private final EJBComponentType componentType;
 
+    private static AttributeDefinition createPercentile(final String name) {
+        return new SimpleAttributeDefinitionBuilder(name, ModelType.LONG)
+                .setAllowNull(false)
+                .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                .build();
+    }
+
     public AbstractEJBComponentResourceDefinition(final EJBComponentType componentType) {
         super(PathElement.pathElement(componentType.getResourceType()),
                 EJB3Extension.getResourceDescriptionResolver(componentType.getResourceType()));
@@ -174,6 +204,24 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     context.getResult().set(((StatefulSessionComponent)component).getCache().getTotalSize());
                 }
             });
+            resourceRegistration.registerMetric(CACHE_HIT_COUNT, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getCache().getHitCount());
+                }
+            });
+            resourceRegistration.registerMetric(PASSIVATION_COUNT, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getPassivationCount());
+                }
+            });
+            resourceRegistration.registerMetric(ACTIVATION_COUNT, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getActivationCount());
+                }
+            });
         }
 
         resourceRegistration.registerMetric(EXECUTION_TIME, new AbstractRuntimeMetricsHandler() {
@@ -210,6 +258,12 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     result.get("execution-time").set(values.getExecutionTime());
                     result.get("invocations").set(values.getInvocations());
                     result.get("wait-time").set(values.getWaitTime());
+                    result.get(EXECUTION_TIME_P50.getName()).set(values.getExecutionTimePercentile(0.5));
+                    result.get(EXECUTION_TIME_P99.getName()).set(values.getExecutionTimePercentile(0.99));
+                    result.get(EXECUTION_TIME_P999.getName()).set(values.getExecutionTimePercentile(0.999));
+                    result.get(WAIT_TIME_P50.getName()).set(values.getWaitTimePercentile(0.5));
+                    result.get(WAIT_TIME_P99.getName()).set(values.getWaitTimePercentile(0.99));
+                    result.get(WAIT_TIME_P999.getName()).set(values.getWaitTimePercentile(0.999));
                     context.getResult().get(entry.getKey()).set(result);
                 }
             }
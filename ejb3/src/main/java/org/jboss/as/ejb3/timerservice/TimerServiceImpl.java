@@ -36,7 +36,10 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.ejb.EJBException;
 import javax.ejb.ScheduleExpression;
@@ -108,7 +111,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TimerWheel> timerInjectedValue = new InjectedValue<TimerWheel>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -125,12 +128,12 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> timers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final ConcurrentMap<String, TimerImpl> timers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the {@link Task} of each of the timers that have been scheduled, keyed by timer id
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final ConcurrentMap<String, Task> scheduledTimerFutures = new ConcurrentHashMap<String, Task>();
 
     /**
      * Key that is used to store timers that are waiting on transaction completion in the transaction local
@@ -218,7 +221,6 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         this.transactionManager = null;
         IoUtils.safeClose(listenerHandle);
         listenerHandle = null;
-        timerInjectedValue.getValue().purge(); //WFLY-3823
     }
 
 
@@ -407,12 +409,10 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         Object pk = currentPrimaryKey();
         final Set<Timer> activeTimers = new HashSet<Timer>();
         // get all active timers for this timerservice
-        synchronized (this.timers) {
-            for (final TimerImpl timer : this.timers.values()) {
-                if (timer.isActive()) {
-                    if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
-                        activeTimers.add(timer);
-                    }
+        for (final TimerImpl timer : this.timers.values()) {
+            if (timer.isActive()) {
+                if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
+                    activeTimers.add(timer);
                 }
             }
         }
@@ -869,42 +869,43 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * Creates and schedules a {@link org.jboss.as.ejb3.timerservice.task.TimerTask} for the next timeout of the passed <code>timer</code>
      */
     protected void scheduleTimeout(TimerImpl timer, boolean newTimer) {
-        synchronized (scheduledTimerFutures) {
-            if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
-                //this timer has been cancelled by another thread. We just return
-                return;
-            }
-
-            Date nextExpiration = timer.getNextExpiration();
-            if (nextExpiration == null) {
-                ROOT_LOGGER.nextExpirationIsNull(timer);
-                return;
-            }
-            // create the timer task
-            final TimerTask<?> timerTask = timer.getTimerTask();
-            // find out how long is it away from now
-            long delay = nextExpiration.getTime() - System.currentTimeMillis();
-            // if in past, then trigger immediately
-            if (delay < 0) {
-                delay = 0;
-            }
-            long intervalDuration = timer.getInterval();
-            final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint());
-            if (intervalDuration > 0) {
-                ROOT_LOGGER.debugv("Scheduling timer {0} at fixed rate, starting at {1} milliseconds from now with repeated interval={2}",
-                        timer, delay, intervalDuration);
-                // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
-            } else {
-                ROOT_LOGGER.debugv("Scheduling a single action timer {0} starting at {1} milliseconds from now", timer, delay);
-                // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
+        final Task previous = this.scheduledTimerFutures.get(timer.getId());
+        if (!newTimer && previous == null) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
 
-            }
+        Date nextExpiration = timer.getNextExpiration();
+        if (nextExpiration == null) {
+            ROOT_LOGGER.nextExpirationIsNull(timer);
+            return;
+        }
+        // create the timer task
+        final TimerTask<?> timerTask = timer.getTimerTask();
+        // find out how long is it away from now
+        long delay = nextExpiration.getTime() - System.currentTimeMillis();
+        // if in past, then trigger immediately
+        if (delay < 0) {
+            delay = 0;
+        }
+        long intervalDuration = timer.getInterval();
+        final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint());
+        if (intervalDuration > 0) {
+            ROOT_LOGGER.debugv("Scheduling timer {0} at fixed rate, starting at {1} milliseconds from now with repeated interval={2}",
+                    timer, delay, intervalDuration);
+            // schedule the task
+            task.timeout = this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration, TimeUnit.MILLISECONDS);
+        } else {
+            ROOT_LOGGER.debugv("Scheduling a single action timer {0} starting at {1} milliseconds from now", timer, delay);
+            // schedule the task
+            task.timeout = this.timerInjectedValue.getValue().schedule(task, delay, TimeUnit.MILLISECONDS);
+        }
+        // maintain it in timerservice for future use (like cancellation)
+        if (newTimer) {
+            this.scheduledTimerFutures.put(timer.getId(), task);
+        } else if (!this.scheduledTimerFutures.replace(timer.getId(), previous, task)) {
+            // the timer was cancelled (or rescheduled) by another thread in the meantime
+            task.timeout.cancel();
         }
     }
 
@@ -914,26 +915,20 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * @param timer
      */
     protected void cancelTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
-            if (timerTask != null) {
-                timerTask.cancel();
-            }
+        Task task = this.scheduledTimerFutures.remove(timer.getId());
+        if (task != null) {
+            task.cancel();
         }
     }
 
     public void invokeTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            if (this.scheduledTimerFutures.containsKey(timer.getId())) {
-                timer.getTimerTask().run();
-            }
+        if (this.scheduledTimerFutures.containsKey(timer.getId())) {
+            timer.getTimerTask().run();
         }
     }
 
     public boolean isScheduled(final String tid){
-        synchronized (this.scheduledTimerFutures) {
-            return this.scheduledTimerFutures.containsKey(tid);
-        }
+        return this.scheduledTimerFutures.containsKey(tid);
     }
 
     /**
@@ -1088,7 +1083,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
+    public InjectedValue<TimerWheel> getTimerInjectedValue() {
         return timerInjectedValue;
     }
 
@@ -1206,10 +1201,15 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task extends java.util.TimerTask {
+    private class Task implements Runnable {
 
         private final TimerTask<?> delegate;
         private final ControlPoint controlPoint;
+        /**
+         * The handle of this task in the timer wheel, assigned before the task is published to the other threads via
+         * {@link TimerServiceImpl#scheduledTimerFutures}.
+         */
+        volatile TimerWheel.Timeout timeout;
         /**
          * This is true if a task is queued up to be run by the request controller,
          * used to stop timer tasks banking up when the container is suspended.
@@ -1242,10 +1242,10 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
             }
         }
 
-        @Override
         public boolean cancel() {
             delegate.cancel();
-            return super.cancel();
+            final TimerWheel.Timeout timeout = this.timeout;
+            return (timeout != null) && timeout.cancel();
         }
     }
 
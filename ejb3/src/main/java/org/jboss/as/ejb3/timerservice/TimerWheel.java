@@ -0,0 +1,411 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A hashed timing wheel used to schedule the timeouts of EJB timers.
+ * <p/>
+ * Scheduling and cancelling a timeout only enqueue it on a lock-free queue, so any number of threads can do
+ * so concurrently without contending on a monitor. A single worker thread advances the wheel once per tick, moves
+ * newly scheduled timeouts into the bucket of the tick in which they expire, unlinks cancelled ones, and runs
+ * the tasks of all timeouts of the current bucket. Tasks are expected to be short (e.g. hand off to an executor),
+ * since they run on the worker thread.
+ * <p/>
+ * Timeouts fire at the first tick at or after their deadline, so the precision of the wheel is its tick duration.
+ */
+public class TimerWheel {
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * Maximum number of newly scheduled timeouts transferred into the wheel per tick, so that a burst of
+     * scheduling does not delay the expiry of already scheduled timeouts for too long.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static final int INIT = 0;
+    private static final int STARTED = 1;
+    private static final int STOPPED = 2;
+
+    private final ThreadFactory threadFactory;
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> scheduled = new ConcurrentLinkedQueue<Entry>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger state = new AtomicInteger(INIT);
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private volatile long startTime;
+    private volatile Thread worker;
+    // only accessed by the worker thread
+    private long tick;
+
+    public TimerWheel(ThreadFactory threadFactory) {
+        this(threadFactory, DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    public TimerWheel(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel");
+        }
+        this.threadFactory = threadFactory;
+        this.tickDuration = unit.toNanos(tickDuration);
+        int buckets = Integer.highestOneBit(ticksPerWheel);
+        if (buckets != ticksPerWheel) {
+            buckets <<= 1;
+        }
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+    }
+
+    /**
+     * Starts the worker thread of this wheel.
+     */
+    public void start() {
+        if (this.state.compareAndSet(INIT, STARTED)) {
+            this.startTime = System.nanoTime();
+            Thread thread = this.threadFactory.newThread(new Worker());
+            this.worker = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the worker thread of this wheel. Pending timeouts are discarded.
+     */
+    public void stop() {
+        if (this.state.getAndSet(STOPPED) == STARTED) {
+            Thread thread = this.worker;
+            if (thread != null) {
+                thread.interrupt();
+                if (thread != Thread.currentThread()) {
+                    try {
+                        thread.join(TimeUnit.NANOSECONDS.toMillis(this.tickDuration) * 10 + 100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+        this.scheduled.clear();
+        this.cancelled.clear();
+    }
+
+    /**
+     * Schedules a task to run once after the specified delay.
+     *
+     * @param task the task to run
+     * @param delay the delay, negative values run the task at the next tick
+     * @param unit the unit of the delay
+     * @return a handle through which the timeout may be cancelled
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.schedule(task, delay, 0, unit);
+    }
+
+    /**
+     * Schedules a task to run after the specified delay, and then repeatedly with the specified period,
+     * measured from the scheduled (not the actual) time of the previous run.
+     *
+     * @param task the task to run
+     * @param delay the delay before the first run
+     * @param period the period between consecutive runs, must be positive
+     * @param unit the unit of the delay and period
+     * @return a handle through which the timeout may be cancelled
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long delay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period");
+        }
+        return this.schedule(task, delay, period, unit);
+    }
+
+    private Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+        if (this.state.get() != STARTED) {
+            throw new IllegalStateException();
+        }
+        long elapsed = System.nanoTime() - this.startTime;
+        // Saturate, so that far future timeouts (e.g. a Date of Long.MAX_VALUE) never overflow into the past
+        long deadline = elapsed + Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE - elapsed);
+        Entry entry = new Entry(task, deadline, unit.toNanos(period));
+        this.size.incrementAndGet();
+        this.scheduled.add(entry);
+        return entry;
+    }
+
+    /**
+     * @return the number of timeouts which were scheduled and are neither cancelled nor expired
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * A handle to a scheduled task.
+     */
+    public interface Timeout {
+        /**
+         * Cancels this timeout. Has no effect if the timeout already expired or was cancelled.
+         * @return true, if this call cancelled the timeout
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+
+        boolean isExpired();
+    }
+
+    private final class Entry implements Timeout {
+        private static final int ST_SCHEDULED = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        final Runnable task;
+        final long period;
+        // relative to startTime, only modified by the worker thread after publication
+        long deadline;
+        long remainingRounds;
+        // bucket linkage, only accessed by the worker thread
+        Bucket bucket;
+        Entry next;
+        Entry previous;
+
+        volatile int state = ST_SCHEDULED;
+
+        Entry(Runnable task, long deadline, long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_SCHEDULED, ST_CANCELLED)) {
+                return false;
+            }
+            TimerWheel.this.size.decrementAndGet();
+            TimerWheel.this.cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.state == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return this.state == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (this.period > 0) {
+                if (this.state != ST_SCHEDULED) {
+                    return;
+                }
+                this.run();
+                if (this.state == ST_SCHEDULED) {
+                    this.deadline += Math.min(this.period, Long.MAX_VALUE - this.deadline);
+                    // The current bucket was already expired, so never place the next run before the next tick
+                    TimerWheel.this.place(this, TimerWheel.this.tick + 1);
+                }
+            } else if (STATE_UPDATER.compareAndSet(this, ST_SCHEDULED, ST_EXPIRED)) {
+                TimerWheel.this.size.decrementAndGet();
+                this.run();
+            }
+        }
+
+        private void run() {
+            try {
+                this.task.run();
+            } catch (Throwable e) {
+                ROOT_LOGGER.timerWheelTaskFailed(this.task, e);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+    /**
+     * A doubly linked list of the entries which expire in the same slot of the wheel.
+     * Only accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private Entry head;
+        private Entry tail;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = entry;
+            } else {
+                this.tail.next = entry;
+                entry.previous = this.tail;
+                this.tail = entry;
+            }
+        }
+
+        Entry remove(Entry entry) {
+            Entry next = entry.next;
+            if (entry.previous != null) {
+                entry.previous.next = next;
+            }
+            if (entry.next != null) {
+                entry.next.previous = entry.previous;
+            }
+            if (entry == this.head) {
+                if (entry == this.tail) {
+                    this.tail = null;
+                    this.head = null;
+                } else {
+                    this.head = next;
+                }
+            } else if (entry == this.tail) {
+                this.tail = entry.previous;
+            }
+            entry.previous = null;
+            entry.next = null;
+            entry.bucket = null;
+            return next;
+        }
+
+        /**
+         * Removes the entries of this bucket which are due at the specified deadline,
+         * and decrements the remaining rounds of the others.
+         */
+        Entry expire(long deadline) {
+            Entry due = null;
+            Entry entry = this.head;
+            while (entry != null) {
+                if (entry.remainingRounds <= 0) {
+                    Entry next = this.remove(entry);
+                    // Chain due entries through "next" without touching any bucket
+                    entry.next = due;
+                    due = entry;
+                    entry = next;
+                } else if (entry.isCancelled()) {
+                    entry = this.remove(entry);
+                } else {
+                    entry.remainingRounds -= 1;
+                    entry = entry.next;
+                }
+            }
+            return due;
+        }
+    }
+
+    /**
+     * Places the specified entry into the bucket of the tick in which it expires.
+     * Only called by the worker thread.
+     * @param minTick the earliest tick whose bucket will still be expired, entries whose deadline already passed are placed there
+     */
+    void place(Entry entry, long minTick) {
+        long calculated = entry.deadline / this.tickDuration;
+        entry.remainingRounds = (calculated - minTick) / this.wheel.length;
+        long ticks = Math.max(calculated, minTick);
+        this.wheel[(int) (ticks & this.mask)].add(entry);
+    }
+
+    private final class Worker implements Runnable {
+        @Override
+        public void run() {
+            while (TimerWheel.this.state.get() == STARTED) {
+                long deadline = this.waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+                this.unlinkCancelled();
+                this.transferScheduled();
+                Bucket bucket = TimerWheel.this.wheel[(int) (TimerWheel.this.tick & TimerWheel.this.mask)];
+                Entry due = bucket.expire(deadline);
+                while (due != null) {
+                    Entry next = due.next;
+                    due.next = null;
+                    if (due.deadline <= deadline) {
+                        due.expire();
+                    } else {
+                        // Not yet due, e.g. placed in this bucket via a rounding boundary
+                        TimerWheel.this.place(due, TimerWheel.this.tick + 1);
+                    }
+                    due = next;
+                }
+                TimerWheel.this.tick += 1;
+            }
+        }
+
+        private long waitForNextTick() {
+            long deadline = TimerWheel.this.tickDuration * (TimerWheel.this.tick + 1);
+            while (true) {
+                long now = System.nanoTime() - TimerWheel.this.startTime;
+                long sleep = deadline - now;
+                if (sleep <= 0) {
+                    return now;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (TimerWheel.this.state.get() != STARTED) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void unlinkCancelled() {
+            for (Entry entry = TimerWheel.this.cancelled.poll(); entry != null; entry = TimerWheel.this.cancelled.poll()) {
+                Bucket bucket = entry.bucket;
+                if (bucket != null) {
+                    bucket.remove(entry);
+                }
+            }
+        }
+
+        private void transferScheduled() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+                Entry entry = TimerWheel.this.scheduled.poll();
+                if (entry == null) {
+                    return;
+                }
+                if (!entry.isCancelled()) {
+                    TimerWheel.this.place(entry, TimerWheel.this.tick);
+                }
+            }
+        }
+    }
+}
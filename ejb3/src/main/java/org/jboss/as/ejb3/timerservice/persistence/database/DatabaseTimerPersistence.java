@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -42,6 +43,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -55,9 +57,13 @@ import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.NotSupportedException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
 
+import org.jboss.as.ejb3.component.stateful.CurrentSynchronizationCallback;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.timerservice.CalendarTimer;
 import org.jboss.as.ejb3.timerservice.TimerImpl;
@@ -98,6 +104,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final Map<String, TimerChangeListener> changeListeners = Collections.synchronizedMap(new HashMap<String, TimerChangeListener>());
 
     private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
+
+    /** Key of the {@link WriteBatch} of the current transaction in the transaction synchronization registry */
+    private final Object writeBatchKey = new Object();
 
     private final Map<String, Set<String>> knownTimerIds = new HashMap<>();
 
@@ -128,6 +138,13 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private static final String LOAD_TIMER = "load-timer";
     private static final String DELETE_TIMER = "delete-timer";
     private static final String UPDATE_RUNNING = "update-running";
+    private static final String LOAD_TIMER_IDS = "load-timer-ids";
+
+    /**
+     * Maximum number of timers found by a refresh which are loaded one by one. If a refresh finds more new timers
+     * for a timed object, all timers of that object are loaded with a single query instead.
+     */
+    private static final int MAX_REFRESH_SINGLE_LOADS = 50;
 
     public DatabaseTimerPersistence(final String database, String partition, String nodeName, int refreshInterval, boolean allowExecution) {
         this.database = database;
@@ -314,14 +331,19 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void addTimer(final TimerImpl timerEntity) {
+        synchronized (this) {
+            knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+        }
+        final WriteBatch batch = currentWriteBatch();
+        if (batch != null && batch.add(timerEntity, true)) {
+            // written when the transaction completes
+            return;
+        }
         String createTimer = sql(CREATE_TIMER);
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
-            synchronized (this) {
-                knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
-            }
             connection = dataSource.getConnection();
             statement = connection.prepareStatement(createTimer);
             statementParameters(timerEntity, statement);
@@ -337,37 +359,33 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void persistTimer(final TimerImpl timerEntity) {
+        final boolean removed = isRemoved(timerEntity);
+        synchronized (this) {
+            if (removed) {
+                knownTimerIds.get(timerEntity.getTimedObjectId()).remove(timerEntity.getId());
+            } else {
+                knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+            }
+        }
+        final WriteBatch batch = currentWriteBatch();
+        if (batch != null && batch.add(timerEntity, false)) {
+            // written when the transaction completes
+            return;
+        }
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
             connection = dataSource.getConnection();
-            if (timerEntity.getState() == TimerState.CANCELED ||
-                    timerEntity.getState() == TimerState.EXPIRED) {
+            if (removed) {
                 String deleteTimer = sql(DELETE_TIMER);
                 statement = connection.prepareStatement(deleteTimer);
-                statement.setString(1, timerEntity.getTimedObjectId());
-                statement.setString(2, timerEntity.getId());
-                statement.setString(3, partition);
+                deleteStatementParameters(timerEntity, statement);
                 statement.execute();
-                synchronized (this) {
-                    knownTimerIds.get(timerEntity.getTimedObjectId()).remove(timerEntity.getId());
-                }
             } else {
-                synchronized (this) {
-                    knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
-                }
                 String updateTimer = sql(UPDATE_TIMER);
                 statement = connection.prepareStatement(updateTimer);
-                statement.setTimestamp(1, timestamp(timerEntity.getNextExpiration()));
-                statement.setTimestamp(2, timestamp(timerEntity.getPreviousRun()));
-                statement.setString(3, timerEntity.getState().name());
-                setNodeName(timerEntity.getState(), statement, 4);
-                // WHERE CLAUSE
-                statement.setString(5, timerEntity.getTimedObjectId());
-                statement.setString(6, timerEntity.getId());
-                statement.setString(7, partition);
-                statement.setString(8, nodeName);   // only persist if this node or empty
+                updateStatementParameters(timerEntity, statement);
                 statement.execute();
             }
         } catch (SQLException e) {
@@ -379,6 +397,117 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    private static boolean isRemoved(final TimerImpl timerEntity) {
+        return timerEntity.getState() == TimerState.CANCELED || timerEntity.getState() == TimerState.EXPIRED;
+    }
+
+    /**
+     * Returns the batch collecting the timer writes of the current transaction, creating and registering it if necessary.
+     *
+     * @return the batch, or null if there is no active transaction, or it is already completing
+     */
+    private WriteBatch currentWriteBatch() {
+        final TransactionSynchronizationRegistry tsr = transactionSynchronizationRegistry.getOptionalValue();
+        if (tsr == null || tsr.getTransactionStatus() != Status.STATUS_ACTIVE || isBeforeCompletion()) {
+            return null;
+        }
+        WriteBatch batch = (WriteBatch) tsr.getResource(writeBatchKey);
+        if (batch == null) {
+            batch = new WriteBatch();
+            tsr.registerInterposedSynchronization(batch);
+            tsr.putResource(writeBatchKey, batch);
+        }
+        return batch;
+    }
+
+    private static boolean isBeforeCompletion() {
+        final CurrentSynchronizationCallback.CallbackType type = CurrentSynchronizationCallback.get();
+        return type == CurrentSynchronizationCallback.CallbackType.BEFORE_COMPLETION;
+    }
+
+    /**
+     * Writes the given timers using one JDBC batch per statement type.
+     */
+    private void writeBatch(final List<PendingWrite> writes) {
+        final List<TimerImpl> inserts = new ArrayList<TimerImpl>();
+        final List<TimerImpl> updates = new ArrayList<TimerImpl>();
+        final List<TimerImpl> deletes = new ArrayList<TimerImpl>();
+        for (PendingWrite write : writes) {
+            final TimerImpl timer = write.timer;
+            if (write.newTimer) {
+                // created and removed within the same transaction, so it never needs to reach the database
+                if (!isRemoved(timer)) {
+                    inserts.add(timer);
+                }
+            } else if (isRemoved(timer)) {
+                deletes.add(timer);
+            } else {
+                updates.add(timer);
+            }
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            executeBatch(connection, CREATE_TIMER, inserts);
+            executeBatch(connection, UPDATE_TIMER, updates);
+            executeBatch(connection, DELETE_TIMER, deletes);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            safeClose(connection);
+        }
+    }
+
+    /**
+     * Executes the given statement for all timers as a single JDBC batch. Drivers either stop at the first failed row
+     * of a batch, or go on and mark the failed rows, so all rows not reported as written are retried one by one.
+     * A row which fails again fails the whole write.
+     */
+    private void executeBatch(final Connection connection, final String key, final List<TimerImpl> timers) throws SQLException {
+        if (timers.isEmpty()) {
+            return;
+        }
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql(key));
+            for (TimerImpl timer : timers) {
+                statementParameters(key, timer, statement);
+                statement.addBatch();
+            }
+            try {
+                statement.executeBatch();
+            } catch (BatchUpdateException e) {
+                final int[] updateCounts = e.getUpdateCounts();
+                statement.clearBatch();
+                for (int i = 0; i < timers.size(); ++i) {
+                    if (updateCounts == null || i >= updateCounts.length || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                        EjbLogger.ROOT_LOGGER.debugf(e, "Retrying batched write of timer %s", timers.get(i).getId());
+                        statementParameters(key, timers.get(i), statement);
+                        statement.execute();
+                    }
+                }
+            }
+        } finally {
+            safeClose(statement);
+        }
+    }
+
+    private void statementParameters(final String key, final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        switch (key) {
+            case CREATE_TIMER:
+                statementParameters(timerEntity, statement);
+                break;
+            case UPDATE_TIMER:
+                updateStatementParameters(timerEntity, statement);
+                break;
+            case DELETE_TIMER:
+                deleteStatementParameters(timerEntity, statement);
+                break;
+            default:
+                throw new IllegalArgumentException(key);
+        }
+    }
+
     @Override
     public boolean shouldRun(TimerImpl timer, TransactionManager tm) {
         if (!allowExecution) {
@@ -610,6 +739,24 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         setNodeName(timerEntity.getState(), statement, 26);
     }
 
+    private void updateStatementParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statement.setTimestamp(1, timestamp(timerEntity.getNextExpiration()));
+        statement.setTimestamp(2, timestamp(timerEntity.getPreviousRun()));
+        statement.setString(3, timerEntity.getState().name());
+        setNodeName(timerEntity.getState(), statement, 4);
+        // WHERE CLAUSE
+        statement.setString(5, timerEntity.getTimedObjectId());
+        statement.setString(6, timerEntity.getId());
+        statement.setString(7, partition);
+        statement.setString(8, nodeName);   // only persist if this node or empty
+    }
+
+    private void deleteStatementParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statement.setString(1, timerEntity.getTimedObjectId());
+        statement.setString(2, timerEntity.getId());
+        statement.setString(3, partition);
+    }
+
     private String serialize(final Serializable serializable) {
         if (serializable == null) {
             return null;
@@ -678,6 +825,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return timerInjectedValue;
     }
 
+    public InjectedValue<TransactionSynchronizationRegistry> getTransactionSynchronizationRegistry() {
+        return transactionSynchronizationRegistry;
+    }
+
     private static void safeClose(final Closeable resource) {
         try {
             if (resource != null) {
@@ -739,28 +890,52 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
                         synchronized (DatabaseTimerPersistence.this) {
                             existing = new HashSet<>(knownTimerIds.get(timedObjectId));
                         }
-                        String loadTimer = sql(LOAD_ALL_TIMERS);
                         Connection connection = null;
                         PreparedStatement statement = null;
                         ResultSet resultSet = null;
                         try {
                             connection = dataSource.getConnection();
-                            statement = connection.prepareStatement(loadTimer);
+                            // Only fetch the ids, and then load the full rows of timers we do not know yet
+                            final Set<String> added = new HashSet<>();
+                            statement = connection.prepareStatement(sql(LOAD_TIMER_IDS));
                             statement.setString(1, timedObjectId);
                             statement.setString(2, partition);
                             resultSet = statement.executeQuery();
                             while (resultSet.next()) {
-                                try {
-                                    String id = resultSet.getString(1);
-                                    if (!existing.remove(id)) {
-                                        synchronized (DatabaseTimerPersistence.this) {
-                                            knownTimerIds.get(timedObjectId).add(id);
+                                String id = resultSet.getString(1);
+                                if (!existing.remove(id)) {
+                                    added.add(id);
+                                }
+                            }
+                            safeClose(resultSet);
+                            resultSet = null;
+                            safeClose(statement);
+                            statement = null;
+
+                            if (!added.isEmpty()) {
+                                if (added.size() > MAX_REFRESH_SINGLE_LOADS) {
+                                    statement = connection.prepareStatement(sql(LOAD_ALL_TIMERS));
+                                    statement.setString(1, timedObjectId);
+                                    statement.setString(2, partition);
+                                    resultSet = statement.executeQuery();
+                                    while (resultSet.next()) {
+                                        if (added.contains(resultSet.getString(1))) {
+                                            timerAdded(timedObjectId, resultSet, listener);
+                                        }
+                                    }
+                                } else {
+                                    statement = connection.prepareStatement(sql(LOAD_TIMER));
+                                    for (String id : added) {
+                                        statement.setString(1, timedObjectId);
+                                        statement.setString(2, id);
+                                        statement.setString(3, partition);
+                                        resultSet = statement.executeQuery();
+                                        if (resultSet.next()) {
+                                            timerAdded(timedObjectId, resultSet, listener);
                                         }
-                                        final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
-                                        listener.timerAdded(timerImpl);
+                                        safeClose(resultSet);
+                                        resultSet = null;
                                     }
-                                } catch (Exception e) {
-                                    EjbLogger.ROOT_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
                                 }
                             }
 
@@ -785,5 +960,67 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             }
 
         }
+
+        private void timerAdded(final String timedObjectId, final ResultSet resultSet, final TimerChangeListener listener) throws SQLException {
+            try {
+                synchronized (DatabaseTimerPersistence.this) {
+                    knownTimerIds.get(timedObjectId).add(resultSet.getString(1));
+                }
+                final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
+                listener.timerAdded(timerImpl);
+            } catch (Exception e) {
+                EjbLogger.ROOT_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final TimerImpl timer;
+        final boolean newTimer;
+
+        PendingWrite(final TimerImpl timer, final boolean newTimer) {
+            this.timer = timer;
+            this.newTimer = newTimer;
+        }
+    }
+
+    /**
+     * Collects the timer writes of a transaction, coalescing repeated writes of the same timer, and writes them
+     * with JDBC batches just before the transaction completes. The writes therefore still take part in the transaction.
+     */
+    private final class WriteBatch implements Synchronization {
+
+        private final Map<String, PendingWrite> writes = new LinkedHashMap<String, PendingWrite>();
+        private boolean flushed = false;
+
+        /**
+         * @return false if the batch was already written, and the timer must be written directly
+         */
+        synchronized boolean add(final TimerImpl timer, final boolean newTimer) {
+            if (flushed) {
+                return false;
+            }
+            final PendingWrite existing = writes.get(timer.getId());
+            // a timer created within this transaction still needs to be inserted, whatever happened to it since
+            writes.put(timer.getId(), new PendingWrite(timer, newTimer || (existing != null && existing.newTimer)));
+            return true;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            final List<PendingWrite> pending;
+            synchronized (this) {
+                flushed = true;
+                pending = new ArrayList<PendingWrite>(writes.values());
+                writes.clear();
+            }
+            if (!pending.isEmpty()) {
+                writeBatch(pending);
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+        }
     }
 }
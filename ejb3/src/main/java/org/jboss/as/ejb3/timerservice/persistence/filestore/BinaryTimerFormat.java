@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+
+/**
+ * The binary representation of a timer stored in a {@link TimerJournal}. It holds the same information as the XML
+ * representation written by {@link EjbTimerXmlPersister}, without the cost of building and parsing a document.
+ * The timer info and primary key are marshalled just like in the XML representation.
+ */
+public class BinaryTimerFormat {
+
+    private static final byte TIMER = 1;
+    private static final byte CALENDAR_TIMER = 2;
+
+    private final MarshallerFactory factory;
+    private final MarshallingConfiguration configuration;
+
+    public BinaryTimerFormat(MarshallerFactory factory, MarshallingConfiguration configuration) {
+        this.factory = factory;
+        this.configuration = configuration;
+    }
+
+    public byte[] write(final TimerImpl timer) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final boolean calendar = timer instanceof CalendarTimer;
+        out.writeByte(calendar ? CALENDAR_TIMER : TIMER);
+        out.writeUTF(timer.getState().name());
+        writeDate(out, timer.getInitialExpiration());
+        writeDate(out, timer.getNextExpiration());
+        writeDate(out, timer.getPreviousRun());
+        writeObject(out, timer.getTimerInfo());
+        writeObject(out, timer.getPrimaryKey());
+        if (calendar) {
+            final CalendarTimer calendarTimer = (CalendarTimer) timer;
+            final ScheduleExpression schedule = calendarTimer.getScheduleExpression();
+            out.writeUTF(schedule.getSecond());
+            out.writeUTF(schedule.getMinute());
+            out.writeUTF(schedule.getHour());
+            out.writeUTF(schedule.getDayOfWeek());
+            out.writeUTF(schedule.getDayOfMonth());
+            out.writeUTF(schedule.getMonth());
+            out.writeUTF(schedule.getYear());
+            writeDate(out, schedule.getStart());
+            writeDate(out, schedule.getEnd());
+            writeString(out, schedule.getTimezone());
+            out.writeBoolean(calendarTimer.isAutoTimer());
+            if (calendarTimer.isAutoTimer()) {
+                final Method method = calendarTimer.getTimeoutMethod();
+                out.writeUTF(method.getDeclaringClass().getName());
+                out.writeUTF(method.getName());
+                final Class<?>[] parameters = method.getParameterTypes();
+                out.writeByte(parameters.length);
+                for (Class<?> parameter : parameters) {
+                    out.writeUTF(parameter.getName());
+                }
+            }
+        } else {
+            out.writeLong(timer.getInterval());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a timer.
+     *
+     * @return the timer, or null if it could not be restored
+     */
+    public TimerImpl read(final String timedObjectId, final String id, final byte[] state, final TimerServiceImpl timerService, final ClassLoader classLoader) {
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+            final byte type = in.readByte();
+            final TimerImpl.Builder builder = (type == CALENDAR_TIMER) ? CalendarTimer.builder() : TimerImpl.builder();
+            builder.setId(id)
+                    .setTimedObjectId(timedObjectId)
+                    .setTimerState(TimerState.valueOf(in.readUTF()))
+                    .setInitialDate(readDate(in))
+                    .setNextDate(readDate(in))
+                    .setPreviousRun(readDate(in))
+                    .setInfo((Serializable) readObject(in))
+                    .setPrimaryKey(readObject(in))
+                    .setPersistent(true);
+            if (type == CALENDAR_TIMER) {
+                final CalendarTimer.Builder calendarBuilder = (CalendarTimer.Builder) builder;
+                calendarBuilder.setScheduleExprSecond(in.readUTF())
+                        .setScheduleExprMinute(in.readUTF())
+                        .setScheduleExprHour(in.readUTF())
+                        .setScheduleExprDayOfWeek(in.readUTF())
+                        .setScheduleExprDayOfMonth(in.readUTF())
+                        .setScheduleExprMonth(in.readUTF())
+                        .setScheduleExprYear(in.readUTF())
+                        .setScheduleExprStartDate(readDate(in))
+                        .setScheduleExprEndDate(readDate(in))
+                        .setScheduleExprTimezone(readString(in));
+                final boolean autoTimer = in.readBoolean();
+                calendarBuilder.setAutoTimer(autoTimer);
+                if (autoTimer) {
+                    final String className = in.readUTF();
+                    final String methodName = in.readUTF();
+                    final String[] parameters = new String[in.readByte()];
+                    for (int i = 0; i < parameters.length; ++i) {
+                        parameters[i] = in.readUTF();
+                    }
+                    final Method timeoutMethod = CalendarTimer.getTimeoutMethod(new TimeoutMethod(className, methodName, parameters), classLoader);
+                    if (timeoutMethod == null) {
+                        EjbLogger.ROOT_LOGGER.timerReinstatementFailed(timedObjectId, id, null);
+                        return null;
+                    }
+                    calendarBuilder.setTimeoutMethod(timeoutMethod);
+                }
+            } else {
+                builder.setRepeatInterval(in.readLong());
+            }
+            return builder.build(timerService);
+        } catch (Exception e) {
+            EjbLogger.ROOT_LOGGER.timerReinstatementFailed(timedObjectId, id, e);
+            return null;
+        }
+    }
+
+    private static void writeDate(final DataOutputStream out, final Date date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.getTime());
+    }
+
+    private static Date readDate(final DataInputStream in) throws IOException {
+        final long time = in.readLong();
+        return time == Long.MIN_VALUE ? null : new Date(time);
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void writeObject(final DataOutputStream out, final Object object) throws IOException {
+        if (object == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(new OutputStreamByteOutput(bytes));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        marshaller.flush();
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private Object readObject(final DataInputStream in) throws IOException, ClassNotFoundException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] data = new byte[length];
+        in.readFully(data);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(new ByteBufferInput(ByteBuffer.wrap(data)));
+        try {
+            return unmarshaller.readObject();
+        } finally {
+            unmarshaller.close();
+        }
+    }
+}
@@ -48,19 +48,16 @@ import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FilePermission;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +72,9 @@ import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 /**
  * File based persistent timer store.
  * <p/>
+ * The timers of each timed object are kept in a {@link TimerJournal} in a directory of their own. Timers stored as
+ * one XML file per timer by previous versions are moved into the journal the first time the timed object is loaded.
+ * <p/>
  * TODO: this is fairly hackey at the moment, it should be registered as an XA resource to support proper XA semantics
  *
  * @author Stuart Douglas
@@ -98,6 +98,8 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
     private final ConcurrentMap<String, String> directories = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, TimerStore> stores = new ConcurrentHashMap<String, TimerStore>();
+    private BinaryTimerFormat format;
 
     public FileTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
         final SecurityManager sm = System.getSecurityManager();
@@ -130,6 +132,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
         this.configuration = configuration;
         this.factory = factory;
+        this.format = new BinaryTimerFormat(factory, configuration);
         if (pathRelativeTo != null) {
             callbackHandle = pathManager.getValue().registerCallback(pathRelativeTo, PathManager.ReloadServerCallback.create(), PathManager.Event.UPDATED, PathManager.Event.REMOVED);
         }
@@ -150,6 +153,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     @Override
     public void stop(final StopContext context) {
+        for (TimerStore store : stores.values()) {
+            store.close();
+        }
+        stores.clear();
         locks.clear();
         directories.clear();
         if (callbackHandle != null) {
@@ -157,6 +164,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         }
         factory = null;
         configuration = null;
+        format = null;
     }
 
     @Override
@@ -251,6 +259,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         final Lock lock = getLock(timedObjectId);
         try {
             lock.lock();
+            final TimerStore store = stores.remove(timedObjectId);
+            if (store != null) {
+                store.close();
+            }
             locks.remove(timedObjectId);
             directories.remove(timedObjectId);
         } finally {
@@ -331,53 +343,77 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
      * @return The timers for the object
      */
     private Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
-        return loadTimersFromFile(timedObjectId, timerService);
+        return getStore(timedObjectId, timerService).timers;
     }
 
-    private Map<String, TimerImpl> loadTimersFromFile(String timedObjectId, TimerServiceImpl timerService) {
-        Map<String, TimerImpl> timers = new HashMap<>();
-        String directory = getDirectory(timedObjectId);
-
-        timers.putAll(LegacyFileStore.loadTimersFromFile(timedObjectId, timerService, directory, factory, configuration));
-        for(Map.Entry<String, TimerImpl> entry : timers.entrySet()) {
-            writeFile(entry.getValue()); //write legacy timers into the new format
-            //the legacy code handling code will write a marker file, to make sure that the old timers will not be loaded on next restart.
+    private TimerStore getStore(final String timedObjectId, final TimerServiceImpl timerService) {
+        TimerStore store = stores.get(timedObjectId);
+        if (store == null) {
+            store = loadTimersFromFile(timedObjectId, timerService);
+            stores.put(timedObjectId, store);
         }
+        return store;
+    }
+
+    private TimerStore loadTimersFromFile(String timedObjectId, TimerServiceImpl timerService) {
+        final Map<String, TimerImpl> timers = new HashMap<>();
+        final String directory = getDirectory(timedObjectId);
         final File file = new File(directory);
-        if (!file.exists()) {
-            //no timers exist yet
-            return timers;
-        } else if (!file.isDirectory()) {
+        if (!file.isDirectory()) {
             ROOT_LOGGER.failToRestoreTimers(file);
-            return timers;
+            return new TimerStore(null, timers);
         }
 
-        final XMLMapper mapper = createMapper(timerService);
+        final TimerJournal journal = new TimerJournal(file);
+        try {
+            final ClassLoader classLoader = timerService.getTimedObjectInvoker().getValue().getClassLoader();
+            for (Map.Entry<String, byte[]> entry : journal.open().entrySet()) {
+                final TimerImpl timer = format.read(timedObjectId, entry.getKey(), entry.getValue(), timerService, classLoader);
+                if (timer != null) {
+                    timers.put(timer.getId(), timer);
+                }
+            }
+
+            //the legacy code handling code will write a marker file, to make sure that the old timers will not be loaded on next restart.
+            for (TimerImpl timer : LegacyFileStore.loadTimersFromFile(timedObjectId, timerService, directory, factory, configuration).values()) {
+                timers.put(timer.getId(), timer);
+                journal.put(timer.getId(), format.write(timer));
+            }
+
+            migrateXmlFiles(file, timerService, journal, timers);
+        } catch (Exception e) {
+            safeClose(journal);
+            ROOT_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+            return new TimerStore(null, timers);
+        }
+        return new TimerStore(journal, timers);
+    }
 
-        for (File timerFile : file.listFiles()) {
+    /**
+     * Moves the timers stored as one XML file per timer into the journal, deleting the files once their timers
+     * are forced to disk.
+     */
+    private void migrateXmlFiles(final File directory, final TimerServiceImpl timerService, final TimerJournal journal, final Map<String, TimerImpl> timers) throws IOException {
+        final XMLMapper mapper = createMapper(timerService);
+        int migrated = 0;
+        final List<File> migratedFiles = new ArrayList<>();
+        for (File timerFile : directory.listFiles()) {
             if (!timerFile.getName().endsWith(".xml")) {
                 continue;
             }
             FileInputStream in = null;
-
+            List<TimerImpl> timerList = null;
             try {
                 in = new FileInputStream(timerFile);
                 final XMLInputFactory inputFactory = INPUT_FACTORY;
                 setIfSupported(inputFactory, XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
                 setIfSupported(inputFactory, XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
                 final XMLStreamReader streamReader = inputFactory.createXMLStreamReader(in);
-                try {
-                    List<TimerImpl> timerList = new ArrayList<>();
-                    mapper.parseDocument(timerList, streamReader);
-                    for (TimerImpl timer : timerList) {
-                        timers.put(timer.getId(), timer);
-                    }
-                } finally {
-                    safeClose(in);
-                }
-
+                timerList = new ArrayList<>();
+                mapper.parseDocument(timerList, streamReader);
             } catch (Exception e) {
                 ROOT_LOGGER.failToRestoreTimersFromFile(timerFile, e);
+                continue;
             } finally {
                 if (in != null) {
                     try {
@@ -387,8 +423,23 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
                     }
                 }
             }
+            for (TimerImpl timer : timerList) {
+                timers.put(timer.getId(), timer);
+                journal.put(timer.getId(), format.write(timer));
+                migrated++;
+            }
+            migratedFiles.add(timerFile);
+        }
+        if (!migratedFiles.isEmpty()) {
+            // The XML files are the only durable copy of these timers until the journal reaches the disk
+            journal.force();
+            for (File timerFile : migratedFiles) {
+                timerFile.delete();
+            }
+        }
+        if (migrated > 0) {
+            ROOT_LOGGER.migratedTimersToJournal(migrated, directory);
         }
-        return timers;
     }
 
     private XMLMapper createMapper(TimerServiceImpl timerService) {
@@ -397,11 +448,6 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         return mapper;
     }
 
-
-    private File fileName(String timedObjectId, String timerId) {
-        return new File(getDirectory(timedObjectId) + File.separator + timerId.replace(File.separator, "-") + ".xml");
-    }
-
     /**
      * Gets the directory for a given timed object, making sure it exists.
      *
@@ -480,33 +526,40 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
     }
 
     private void writeFile(TimerImpl timer) {
-        final File file = fileName(timer.getTimedObjectId(), timer.getId());
-
-        //if the timer is expired or cancelled delete the file
-        if (timer.getState() == TimerState.CANCELED ||
-                timer.getState() == TimerState.EXPIRED) {
-            if (file.exists()) {
-                file.delete();
-            }
-            return;
+        final TimerStore store = getStore(timer.getTimedObjectId(), timer.getTimerService());
+        if (store.journal == null) {
+            throw EjbLogger.ROOT_LOGGER.invalidTimerFileStoreDir(new File(getDirectory(timer.getTimedObjectId())));
         }
         try {
-            FileOutputStream out = new FileOutputStream(file);
-
-            try {
-                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
-                XMLMapper mapper = createMapper(timer.getTimerService());
-                mapper.deparseDocument(new EjbTimerXmlPersister(factory, configuration), Collections.singletonList(timer), writer);
-                writer.flush();
-                writer.close();
-            } finally {
-                safeClose(out);
+            //if the timer is expired or cancelled remove it from the journal
+            if (timer.getState() == TimerState.CANCELED ||
+                    timer.getState() == TimerState.EXPIRED) {
+                store.journal.remove(timer.getId());
+            } else {
+                store.journal.put(timer.getId(), format.write(timer));
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * The journal of a timed object, and the timers loaded from it.
+     */
+    private static final class TimerStore {
+        final TimerJournal journal;
+        final Map<String, TimerImpl> timers;
+
+        TimerStore(final TimerJournal journal, final Map<String, TimerImpl> timers) {
+            this.journal = journal;
+            this.timers = timers;
+        }
+
+        void close() {
+            safeClose(journal);
+        }
+    }
+
     public InjectedValue<TransactionManager> getTransactionManager() {
         return transactionManager;
     }
@@ -0,0 +1,293 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal holding the persistent timers of a single timed object.
+ * <p/>
+ * Every change to a timer appends a record to the journal, instead of rewriting a file per timer. A record holds
+ * either the full binary state of a timer, or the removal of a timer. Replaying the journal on startup gives the
+ * latest state of every live timer. An index of the position of the latest record of every live timer is kept in
+ * memory, so that the journal can be compacted, by copying only the live records to a new file, once the superseded
+ * records outnumber the live ones.
+ * <p/>
+ * Every record carries a CRC32 checksum. A record which was only partially written, e.g. because the server crashed,
+ * ends the replay, and is cut off the journal.
+ * <p/>
+ * The journal itself only deals with timer ids and opaque timer state, see {@link BinaryTimerFormat} for the latter.
+ * This class is not thread safe, callers are expected to hold the lock of the timed object.
+ */
+public class TimerJournal implements Closeable {
+
+    public static final String FILE_NAME = "timers.journal";
+
+    /** "EJBT" */
+    private static final int MAGIC = 0x454A4254;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    /** length and checksum */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * The minimum number of superseded records before the journal is compacted.
+     */
+    private static final int MIN_COMPACTION_GARBAGE = 1024;
+
+    private final File file;
+    /** Position and total size of the latest record of each live timer */
+    private final Map<String, long[]> index = new HashMap<String, long[]>();
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long records;
+
+    public TimerJournal(final File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Opens the journal, creating it if it does not exist, and replays it.
+     *
+     * @return the latest state of every live timer, by timer id
+     */
+    public Map<String, byte[]> open() throws IOException {
+        final Map<String, byte[]> timers = new LinkedHashMap<String, byte[]>();
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader(channel);
+            return timers;
+        }
+        long position = HEADER_SIZE;
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 64 * 1024));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw ROOT_LOGGER.invalidTimerJournal(file);
+        }
+        final CRC32 crc = new CRC32();
+        final long size = channel.size();
+        while (position + RECORD_HEADER_SIZE <= size) {
+            final int length = in.readInt();
+            final int checksum = in.readInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            final byte[] body = new byte[length];
+            try {
+                in.readFully(body);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            final DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+            final byte type = record.readByte();
+            final String id = record.readUTF();
+            if (type == PUT) {
+                final byte[] state = new byte[record.available()];
+                record.readFully(state);
+                timers.put(id, state);
+                index.put(id, new long[] {position, RECORD_HEADER_SIZE + length});
+            } else {
+                timers.remove(id);
+                index.remove(id);
+            }
+            records++;
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (position < size) {
+            ROOT_LOGGER.timerJournalTruncated(file, position, size - position);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        compactIfNeeded();
+        return timers;
+    }
+
+    /**
+     * Appends the state of a timer.
+     */
+    public void put(final String id, final byte[] state) throws IOException {
+        final long position = channel.position();
+        final int size = append(PUT, id, state);
+        index.put(id, new long[] {position, size});
+        compactIfNeeded();
+    }
+
+    /**
+     * Appends the removal of a timer, if the journal holds it.
+     */
+    public void remove(final String id) throws IOException {
+        if (index.remove(id) != null) {
+            append(REMOVE, id, null);
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Forces all records appended so far to the storage device.
+     */
+    public void force() throws IOException {
+        channel.force(true);
+    }
+
+    public boolean contains(final String id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * @return the number of live timers
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the number of records in the journal, including superseded ones
+     */
+    long getRecordCount() {
+        return records;
+    }
+
+    private int append(final byte type, final String id, final byte[] state) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_SIZE + 64 + (state == null ? 0 : state.length));
+        final DataOutputStream out = new DataOutputStream(bytes);
+        // placeholders for length and checksum
+        out.writeLong(0);
+        out.writeByte(type);
+        out.writeUTF(id);
+        if (state != null) {
+            out.write(state);
+        }
+        out.flush();
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        final int length = buffer.capacity() - RECORD_HEADER_SIZE;
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        records++;
+        return buffer.capacity();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        final long garbage = records - index.size();
+        if (garbage >= MIN_COMPACTION_GARBAGE && garbage > index.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the journal so that it only holds the latest record of every live timer.
+     */
+    void compact() throws IOException {
+        final File compacted = new File(file.getParentFile(), FILE_NAME + ".compact");
+        final Map<String, long[]> newIndex = new HashMap<String, long[]>();
+        try (RandomAccessFile target = new RandomAccessFile(compacted, "rw")) {
+            final FileChannel targetChannel = target.getChannel();
+            targetChannel.truncate(0);
+            writeHeader(targetChannel);
+            for (Map.Entry<String, long[]> entry : index.entrySet()) {
+                final long position = entry.getValue()[0];
+                final long size = entry.getValue()[1];
+                final long newPosition = targetChannel.position();
+                long transferred = 0;
+                while (transferred < size) {
+                    transferred += channel.transferTo(position + transferred, size - transferred, targetChannel);
+                }
+                newIndex.put(entry.getKey(), new long[] {newPosition, size});
+            }
+            targetChannel.force(true);
+        }
+        close();
+        boolean moved = false;
+        try {
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            // If the move failed, this reopens the original journal, whose index is still valid
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            channel.position(channel.size());
+            if (!moved) {
+                compacted.delete();
+            }
+        }
+        index.clear();
+        index.putAll(newIndex);
+        records = index.size();
+    }
+
+    private static void writeHeader(final FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            try {
+                raf.close();
+            } finally {
+                raf = null;
+                channel = null;
+            }
+        }
+    }
+}
@@ -25,7 +25,11 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.ejb.ScheduleExpression;
 
@@ -50,6 +54,18 @@ import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
  */
 public class CalendarBasedTimeout {
 
+    /**
+     * Maximum number of parsed schedules kept in {@link #PARSED_SCHEDULES}
+     */
+    static final int MAX_PARSED_SCHEDULES = 1024;
+
+    /**
+     * Parsed schedule attributes, by the values of the second, minute, hour, day-of-week, day-of-month, month and year
+     * attributes of the {@link javax.ejb.ScheduleExpression}. The parsed attributes are immutable, so all timeouts
+     * created from identical schedules, e.g. the same {@link javax.ejb.Schedule} on many beans, share them.
+     * Lookups do not lock, since every timer creation, and every restored calendar timer, goes through here.
+     */
+    static final ConcurrentMap<List<String>, ParsedSchedule> PARSED_SCHEDULES = new ConcurrentHashMap<List<String>, ParsedSchedule>();
 
     /**
      * The {@link javax.ejb.ScheduleExpression} from which this {@link CalendarBasedTimeout}
@@ -127,13 +143,14 @@ public class CalendarBasedTimeout {
         this.scheduleExpression = this.clone(schedule);
 
         // Start parsing the values in the ScheduleExpression
-        this.second = new Second(schedule.getSecond());
-        this.minute = new Minute(schedule.getMinute());
-        this.hour = new Hour(schedule.getHour());
-        this.dayOfWeek = new DayOfWeek(schedule.getDayOfWeek());
-        this.dayOfMonth = new DayOfMonth(schedule.getDayOfMonth());
-        this.month = new Month(schedule.getMonth());
-        this.year = new Year(schedule.getYear());
+        ParsedSchedule parsed = parse(schedule);
+        this.second = parsed.second;
+        this.minute = parsed.minute;
+        this.hour = parsed.hour;
+        this.dayOfWeek = parsed.dayOfWeek;
+        this.dayOfMonth = parsed.dayOfMonth;
+        this.month = parsed.month;
+        this.year = parsed.year;
         if (schedule.getTimezone() != null && schedule.getTimezone().trim().isEmpty() == false) {
             // If the timezone ID wasn't valid, then Timezone.getTimeZone returns
             // GMT, which may not always be desirable.
@@ -159,6 +176,27 @@ public class CalendarBasedTimeout {
         setFirstTimeout();
         }
 
+    static ParsedSchedule parse(ScheduleExpression schedule) {
+        List<String> key = Arrays.asList(schedule.getSecond(), schedule.getMinute(), schedule.getHour(),
+                schedule.getDayOfWeek(), schedule.getDayOfMonth(), schedule.getMonth(), schedule.getYear());
+        ParsedSchedule parsed = PARSED_SCHEDULES.get(key);
+        if (parsed == null) {
+            parsed = new ParsedSchedule(schedule);
+            ParsedSchedule existing = PARSED_SCHEDULES.putIfAbsent(key, parsed);
+            if (existing != null) {
+                return existing;
+            }
+            // Keep the cache bounded by evicting other schedules, which are simply parsed again if needed
+            Iterator<List<String>> keys = PARSED_SCHEDULES.keySet().iterator();
+            while ((PARSED_SCHEDULES.size() > MAX_PARSED_SCHEDULES) && keys.hasNext()) {
+                if (!keys.next().equals(key)) {
+                    keys.remove();
+                }
+            }
+        }
+        return parsed;
+    }
+
     public Calendar getNextTimeout() {
         return getNextTimeout(new GregorianCalendar(this.timezone), true);
     }
@@ -577,4 +615,28 @@ public class CalendarBasedTimeout {
         calendar.set(Calendar.SECOND, second);
     }
 
+    /**
+     * The attributes parsed out of a {@link javax.ejb.ScheduleExpression}, each of which holds its eligible values
+     * as a bit set.
+     */
+    static final class ParsedSchedule {
+        final Second second;
+        final Minute minute;
+        final Hour hour;
+        final DayOfWeek dayOfWeek;
+        final DayOfMonth dayOfMonth;
+        final Month month;
+        final Year year;
+
+        ParsedSchedule(ScheduleExpression schedule) {
+            this.second = new Second(schedule.getSecond());
+            this.minute = new Minute(schedule.getMinute());
+            this.hour = new Hour(schedule.getHour());
+            this.dayOfWeek = new DayOfWeek(schedule.getDayOfWeek());
+            this.dayOfMonth = new DayOfMonth(schedule.getDayOfMonth());
+            this.month = new Month(schedule.getMonth());
+            this.year = new Year(schedule.getYear());
+        }
+    }
+
 }
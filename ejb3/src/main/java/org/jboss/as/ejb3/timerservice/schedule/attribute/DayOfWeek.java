@@ -23,6 +23,7 @@ package org.jboss.as.ejb3.timerservice.schedule.attribute;
 
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Locale;
@@ -59,6 +60,8 @@ public class DayOfWeek extends IntegerBasedExpression {
 
     private SortedSet<Integer> offsetAdjustedDaysOfWeek = new TreeSet<Integer>();
 
+    private final BitSet eligibleDaysOfWeek;
+
     public DayOfWeek(String value) {
         super(value);
         for (Integer dayOfWeek : this.absoluteValues) {
@@ -74,6 +77,7 @@ public class DayOfWeek extends IntegerBasedExpression {
         } else {
             this.offsetAdjustedDaysOfWeek = this.absoluteValues;
         }
+        this.eligibleDaysOfWeek = toBitSet(this.offsetAdjustedDaysOfWeek);
     }
 
 
@@ -138,15 +142,6 @@ public class DayOfWeek extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentCal.get(Calendar.DAY_OF_WEEK);
         }
-        int currentDayOfWeek = currentCal.get(Calendar.DAY_OF_WEEK);
-        for (Integer dayOfWeek : this.offsetAdjustedDaysOfWeek) {
-            if (currentDayOfWeek == dayOfWeek) {
-                return currentDayOfWeek;
-            }
-            if (dayOfWeek > currentDayOfWeek) {
-                return dayOfWeek;
-            }
-        }
-        return this.offsetAdjustedDaysOfWeek.first();
+        return getNextMatch(this.eligibleDaysOfWeek, currentCal.get(Calendar.DAY_OF_WEEK));
     }
 }
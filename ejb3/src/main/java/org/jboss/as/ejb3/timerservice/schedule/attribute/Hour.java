@@ -21,6 +21,8 @@
  */
 package org.jboss.as.ejb3.timerservice.schedule.attribute;
 
+import java.util.BitSet;
+
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
 /**
@@ -53,6 +55,8 @@ public class Hour extends IntegerBasedExpression {
      */
     public static final Integer MIN_HOUR = 0;
 
+    private final BitSet eligibleHours;
+
     /**
      * Creates a {@link Hour} by parsing the passed {@link String} <code>value</code>
      * <p>
@@ -68,6 +72,7 @@ public class Hour extends IntegerBasedExpression {
      */
     public Hour(String value) {
         super(value);
+        this.eligibleHours = toBitSet(this.absoluteValues);
     }
 
     public int getFirst() {
@@ -121,18 +126,7 @@ public class Hour extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentHour;
         }
-        if (this.absoluteValues.isEmpty()) {
-            return null;
-        }
-        for (Integer hour : this.absoluteValues) {
-            if (currentHour == hour) {
-                return currentHour;
-            }
-            if (hour > currentHour) {
-                return hour;
-            }
-        }
-        return this.absoluteValues.first();
+        return getNextMatch(this.eligibleHours, currentHour);
     }
 
 }
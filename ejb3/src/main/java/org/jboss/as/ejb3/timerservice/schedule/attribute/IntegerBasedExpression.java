@@ -30,6 +30,7 @@ import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleValue;
 import org.jboss.as.ejb3.timerservice.schedule.value.SingleValue;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.SortedSet;
@@ -213,4 +214,30 @@ public abstract class IntegerBasedExpression {
 
     public abstract boolean isRelativeValue(String value);
 
+    /**
+     * Compiles the passed values into a bit set, in which the bit of every value is set, so that
+     * {@link #getNextMatch(java.util.BitSet, int)} does not have to walk the values.
+     */
+    protected static BitSet toBitSet(SortedSet<Integer> values) {
+        BitSet bits = new BitSet(values.isEmpty() ? 0 : values.last() + 1);
+        for (Integer value : values) {
+            bits.set(value);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the passed <code>value</code> if its bit is set, otherwise the next higher value whose bit is set,
+     * wrapping around to the lowest value whose bit is set.
+     *
+     * @return the next match, or null if no bit is set
+     */
+    protected static Integer getNextMatch(BitSet bits, int value) {
+        int next = bits.nextSetBit(value);
+        if (next < 0) {
+            next = bits.nextSetBit(0);
+        }
+        return next < 0 ? null : next;
+    }
+
 }
@@ -24,6 +24,7 @@ package org.jboss.as.ejb3.timerservice.schedule.attribute;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
+import java.util.BitSet;
 import java.util.SortedSet;
 
 /**
@@ -57,6 +58,8 @@ public class Minute extends IntegerBasedExpression {
      */
     public static final Integer MIN_MINUTE = 0;
 
+    private final BitSet eligibleMinutes;
+
     /**
      * Creates a {@link Minute} by parsing the passed {@link String} <code>value</code>
      * <p>
@@ -72,6 +75,7 @@ public class Minute extends IntegerBasedExpression {
      */
     public Minute(String value) {
         super(value);
+        this.eligibleMinutes = toBitSet(this.absoluteValues);
     }
 
     public int getFirst() {
@@ -134,19 +138,7 @@ public class Minute extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentMinute;
         }
-        if (this.absoluteValues.isEmpty()) {
-            return null;
-        }
-
-        for (Integer minute : this.absoluteValues) {
-            if (currentMinute == minute) {
-                return currentMinute;
-            }
-            if (minute > currentMinute) {
-                return minute;
-            }
-        }
-        return this.absoluteValues.first();
+        return getNextMatch(this.eligibleMinutes, currentMinute);
     }
 
 }
@@ -24,6 +24,7 @@ package org.jboss.as.ejb3.timerservice.schedule.attribute;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Locale;
@@ -65,6 +66,8 @@ public class Month extends IntegerBasedExpression {
 
     private SortedSet<Integer> offsetAdjustedMonths = new TreeSet<Integer>();
 
+    private final BitSet eligibleMonths;
+
     public Month(String value) {
         super(value);
         if (OFFSET != 0) {
@@ -74,6 +77,7 @@ public class Month extends IntegerBasedExpression {
         } else {
             this.offsetAdjustedMonths = this.absoluteValues;
         }
+        this.eligibleMonths = toBitSet(this.offsetAdjustedMonths);
     }
 
     @Override
@@ -124,19 +128,7 @@ public class Month extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentCal.get(Calendar.MONTH);
         }
-        if (this.offsetAdjustedMonths.isEmpty()) {
-            return null;
-        }
-        int currentMonth = currentCal.get(Calendar.MONTH);
-        for (Integer month : this.offsetAdjustedMonths) {
-            if (currentMonth == month) {
-                return currentMonth;
-            }
-            if (month > currentMonth) {
-                return month;
-            }
-        }
-        return this.offsetAdjustedMonths.first();
+        return getNextMatch(this.eligibleMonths, currentCal.get(Calendar.MONTH));
     }
 
     public Integer getFirstMatch() {
@@ -21,6 +21,8 @@
  */
 package org.jboss.as.ejb3.timerservice.schedule.attribute;
 
+import java.util.BitSet;
+
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
@@ -55,6 +57,8 @@ public class Second extends IntegerBasedExpression {
      */
     public static final Integer MIN_SECOND = 0;
 
+    private final BitSet eligibleSeconds;
+
     /**
      * Creates a {@link Second} by parsing the passed {@link String} <code>value</code>
      * <p>
@@ -70,24 +74,14 @@ public class Second extends IntegerBasedExpression {
      */
     public Second(String value) {
         super(value);
+        this.eligibleSeconds = toBitSet(this.absoluteValues);
     }
 
     public Integer getNextMatch(int currentSecond) {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentSecond;
         }
-        if (this.absoluteValues.isEmpty()) {
-            return null;
-        }
-        for (Integer second : this.absoluteValues) {
-            if (currentSecond == second) {
-                return currentSecond;
-            }
-            if (second > currentSecond) {
-                return second;
-            }
-        }
-        return this.absoluteValues.first();
+        return getNextMatch(this.eligibleSeconds, currentSecond);
     }
 
     public int getFirst() {
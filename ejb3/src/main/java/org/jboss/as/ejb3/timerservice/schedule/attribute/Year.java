@@ -23,6 +23,7 @@ package org.jboss.as.ejb3.timerservice.schedule.attribute;
 
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 
+import java.util.BitSet;
 import java.util.Calendar;
 
 /**
@@ -55,6 +56,8 @@ public class Year extends IntegerBasedExpression {
     // That's the reason we have set it to 1000 here.
     public static final Integer MIN_YEAR = 1000;
 
+    private final BitSet eligibleYears;
+
 
     /**
      * Creates a {@link Year} by parsing the passed {@link String} <code>value</code>
@@ -70,6 +73,7 @@ public class Year extends IntegerBasedExpression {
      */
     public Year(String value) {
         super(value);
+        this.eligibleYears = toBitSet(this.absoluteValues);
     }
 
     /**
@@ -117,18 +121,6 @@ public class Year extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentCal.get(Calendar.YEAR);
         }
-        if (this.absoluteValues.isEmpty()) {
-            return null;
-        }
-        int currentYear = currentCal.get(Calendar.YEAR);
-        for (Integer year : this.absoluteValues) {
-            if (currentYear == year) {
-                return currentYear;
-            }
-            if (year > currentYear) {
-                return year;
-            }
-        }
-        return this.absoluteValues.first();
+        return getNextMatch(this.eligibleYears, currentCal.get(Calendar.YEAR));
     }
 }
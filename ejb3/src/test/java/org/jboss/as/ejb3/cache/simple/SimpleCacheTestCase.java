@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
+import org.jboss.as.server.ServerEnvironment;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.ejb.IdentifierFactory;
+import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.MarshallingContext;
+import org.wildfly.clustering.marshalling.SimpleMarshallingContextFactory;
+import org.wildfly.clustering.marshalling.VersionedMarshallingConfiguration;
+
+/**
+ * Tests the expiration of beans in a {@link SimpleCache}.
+ */
+public class SimpleCacheTestCase {
+
+    private final StatefulObjectFactory<Bean> factory = mock(StatefulObjectFactory.class);
+    private final IdentifierFactory<UUID> identifierFactory = mock(IdentifierFactory.class);
+    private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+
+    @Before
+    public void setUp() {
+        when(this.factory.createInstance()).thenReturn(new Bean(UUID.randomUUID()), new Bean(UUID.randomUUID()));
+    }
+
+    @Test
+    public void sweep() throws InterruptedException {
+        SimpleCache<UUID, Bean> cache = new SimpleCache<>(this.factory, this.identifierFactory, new StatefulTimeoutInfo(100, TimeUnit.MILLISECONDS), mock(ServerEnvironment.class), this.executor);
+        cache.start();
+        ArgumentCaptor<Runnable> sweep = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.executor).scheduleWithFixedDelay(sweep.capture(), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        Bean idle = cache.create();
+        Bean busy = cache.create();
+        assertSame(idle, cache.get(idle.getId()));
+        cache.release(idle);
+        assertSame(busy, cache.get(busy.getId()));
+        Thread.sleep(150);
+
+        sweep.getValue().run();
+
+        // Only the released bean expires
+        verify(this.factory).destroyInstance(idle);
+        verify(this.factory, never()).destroyInstance(busy);
+        assertNull(cache.get(idle.getId()));
+        assertEquals(1, cache.getCacheSize());
+
+        // A bean used again after its release restarts its timeout
+        cache.release(busy);
+        assertSame(busy, cache.get(busy.getId()));
+        cache.release(busy);
+        sweep.getValue().run();
+        verify(this.factory, never()).destroyInstance(busy);
+        assertEquals(1, cache.getCacheSize());
+    }
+
+    @Test
+    public void noTimeout() {
+        SimpleCache<UUID, Bean> cache = new SimpleCache<>(this.factory, this.identifierFactory, null, mock(ServerEnvironment.class), this.executor);
+        cache.start();
+        verify(this.executor, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+
+        Bean bean = cache.create();
+        cache.get(bean.getId());
+        cache.release(bean);
+        assertSame(bean, cache.get(bean.getId()));
+    }
+
+    @Test
+    public void zeroTimeout() {
+        SimpleCache<UUID, Bean> cache = new SimpleCache<>(this.factory, this.identifierFactory, new StatefulTimeoutInfo(0, TimeUnit.MILLISECONDS), mock(ServerEnvironment.class), this.executor);
+        cache.start();
+
+        Bean bean = cache.create();
+        cache.get(bean.getId());
+        cache.release(bean);
+        verify(this.factory).destroyInstance(bean);
+        assertNull(cache.get(bean.getId()));
+    }
+
+    @Test
+    public void passivation() throws IOException {
+        File directory = Files.createTempDirectory("passivation").toFile();
+        VersionedMarshallingConfiguration configuration = mock(VersionedMarshallingConfiguration.class);
+        when(configuration.getCurrentMarshallingVersion()).thenReturn(1);
+        when(configuration.getMarshallingConfiguration(1)).thenReturn(new MarshallingConfiguration());
+        MarshallingContext context = new SimpleMarshallingContextFactory().createMarshallingContext(configuration, Bean.class.getClassLoader());
+        StatefulObjectFactory<Bean> factory = new StatefulObjectFactory<Bean>() {
+            @Override
+            public Bean createInstance() {
+                return new Bean(UUID.randomUUID());
+            }
+
+            @Override
+            public void destroyInstance(Bean instance) {
+            }
+        };
+        PassivationListener<Bean> listener = mock(PassivationListener.class);
+        SimpleCache<UUID, Bean> cache = new SimpleCache<>(factory, this.identifierFactory, null, mock(ServerEnvironment.class), this.executor, listener, 16, new FileBeanStore<Bean>(directory, "test", context));
+        cache.start();
+        try {
+            List<Bean> beans = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                Bean bean = cache.create();
+                cache.get(bean.getId());
+                cache.release(bean);
+                beans.add(bean);
+            }
+            assertEquals(16, cache.getCacheSize());
+            assertEquals(0, cache.getPassivatedCount());
+
+            // Exceeding the maximum size passivates the least recently used beans, with some headroom
+            Bean bean = cache.create();
+            assertEquals(15, cache.getCacheSize());
+            assertEquals(2, cache.getPassivatedCount());
+            assertEquals(17, cache.getTotalSize());
+            verify(listener).prePassivate(beans.get(0));
+            verify(listener).prePassivate(beans.get(1));
+
+            // A passivated bean is activated on its next lookup
+            Bean activated = cache.get(beans.get(0).getId());
+            assertEquals(beans.get(0).getId(), activated.getId());
+            assertNotSame(beans.get(0), activated);
+            verify(listener).postActivate(activated);
+            assertEquals(1, cache.getPassivatedCount());
+            assertEquals(16, cache.getCacheSize());
+            cache.release(activated);
+            cache.release(bean);
+
+            // Removing a passivated bean discards its file
+            cache.remove(beans.get(1).getId());
+            assertEquals(0, cache.getPassivatedCount());
+            assertNull(cache.get(beans.get(1).getId()));
+            assertEquals(17, cache.getHitCount());
+        } finally {
+            cache.stop();
+        }
+        assertEquals(0, directory.list().length);
+        directory.delete();
+    }
+
+    static class Bean implements Identifiable<UUID>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final UUID id;
+
+        Bean(UUID id) {
+            this.id = id;
+        }
+
+        @Override
+        public UUID getId() {
+            return this.id;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.entity.entitycache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.as.ejb3.component.entity.EntityBeanComponent;
+import org.jboss.as.ejb3.component.entity.EntityBeanComponentInstance;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests {@link ReferenceCountingEntityCache}.
+ */
+public class ReferenceCountingEntityCacheTestCase {
+
+    private static final int THREADS = 8;
+    private static final int KEYS = 16;
+    private static final int ITERATIONS = 2000;
+
+    private final EntityBeanComponent component = mock(EntityBeanComponent.class);
+    private final Queue<EntityBeanComponentInstance> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger acquired = new AtomicInteger();
+    private final AtomicInteger released = new AtomicInteger();
+    /** Invoked by the activation of an instance, after it got its primary key, e.g. to simulate ejbLoad */
+    private volatile Answer<Void> loader;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < THREADS * 2; ++i) {
+            pool.add(createInstance());
+        }
+        when(component.acquireUnAssociatedInstance()).thenAnswer(new Answer<EntityBeanComponentInstance>() {
+            @Override
+            public EntityBeanComponentInstance answer(InvocationOnMock invocation) {
+                acquired.incrementAndGet();
+                return pool.remove();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                released.incrementAndGet();
+                pool.add((EntityBeanComponentInstance) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(component).releaseEntityBeanInstance(any(EntityBeanComponentInstance.class));
+    }
+
+    @Test
+    public void getAndRelease() {
+        ReadyEntityCache cache = new ReferenceCountingEntityCache(component);
+        EntityBeanComponentInstance instance = cache.get("pk");
+        assertSame(instance, cache.get("pk"));
+        assertTrue(cache.contains("pk"));
+        assertTrue(cache.containsNotRemoved("pk"));
+
+        cache.release(instance, true);
+        assertTrue(cache.contains("pk"));
+        cache.release(instance, true);
+        assertFalse(cache.contains("pk"));
+        verify(instance).passivate();
+        verify(component, times(1)).releaseEntityBeanInstance(instance);
+    }
+
+    /**
+     * Every get is followed by a release from many threads at once, so every instance must be released to the pool
+     * exactly once, and the cache must be empty at the end.
+     */
+    @Test
+    public void concurrentAccess() throws Exception {
+        final ReadyEntityCache cache = new ReferenceCountingEntityCache(component);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; ++i) {
+                final int offset = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < ITERATIONS; ++j) {
+                            String key = "pk" + ((offset + j) % KEYS);
+                            EntityBeanComponentInstance instance = cache.get(key);
+                            assertEquals(key, instance.getPrimaryKey());
+                            cache.release(instance, true);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < KEYS; ++i) {
+            assertFalse(cache.contains("pk" + i));
+        }
+        assertEquals(acquired.get(), released.get());
+    }
+
+    /**
+     * ejbLoad may look up other entities. Two threads, one activating A which looks up B, and one activating B which
+     * looks up A, must not wait for each other.
+     */
+    @Test
+    public void activationLooksUpOtherEntity() throws Exception {
+        final ReadyEntityCache cache = new ReferenceCountingEntityCache(component);
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final Set<Object> loaded = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        final Map<Object, EntityBeanComponentInstance> related = new ConcurrentHashMap<>();
+        loader = new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Object key = invocation.getArguments()[0];
+                // only on the first activation of each entity, with both threads loading at the same time
+                if (loaded.add(key)) {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    related.put(key, cache.get(key.equals("A") ? "B" : "A"));
+                }
+                return null;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        EntityBeanComponentInstance a;
+        EntityBeanComponentInstance b;
+        try {
+            Future<EntityBeanComponentInstance> futureA = executor.submit(get(cache, "A"));
+            Future<EntityBeanComponentInstance> futureB = executor.submit(get(cache, "B"));
+            a = futureA.get(10, TimeUnit.SECONDS);
+            b = futureB.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("A", a.getPrimaryKey());
+        assertEquals("B", b.getPrimaryKey());
+        assertNotSame(a, b);
+        // every lookup of an entity got the one cached instance
+        assertSame(a, related.get("B"));
+        assertSame(b, related.get("A"));
+
+        for (EntityBeanComponentInstance instance : new EntityBeanComponentInstance[] { a, b, a, b }) {
+            cache.release(instance, true);
+        }
+        assertFalse(cache.contains("A"));
+        assertFalse(cache.contains("B"));
+        assertEquals(acquired.get(), released.get());
+    }
+
+    private static Callable<EntityBeanComponentInstance> get(final ReadyEntityCache cache, final Object key) {
+        return new Callable<EntityBeanComponentInstance>() {
+            @Override
+            public EntityBeanComponentInstance call() {
+                return cache.get(key);
+            }
+        };
+    }
+
+    private EntityBeanComponentInstance createInstance() {
+        final EntityBeanComponentInstance instance = mock(EntityBeanComponentInstance.class);
+        final AtomicReference<Object> primaryKey = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                primaryKey.set(invocation.getArguments()[0]);
+                Answer<Void> load = loader;
+                return (load != null) ? load.answer(invocation) : null;
+            }
+        }).when(instance).activate(any());
+        when(instance.getPrimaryKey()).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return primaryKey.get();
+            }
+        });
+        return instance;
+    }
+}
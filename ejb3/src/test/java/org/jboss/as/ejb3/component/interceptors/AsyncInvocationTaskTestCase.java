@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.ejb.AsyncResult;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link AsyncInvocationTask}.
+ */
+public class AsyncInvocationTaskTestCase {
+
+    @Test
+    public void result() throws Exception {
+        AsyncInvocationTask task = new ReturningTask(new CancellationFlag(), new AsyncResult<Object>("result"));
+        assertFalse(task.isDone());
+        task.run();
+        assertTrue(task.isDone());
+        assertFalse(task.isCancelled());
+        assertEquals("result", task.get());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        final Exception failure = new Exception();
+        AsyncInvocationTask task = new AsyncInvocationTask(new CancellationFlag()) {
+            @Override
+            protected Object runInvocation() throws Exception {
+                throw failure;
+            }
+        };
+        task.run();
+        try {
+            task.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        CancellationFlag flag = new CancellationFlag();
+        AsyncInvocationTask task = new ReturningTask(flag, null) {
+            @Override
+            protected Object runInvocation() throws Exception {
+                fail("cancelled task was run");
+                return null;
+            }
+        };
+        assertTrue(task.cancel(false));
+        assertTrue(flag.get());
+        assertTrue(task.isDone());
+        assertTrue(task.isCancelled());
+        task.run();
+    }
+
+    /**
+     * A bean that returns the future of another asynchronous invocation must not block the thread running it.
+     */
+    @Test(timeout = 10000)
+    public void chained() throws Exception {
+        AsyncInvocationTask nested = new ReturningTask(new CancellationFlag(), new AsyncResult<Object>("nested"));
+        AsyncInvocationTask task = new ReturningTask(new CancellationFlag(), nested);
+        task.run();
+        assertFalse(task.isDone());
+        nested.run();
+        assertTrue(task.isDone());
+        assertEquals("nested", task.get());
+    }
+
+    private static class ReturningTask extends AsyncInvocationTask {
+        private final Future<?> result;
+
+        ReturningTask(CancellationFlag flag, Future<?> result) {
+            super(flag);
+            this.result = result;
+        }
+
+        @Override
+        protected Object runInvocation() throws Exception {
+            return result;
+        }
+    }
+}
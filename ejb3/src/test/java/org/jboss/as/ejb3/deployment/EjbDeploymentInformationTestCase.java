@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.deployment;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ejb3.component.EJBComponent;
+import org.jboss.as.ejb3.iiop.EjbIIOPService;
+import org.jboss.msc.value.ImmediateValue;
+import org.jboss.msc.value.InjectedValue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link EjbDeploymentInformation#getViewMethod(String, String, String)}.
+ */
+public class EjbDeploymentInformationTestCase {
+
+    public interface Echo {
+        String echo();
+
+        String echo(String value);
+
+        String echo(String value, int count);
+
+        String echo(int count, String value);
+    }
+
+    private static final String VIEW_NAME = Echo.class.getName();
+
+    private final ComponentView view = mock(ComponentView.class);
+    private EjbDeploymentInformation information;
+
+    @Before
+    public void setUp() {
+        when(this.view.getViewMethods()).thenReturn(new HashSet<>(Arrays.asList(Echo.class.getMethods())));
+        InjectedValue<ComponentView> value = new InjectedValue<>();
+        value.setValue(new ImmediateValue<>(this.view));
+        this.information = new EjbDeploymentInformation("echo", new InjectedValue<EJBComponent>(), Collections.singletonMap(VIEW_NAME, value), null, this.getClass().getClassLoader(), new InjectedValue<EjbIIOPService>());
+    }
+
+    @Test
+    public void overloadedMethods() throws Exception {
+        assertEquals(Echo.class.getMethod("echo"), this.information.getViewMethod(VIEW_NAME, "echo", ""));
+        assertEquals(Echo.class.getMethod("echo", String.class), this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.String"));
+        assertEquals(Echo.class.getMethod("echo", String.class, int.class), this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.String,int"));
+        assertEquals(Echo.class.getMethod("echo", int.class, String.class), this.information.getViewMethod(VIEW_NAME, "echo", "int,java.lang.String"));
+        verify(this.view, times(4)).getViewMethods();
+
+        // Resolved methods are cached
+        assertEquals(Echo.class.getMethod("echo", String.class, int.class), this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.String,int"));
+        assertEquals(Echo.class.getMethod("echo"), this.information.getViewMethod(VIEW_NAME, "echo", ""));
+        verify(this.view, times(4)).getViewMethods();
+    }
+
+    @Test
+    public void miss() {
+        assertNull(this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.Integer"));
+        assertNull(this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.String,"));
+        assertNull(this.information.getViewMethod(VIEW_NAME, "ping", ""));
+        verify(this.view, times(3)).getViewMethods();
+
+        // Failed lookups are not cached
+        assertNull(this.information.getViewMethod(VIEW_NAME, "echo", "java.lang.Integer"));
+        verify(this.view, times(4)).getViewMethods();
+
+        try {
+            this.information.getViewMethod("UnknownView", "echo", "");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimerWheel}.
+ */
+public class TimerWheelTestCase {
+
+    private TimerWheel wheel;
+
+    @Before
+    public void setUp() {
+        // A small wheel, so that timeouts span multiple rounds
+        this.wheel = new TimerWheel(Executors.defaultThreadFactory(), 5, TimeUnit.MILLISECONDS, 8);
+        this.wheel.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.wheel.stop();
+    }
+
+    @Test
+    public void expiry() throws InterruptedException {
+        final int count = 1000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger early = new AtomicInteger();
+        for (int i = 0; i < count; ++i) {
+            final long delay = i % 200;
+            final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            this.wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() < due) {
+                        early.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+        assertEquals(0, this.wheel.size());
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        final AtomicInteger fired = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+            }
+        };
+        TimerWheel.Timeout cancelled = this.wheel.schedule(task, 100, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout expired = this.wheel.schedule(task, 0, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        Thread.sleep(300);
+        assertEquals(1, fired.get());
+        assertTrue(cancelled.isCancelled());
+        assertTrue(expired.isExpired());
+        assertFalse(expired.cancel());
+    }
+
+    @Test
+    public void farFuture() throws InterruptedException {
+        final AtomicInteger fired = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+            }
+        };
+        Thread.sleep(20);
+        TimerWheel.Timeout max = this.wheel.schedule(task, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout years = this.wheel.schedule(task, 100L * 365, TimeUnit.DAYS);
+        TimerWheel.Timeout nanos = this.wheel.schedule(task, Long.MAX_VALUE - 1, TimeUnit.NANOSECONDS);
+        Thread.sleep(200);
+        assertEquals(0, fired.get());
+        assertEquals(3, this.wheel.size());
+        assertTrue(max.cancel());
+        assertTrue(years.cancel());
+        assertTrue(nanos.cancel());
+        assertEquals(0, this.wheel.size());
+    }
+
+    @Test
+    public void fixedRate() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(5);
+        TimerWheel.Timeout timeout = this.wheel.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, this.wheel.size());
+        assertTrue(timeout.cancel());
+        assertEquals(0, this.wheel.size());
+    }
+}
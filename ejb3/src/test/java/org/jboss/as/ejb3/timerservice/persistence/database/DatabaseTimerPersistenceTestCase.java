@@ -0,0 +1,600 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+
+import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.as.ejb3.timerservice.AutoTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.ServiceName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the batched writes and the refresh of the {@link DatabaseTimerPersistence} against a fake database, which
+ * executes the statements of the timer-sql.properties test resource.
+ */
+public class DatabaseTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timed-object";
+
+    private final TestDatabase database = new TestDatabase();
+    private final TestTransactionSynchronizationRegistry tsr = new TestTransactionSynchronizationRegistry();
+    private final TestTimer timer = new TestTimer();
+    private final TestTimerChangeListener listener = new TestTimerChangeListener();
+    private TimerServiceImpl timerService;
+    private DatabaseTimerPersistence persistence;
+    private DatabaseTimerPersistence otherNode;
+
+    @Before
+    public void setUp() throws Exception {
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        this.timerService = new TimerServiceImpl(Collections.<Method, List<AutoTimer>>emptyMap(), ServiceName.of("timer-service"), null);
+        this.timerService.getTimedObjectInvoker().inject(invoker);
+        this.listener.timerService = this.timerService;
+
+        this.persistence = this.createPersistence("node1", 1000);
+        this.persistence.getTransactionSynchronizationRegistry().inject(this.tsr);
+        this.persistence.loadActiveTimers(TIMED_OBJECT_ID, this.timerService);
+        this.persistence.registerChangeListener(TIMED_OBJECT_ID, this.listener);
+
+        this.otherNode = this.createPersistence("node2", 0);
+        this.otherNode.loadActiveTimers(TIMED_OBJECT_ID, this.timerService);
+
+        this.database.reset();
+    }
+
+    private DatabaseTimerPersistence createPersistence(String nodeName, int refreshInterval) throws Exception {
+        DatabaseTimerPersistence persistence = new DatabaseTimerPersistence("h2", "default", nodeName, refreshInterval, true);
+        persistence.getModuleLoader().inject(new ModuleLoader(new ModuleFinder[0]));
+        persistence.getDataSourceInjectedValue().inject(new ManagedReferenceFactory() {
+            @Override
+            public ManagedReference getReference() {
+                return new ManagedReference() {
+                    @Override
+                    public void release() {
+                    }
+
+                    @Override
+                    public Object getInstance() {
+                        return DatabaseTimerPersistenceTestCase.this.database.dataSource;
+                    }
+                };
+            }
+        });
+        persistence.getTimerInjectedValue().inject(this.timer);
+        persistence.start(null);
+        return persistence;
+    }
+
+    @After
+    public void tearDown() {
+        this.persistence.stop(null);
+        this.otherNode.stop(null);
+        this.timer.cancel();
+    }
+
+    @Test
+    public void batchFlush() {
+        TimerImpl updated = this.createTimer("updated");
+        TimerImpl cancelled = this.createTimer("cancelled");
+        this.persistence.addTimer(updated);
+        this.persistence.addTimer(cancelled);
+        // without a transaction every write goes to the database at once
+        assertEquals(Arrays.asList("create-timer", "create-timer"), this.database.executed);
+        this.database.reset();
+
+        this.tsr.begin();
+        TimerImpl first = this.createTimer("first");
+        TimerImpl second = this.createTimer("second");
+        TimerImpl discarded = this.createTimer("discarded");
+        this.persistence.addTimer(first);
+        this.persistence.addTimer(second);
+        this.persistence.addTimer(discarded);
+        first.setPreviousRun(new Date());
+        this.persistence.persistTimer(first);
+        discarded.setTimerState(TimerState.CANCELED);
+        this.persistence.persistTimer(discarded);
+        updated.setPreviousRun(new Date());
+        this.persistence.persistTimer(updated);
+        cancelled.setTimerState(TimerState.CANCELED);
+        this.persistence.persistTimer(cancelled);
+
+        assertEquals(Collections.emptyList(), this.database.executed);
+        assertEquals(Collections.emptyList(), this.database.batches);
+
+        this.tsr.complete(Status.STATUS_COMMITTED);
+
+        assertEquals(Collections.emptyList(), this.database.executed);
+        assertEquals(Arrays.asList("create-timer", "update-timer", "delete-timer"), this.database.batches);
+        assertEquals(new HashSet<String>(Arrays.asList("updated", "first", "second")), this.database.rows.keySet());
+        assertEquals(new Timestamp(first.getPreviousRun().getTime()), this.database.rows.get("first").get(6));
+        assertEquals(new Timestamp(updated.getPreviousRun().getTime()), this.database.rows.get("updated").get(6));
+    }
+
+    @Test
+    public void retryFailedRows() {
+        this.database.failures.put("second", 1);
+
+        this.tsr.begin();
+        this.persistence.addTimer(this.createTimer("first"));
+        this.persistence.addTimer(this.createTimer("second"));
+        this.persistence.addTimer(this.createTimer("third"));
+        this.tsr.complete(Status.STATUS_COMMITTED);
+
+        assertEquals(Arrays.asList("create-timer"), this.database.batches);
+        assertEquals(Arrays.asList("create-timer"), this.database.executed);
+        assertEquals(new HashSet<String>(Arrays.asList("first", "second", "third")), this.database.rows.keySet());
+    }
+
+    @Test
+    public void retryRowsNotExecuted() {
+        this.database.stopOnFailure = true;
+        this.database.failures.put("second", 1);
+
+        this.tsr.begin();
+        this.persistence.addTimer(this.createTimer("first"));
+        this.persistence.addTimer(this.createTimer("second"));
+        this.persistence.addTimer(this.createTimer("third"));
+        this.tsr.complete(Status.STATUS_COMMITTED);
+
+        assertEquals(Arrays.asList("create-timer", "create-timer"), this.database.executed);
+        assertEquals(new HashSet<String>(Arrays.asList("first", "second", "third")), this.database.rows.keySet());
+    }
+
+    @Test
+    public void failedRetry() {
+        this.database.failures.put("second", 2);
+
+        this.tsr.begin();
+        this.persistence.addTimer(this.createTimer("first"));
+        this.persistence.addTimer(this.createTimer("second"));
+        try {
+            this.tsr.complete(Status.STATUS_ROLLEDBACK);
+            fail("Write of a failing row did not fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+
+    @Test
+    public void refresh() {
+        TimerImpl added = this.createTimer("added");
+        this.otherNode.addTimer(added);
+        this.database.reset();
+
+        this.timer.task.run();
+
+        assertEquals(Arrays.asList("added"), this.listener.added);
+        assertEquals(Collections.emptyList(), this.listener.removed);
+        assertEquals(Arrays.asList("load-timer-ids", "load-timer"), this.database.queries);
+
+        // known timers are not loaded again
+        this.database.reset();
+        this.timer.task.run();
+
+        assertEquals(Arrays.asList("added"), this.listener.added);
+        assertEquals(Arrays.asList("load-timer-ids"), this.database.queries);
+
+        added.setTimerState(TimerState.CANCELED);
+        this.otherNode.persistTimer(added);
+        this.timer.task.run();
+
+        assertEquals(Arrays.asList("added"), this.listener.removed);
+    }
+
+    @Test
+    public void refreshManyAdded() {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 60; ++i) {
+            String id = "timer-" + i;
+            this.otherNode.addTimer(this.createTimer(id));
+            ids.add(id);
+        }
+        this.database.reset();
+
+        this.timer.task.run();
+
+        assertEquals(new HashSet<String>(ids), new HashSet<String>(this.listener.added));
+        assertEquals(ids.size(), this.listener.added.size());
+        assertEquals(Arrays.asList("load-timer-ids", "load-all-timers"), this.database.queries);
+    }
+
+    private TimerImpl createTimer(String id) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date(System.currentTimeMillis() + 60000))
+                .setRepeatInterval(0)
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .setNewTimer(true)
+                .build(this.timerService);
+    }
+
+    /**
+     * Captures the refresh task instead of scheduling it.
+     */
+    static class TestTimer extends java.util.Timer {
+        volatile TimerTask task;
+
+        TestTimer() {
+            super(true);
+        }
+
+        @Override
+        public void schedule(TimerTask task, long delay, long period) {
+            this.task = task;
+        }
+    }
+
+    static class TestTimerChangeListener implements TimerPersistence.TimerChangeListener {
+        final List<String> added = new ArrayList<String>();
+        final List<String> removed = new ArrayList<String>();
+        TimerServiceImpl timerService;
+
+        @Override
+        public void timerAdded(TimerImpl timer) {
+            this.added.add(timer.getId());
+        }
+
+        @Override
+        public void timerRemoved(String timerId) {
+            this.removed.add(timerId);
+        }
+
+        @Override
+        public TimerServiceImpl getTimerService() {
+            return this.timerService;
+        }
+    }
+
+    /**
+     * Fake database holding the rows of the timer table. The statements are the keys of the timer-sql.properties,
+     * and the rows map the column index of the create-timer statement to the column value.
+     */
+    static class TestDatabase {
+        final Map<String, Map<Integer, Object>> rows = new LinkedHashMap<String, Map<Integer, Object>>();
+        /** Statements executed on their own */
+        final List<String> executed = new ArrayList<String>();
+        /** Statements executed as batch */
+        final List<String> batches = new ArrayList<String>();
+        final List<String> queries = new ArrayList<String>();
+        /** Number of times a write of the timer with the given id fails */
+        final Map<String, Integer> failures = new HashMap<String, Integer>();
+        /** Whether a batch stops at the first failed row, otherwise the failed rows are marked and the batch goes on */
+        boolean stopOnFailure = false;
+
+        final DataSource dataSource = proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getConnection")) {
+                    return TestDatabase.this.connection();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        void reset() {
+            this.executed.clear();
+            this.batches.clear();
+            this.queries.clear();
+        }
+
+        Connection connection() {
+            return proxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return TestDatabase.this.statement((String) args[0]);
+                        case "getTransactionIsolation":
+                            return Connection.TRANSACTION_READ_COMMITTED;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            });
+        }
+
+        PreparedStatement statement(final String sql) {
+            final Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+            final List<Map<Integer, Object>> batch = new ArrayList<Map<Integer, Object>>();
+            return proxy(PreparedStatement.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args.length == 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    switch (name) {
+                        case "addBatch":
+                            batch.add(new HashMap<Integer, Object>(parameters));
+                            return null;
+                        case "clearBatch":
+                            batch.clear();
+                            return null;
+                        case "executeBatch":
+                            try {
+                                return TestDatabase.this.executeBatch(sql, batch);
+                            } finally {
+                                batch.clear();
+                            }
+                        case "execute":
+                            TestDatabase.this.executed.add(sql);
+                            TestDatabase.this.execute(sql, parameters);
+                            return false;
+                        case "executeQuery":
+                            TestDatabase.this.queries.add(sql);
+                            return resultSet(TestDatabase.this.query(sql, parameters));
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(name);
+                    }
+                }
+            });
+        }
+
+        int[] executeBatch(String sql, List<Map<Integer, Object>> batch) throws BatchUpdateException {
+            this.batches.add(sql);
+            List<Integer> updateCounts = new ArrayList<Integer>();
+            boolean failed = false;
+            for (Map<Integer, Object> parameters : batch) {
+                try {
+                    updateCounts.add(this.execute(sql, parameters));
+                } catch (SQLException e) {
+                    failed = true;
+                    if (this.stopOnFailure) {
+                        break;
+                    }
+                    updateCounts.add(Statement.EXECUTE_FAILED);
+                }
+            }
+            int[] result = new int[updateCounts.size()];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = updateCounts.get(i);
+            }
+            if (failed) {
+                throw new BatchUpdateException(result);
+            }
+            return result;
+        }
+
+        int execute(String sql, Map<Integer, Object> parameters) throws SQLException {
+            switch (sql) {
+                case "create-timer": {
+                    String id = (String) parameters.get(1);
+                    this.fail(id);
+                    this.rows.put(id, new HashMap<Integer, Object>(parameters));
+                    return 1;
+                }
+                case "update-timer": {
+                    String id = (String) parameters.get(6);
+                    this.fail(id);
+                    Map<Integer, Object> row = this.rows.get(id);
+                    if (row == null) {
+                        return 0;
+                    }
+                    row.put(5, parameters.get(1));
+                    row.put(6, parameters.get(2));
+                    row.put(9, parameters.get(3));
+                    row.put(26, parameters.get(4));
+                    return 1;
+                }
+                case "delete-timer": {
+                    String id = (String) parameters.get(2);
+                    this.fail(id);
+                    return (this.rows.remove(id) != null) ? 1 : 0;
+                }
+                default:
+                    throw new UnsupportedOperationException(sql);
+            }
+        }
+
+        private void fail(String id) throws SQLException {
+            Integer failures = this.failures.get(id);
+            if (failures != null && failures > 0) {
+                this.failures.put(id, failures - 1);
+                throw new SQLException("Write of timer " + id + " failed");
+            }
+        }
+
+        List<Map<Integer, Object>> query(String sql, Map<Integer, Object> parameters) {
+            List<Map<Integer, Object>> result = new ArrayList<Map<Integer, Object>>();
+            switch (sql) {
+                case "load-timer": {
+                    Map<Integer, Object> row = this.rows.get(parameters.get(2));
+                    if (row != null && row.get(2).equals(parameters.get(1))) {
+                        result.add(row);
+                    }
+                    return result;
+                }
+                case "load-all-timers": {
+                    for (Map<Integer, Object> row : this.rows.values()) {
+                        if (row.get(2).equals(parameters.get(1))) {
+                            result.add(row);
+                        }
+                    }
+                    return result;
+                }
+                case "load-timer-ids": {
+                    for (Map<Integer, Object> row : this.rows.values()) {
+                        if (row.get(2).equals(parameters.get(1))) {
+                            result.add(Collections.<Integer, Object>singletonMap(1, row.get(1)));
+                        }
+                    }
+                    return result;
+                }
+                default:
+                    throw new UnsupportedOperationException(sql);
+            }
+        }
+
+        static ResultSet resultSet(final List<Map<Integer, Object>> rows) {
+            return proxy(ResultSet.class, new InvocationHandler() {
+                private int index = -1;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++this.index < rows.size();
+                        case "close":
+                            return null;
+                        case "getString":
+                        case "getTimestamp":
+                            return rows.get(this.index).get(args[0]);
+                        case "getLong": {
+                            Object value = rows.get(this.index).get(args[0]);
+                            return (value != null) ? value : 0L;
+                        }
+                        case "getBoolean": {
+                            Object value = rows.get(this.index).get(args[0]);
+                            return (value != null) ? value : false;
+                        }
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            });
+        }
+
+        static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(DatabaseTimerPersistenceTestCase.class.getClassLoader(), new Class<?>[] { type }, handler));
+        }
+    }
+
+    static class TestTransactionSynchronizationRegistry implements TransactionSynchronizationRegistry {
+        final List<Synchronization> synchronizations = new ArrayList<Synchronization>();
+        private final Map<Object, Object> resources = new HashMap<Object, Object>();
+        private int status = Status.STATUS_NO_TRANSACTION;
+
+        void begin() {
+            this.status = Status.STATUS_ACTIVE;
+        }
+
+        void complete(int status) {
+            try {
+                for (Synchronization synchronization : this.synchronizations) {
+                    synchronization.beforeCompletion();
+                }
+                this.status = status;
+                for (Synchronization synchronization : this.synchronizations) {
+                    synchronization.afterCompletion(status);
+                }
+            } finally {
+                this.synchronizations.clear();
+                this.resources.clear();
+                this.status = Status.STATUS_NO_TRANSACTION;
+            }
+        }
+
+        private void checkActive() {
+            if (this.status != Status.STATUS_ACTIVE) {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return (this.status == Status.STATUS_ACTIVE) ? this.resources : null;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            this.checkActive();
+            this.resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            this.checkActive();
+            return this.resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization synchronization) {
+            this.checkActive();
+            this.synchronizations.add(synchronization);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return this.status;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            this.status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return this.status == Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+}
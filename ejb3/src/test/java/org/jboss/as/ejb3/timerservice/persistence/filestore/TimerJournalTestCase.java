@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimerJournal}.
+ */
+public class TimerJournalTestCase {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("timer-journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : this.directory.listFiles()) {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Test
+    public void replay() throws IOException {
+        TimerJournal journal = new TimerJournal(this.directory);
+        assertTrue(journal.open().isEmpty());
+        journal.put("a", new byte[] {1});
+        journal.put("b", new byte[] {2});
+        journal.put("a", new byte[] {3, 4});
+        journal.remove("b");
+        journal.remove("unknown");
+        journal.close();
+
+        journal = new TimerJournal(this.directory);
+        Map<String, byte[]> timers = journal.open();
+        assertEquals(1, timers.size());
+        assertArrayEquals(new byte[] {3, 4}, timers.get("a"));
+        assertTrue(journal.contains("a"));
+        assertFalse(journal.contains("b"));
+        journal.close();
+    }
+
+    @Test
+    public void incompleteRecord() throws IOException {
+        TimerJournal journal = new TimerJournal(this.directory);
+        journal.open();
+        journal.put("a", new byte[] {1});
+        journal.put("b", new byte[] {2, 3, 4});
+        journal.close();
+
+        // Simulate a crash in the middle of writing the last record
+        try (RandomAccessFile file = new RandomAccessFile(journal.getFile(), "rw")) {
+            file.setLength(file.length() - 2);
+        }
+        long length = journal.getFile().length();
+
+        journal = new TimerJournal(this.directory);
+        Map<String, byte[]> timers = journal.open();
+        assertEquals(1, timers.size());
+        assertArrayEquals(new byte[] {1}, timers.get("a"));
+        assertTrue(journal.getFile().length() < length);
+
+        // The journal remains usable after the incomplete record has been cut off
+        journal.put("c", new byte[] {5});
+        journal.close();
+        journal = new TimerJournal(this.directory);
+        timers = journal.open();
+        assertEquals(2, timers.size());
+        assertArrayEquals(new byte[] {5}, timers.get("c"));
+        journal.close();
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        TimerJournal journal = new TimerJournal(this.directory);
+        journal.open();
+        for (int i = 0; i < 10; ++i) {
+            journal.put("timer" + i, new byte[] {(byte) i});
+        }
+        // Keep rewriting the same timers, as an interval timer does every time it fires
+        for (int i = 0; i < 10000; ++i) {
+            journal.put("timer" + (i % 10), new byte[] {(byte) i});
+        }
+        assertTrue(journal.getRecordCount() < 2000);
+        assertEquals(10, journal.size());
+        journal.close();
+
+        journal = new TimerJournal(this.directory);
+        Map<String, byte[]> timers = journal.open();
+        assertEquals(10, timers.size());
+        for (int i = 0; i < 10; ++i) {
+            assertArrayEquals(new byte[] {(byte) (9990 + i)}, timers.get("timer" + i));
+        }
+        journal.close();
+    }
+}
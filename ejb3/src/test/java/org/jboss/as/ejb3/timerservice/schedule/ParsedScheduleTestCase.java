@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.ejb.ScheduleExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the sharing of parsed schedules between {@link CalendarBasedTimeout} instances.
+ */
+public class ParsedScheduleTestCase {
+
+    @Before
+    public void clear() {
+        CalendarBasedTimeout.PARSED_SCHEDULES.clear();
+    }
+
+    @Test
+    public void hit() {
+        CalendarBasedTimeout.ParsedSchedule parsed = CalendarBasedTimeout.parse(new ScheduleExpression().second("*/10").minute("5").hour("1-3"));
+        // Distinct, but identical, expressions share the parsed attributes
+        assertSame(parsed, CalendarBasedTimeout.parse(new ScheduleExpression().second("*/10").minute("5").hour("1-3")));
+        assertNotSame(parsed, CalendarBasedTimeout.parse(new ScheduleExpression().second("*/10").minute("6").hour("1-3")));
+        assertEquals(2, CalendarBasedTimeout.PARSED_SCHEDULES.size());
+
+        // The timezone of a schedule does not affect its parsed attributes
+        new CalendarBasedTimeout(new ScheduleExpression().second("*/10").minute("5").hour("1-3").timezone("UTC"));
+        assertEquals(2, CalendarBasedTimeout.PARSED_SCHEDULES.size());
+        assertSame(parsed, CalendarBasedTimeout.parse(new ScheduleExpression().second("*/10").minute("5").hour("1-3").timezone("UTC")));
+    }
+
+    @Test
+    public void eviction() {
+        CalendarBasedTimeout.ParsedSchedule first = CalendarBasedTimeout.parse(schedule(0));
+        for (int i = 1; i < CalendarBasedTimeout.MAX_PARSED_SCHEDULES; ++i) {
+            CalendarBasedTimeout.parse(schedule(i));
+        }
+        assertEquals(CalendarBasedTimeout.MAX_PARSED_SCHEDULES, CalendarBasedTimeout.PARSED_SCHEDULES.size());
+        assertSame(first, CalendarBasedTimeout.parse(schedule(0)));
+
+        // Exceeding the maximum evicts another schedule, but never the one just parsed
+        CalendarBasedTimeout.ParsedSchedule last = CalendarBasedTimeout.parse(schedule(CalendarBasedTimeout.MAX_PARSED_SCHEDULES));
+        assertEquals(CalendarBasedTimeout.MAX_PARSED_SCHEDULES, CalendarBasedTimeout.PARSED_SCHEDULES.size());
+        assertSame(last, CalendarBasedTimeout.parse(schedule(CalendarBasedTimeout.MAX_PARSED_SCHEDULES)));
+
+        for (int i = 0; i < CalendarBasedTimeout.MAX_PARSED_SCHEDULES * 2; ++i) {
+            CalendarBasedTimeout.parse(schedule(i));
+            assertTrue(CalendarBasedTimeout.PARSED_SCHEDULES.size() <= CalendarBasedTimeout.MAX_PARSED_SCHEDULES);
+        }
+    }
+
+    private static ScheduleExpression schedule(int index) {
+        return new ScheduleExpression().second(index % 60).minute((index / 60) % 60).hour(index / 3600);
+    }
+}
@@ -103,14 +103,18 @@ public class CollectFiles extends JdrCommand {
             VirtualFile f = iter.next();
             InputStream stream = limiter.limit(f);
 
-            for (Sanitizer sanitizer : this.sanitizers) {
-                if(sanitizer.accepts(f)){
-                    stream = sanitizer.sanitize(stream);
+            try {
+                // sanitizers wrap the stream, so the content is sanitized while it is written to the zip
+                for (Sanitizer sanitizer : this.sanitizers) {
+                    if(sanitizer.accepts(f)){
+                        stream = sanitizer.sanitize(stream);
+                    }
                 }
-            }
 
-            this.env.getZip().add(f, stream);
-            Utils.safelyClose(stream);
+                this.env.getZip().add(f, stream);
+            } finally {
+                Utils.safelyClose(stream);
+            }
         }
     }
 
@@ -29,6 +29,7 @@ import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
@@ -37,14 +38,29 @@ import static org.jboss.as.jdr.logger.JdrLogger.ROOT_LOGGER;
 
 /**
  * Abstracts the zipfile used for packaging the JDR Report.
+ *
+ * The rate at which content is written can be capped with the {@value #MAX_BYTES_PER_SECOND} system property,
+ * so that collecting a report has a bounded impact on a server that is already in trouble.
  */
 public class JdrZipFile {
 
+    /**
+     * System property holding the maximum number of bytes per second to add to the zip. Zero or less means no limit.
+     */
+    public static final String MAX_BYTES_PER_SECOND = "jboss.jdr.max-bytes-per-second";
+
+    private static final int BUFFER_SIZE = 8192;
+    /** The period over which the write rate is averaged, so that idle time does not allow a burst later on */
+    private static final long THROTTLE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
     ZipOutputStream zos;
     String jbossHome;
     JdrEnvironment env;
     String name;
     String baseName;
+    private final long maxBytesPerSecond = Long.getLong(MAX_BYTES_PER_SECOND, 0L);
+    private long windowStart = System.nanoTime();
+    private long windowBytesWritten = 0;
 
     public JdrZipFile(JdrEnvironment env) throws Exception {
         this.env = env;
@@ -83,7 +99,7 @@ public class JdrZipFile {
      * @param path destination to write to in the zip file
      */
     public void add(InputStream is, String path) {
-        byte [] buffer = new byte[1024];
+        byte [] buffer = new byte[BUFFER_SIZE];
 
         try {
             String entryName = this.baseName + "/" + path;
@@ -92,6 +108,7 @@ public class JdrZipFile {
             int bytesRead = is.read(buffer);
             while( bytesRead > -1 ) {
                 zos.write(buffer, 0, bytesRead);
+                throttle(bytesRead);
                 bytesRead = is.read(buffer);
             }
         }
@@ -154,6 +171,34 @@ public class JdrZipFile {
         this.add(new ByteArrayInputStream(content.getBytes()), name);
     }
 
+    /**
+     * Pauses the calling thread for as long as needed to keep the write rate below the configured maximum.
+     * The rate is averaged over windows of {@link #THROTTLE_WINDOW}, rather than since the zip was created, so that
+     * a pause between writes, e.g. while a command runs, does not let the next writes go through at full speed.
+     *
+     * @param bytes the number of bytes just written
+     */
+    private void throttle(int bytes) {
+        if (maxBytesPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - windowStart > THROTTLE_WINDOW) {
+            windowStart = now;
+            windowBytesWritten = 0;
+        }
+        windowBytesWritten += bytes;
+        long expected = TimeUnit.SECONDS.toMillis(1) * windowBytesWritten / maxBytesPerSecond;
+        long ahead = expected - TimeUnit.NANOSECONDS.toMillis(now - windowStart);
+        if (ahead > 0) {
+            try {
+                Thread.sleep(ahead);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     public void close() throws Exception {
         this.zos.close();
     }
@@ -23,19 +23,28 @@ package org.jboss.as.jdr.util;
 
 import org.jboss.vfs.VirtualFileFilter;
 
-import java.io.ByteArrayOutputStream;
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
-import java.util.regex.Matcher;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.regex.Pattern;
 
 /**
  * {@link Sanitizer} subclass that replaces all instance of {@code pattern} with
  * the {@code replacement} text.
+ *
+ * The input is sanitized lazily, one line at a time, as the returned stream is read, so
+ * large files are never held in memory as a whole. Lines longer than {@value #MAX_LINE_LENGTH}
+ * characters are sanitized in chunks of that length, so that memory use is bounded even for
+ * files without line breaks. A match that spans two such chunks is not replaced.
  */
 public class PatternSanitizer extends AbstractSanitizer {
 
+    /**
+     * The maximum number of characters of a line that are sanitized at once.
+     */
+    public static final int MAX_LINE_LENGTH = 1 << 20;
+
     private final Pattern pattern;
     private final String replacement;
 
@@ -46,18 +55,114 @@ public class PatternSanitizer extends AbstractSanitizer {
     }
 
     public InputStream sanitize(InputStream in) throws Exception {
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        PrintWriter writer = new PrintWriter(output);
-        String[] lines = Utils.readLines(in).toArray(new String[0]);
-        int lineCount = lines.length;
-        for(int i = 0; i < lineCount; i++) {
-            Matcher matcher = pattern.matcher(lines[i]);
-            writer.write(matcher.replaceAll(replacement));
-            if(i < (lineCount-1)){
-                writer.write(Utils.LINE_SEP);
+        return new SanitizingInputStream(in);
+    }
+
+    /**
+     * Reads the lines of the underlying stream on demand and hands out the bytes of their sanitized form.
+     * Lines are separated by {@link Utils#LINE_SEP}, without a separator after the last one.
+     */
+    private class SanitizingInputStream extends InputStream {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Reader reader;
+        private final char[] chars = new char[BUFFER_SIZE];
+        private int charPosition = 0;
+        private int charLimit = 0;
+        private boolean skipLineFeed = false;
+        private final StringBuilder segment = new StringBuilder();
+        private String nextSegment;
+        private boolean nextSegmentEndsLine;
+        private byte[] buffer = new byte[0];
+        private int position = 0;
+
+        SanitizingInputStream(InputStream in) throws IOException {
+            this.reader = new InputStreamReader(in);
+            this.nextSegment = readSegment();
+        }
+
+        /**
+         * Reads the rest of the current line, or at most {@link #MAX_LINE_LENGTH} characters of it.
+         *
+         * @return the characters read, without the line terminator, or null if the underlying stream is exhausted
+         */
+        private String readSegment() throws IOException {
+            segment.setLength(0);
+            nextSegmentEndsLine = false;
+            while (segment.length() < MAX_LINE_LENGTH) {
+                if (charPosition == charLimit) {
+                    charLimit = reader.read(chars);
+                    charPosition = 0;
+                    if (charLimit < 0) {
+                        charLimit = 0;
+                        return (segment.length() > 0) ? segment.toString() : null;
+                    }
+                }
+                char c = chars[charPosition++];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    // a carriage return may be followed by a line feed, which is part of the same line terminator
+                    skipLineFeed = (c == '\r');
+                    nextSegmentEndsLine = true;
+                    return segment.toString();
+                }
+                segment.append(c);
+            }
+            return segment.toString();
+        }
+
+        /**
+         * Makes sure there are bytes left to hand out, unless the underlying stream is exhausted.
+         *
+         * @return whether there are bytes left
+         */
+        private boolean fill() throws IOException {
+            while (position == buffer.length) {
+                if (nextSegment == null) {
+                    return false;
+                }
+                String text = pattern.matcher(nextSegment).replaceAll(replacement);
+                boolean endsLine = nextSegmentEndsLine;
+                nextSegment = readSegment();
+                buffer = (endsLine && nextSegment != null ? text + Utils.LINE_SEP : text).getBytes();
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
             }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return fill() ? buffer.length - position : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
         }
-        writer.close();
-        return new ByteArrayInputStream(output.toByteArray());
     }
 }
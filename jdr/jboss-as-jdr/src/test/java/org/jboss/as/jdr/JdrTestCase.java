@@ -24,6 +24,7 @@ package org.jboss.as.jdr;
 import org.jboss.as.jdr.commands.JdrEnvironment;
 import org.jboss.as.jdr.util.JdrZipFile;
 import org.jboss.as.jdr.util.PatternSanitizer;
+import org.jboss.as.jdr.util.Utils;
 import org.jboss.as.jdr.util.XMLSanitizer;
 import org.jboss.as.jdr.vfs.Filters;
 import org.jboss.vfs.VFS;
@@ -32,6 +33,7 @@ import org.jboss.vfs.VirtualFileFilter;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 
@@ -91,6 +93,48 @@ public class JdrTestCase {
         assertEquals("password=*", new String(buf));
     }
 
+    @Test
+    public void testPatternSanitizerMultipleLines() throws Exception {
+        String propf = "user=admin\npassword=123456\n\nport=8080\n";
+        InputStream is = new ByteArrayInputStream(propf.getBytes());
+        PatternSanitizer s = new PatternSanitizer("password=.*", "password=*", Filters.TRUE);
+        InputStream res = s.sanitize(is);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte [] buf = new byte [4];
+        int read = res.read(buf);
+        while (read > -1) {
+            out.write(buf, 0, read);
+            read = res.read(buf);
+        }
+        String sep = Utils.LINE_SEP;
+        assertEquals("user=admin" + sep + "password=*" + sep + sep + "port=8080", new String(out.toByteArray()));
+    }
+
+    @Test
+    public void testPatternSanitizerLineTerminators() throws Exception {
+        String propf = "user=admin\r\npassword=123456\rport=8080\r\n";
+        PatternSanitizer s = new PatternSanitizer("password=.*", "password=*", Filters.TRUE);
+        String sep = Utils.LINE_SEP;
+        assertEquals("user=admin" + sep + "password=*" + sep + "port=8080", readFully(s.sanitize(new ByteArrayInputStream(propf.getBytes()))));
+    }
+
+    @Test
+    public void testPatternSanitizerLongLine() throws Exception {
+        StringBuilder line = new StringBuilder("password=\"secret\" ");
+        while (line.length() < 3 * PatternSanitizer.MAX_LINE_LENGTH) {
+            line.append("0123456789abcdef");
+        }
+        String sep = Utils.LINE_SEP;
+        String propf = line + "\npassword=\"secret\"";
+        PatternSanitizer s = new PatternSanitizer("password=\"[^\"]*\"", "password=\"*\"", Filters.TRUE);
+        String result = readFully(s.sanitize(new ByteArrayInputStream(propf.getBytes())));
+        // the chunks of the long line are joined without a line separator
+        assertEquals(line.length() - "secret".length() + "*".length(), result.indexOf(sep));
+        assertTrue(result.startsWith("password=\"*\" 0123456789abcdef"));
+        assertTrue(result.endsWith(sep + "password=\"*\""));
+        assertFalse(result.contains("secret"));
+    }
+
     @Test
     public void testWildcardFilterAcceptAnything() throws Exception {
         VirtualFileFilter filter = Filters.wildcard("*");
@@ -139,6 +183,18 @@ public class JdrTestCase {
         assertFalse(filter.accepts(winbad));
     }
 
+    private static String readFully(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte [] buf = new byte [8192];
+        int read = in.read(buf);
+        while (read > -1) {
+            out.write(buf, 0, read);
+            read = in.read(buf);
+        }
+        in.close();
+        return new String(out.toByteArray());
+    }
+
     private void safeClose(JdrZipFile zf) {
         try {
             zf.close();
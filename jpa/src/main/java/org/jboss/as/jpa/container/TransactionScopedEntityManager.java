@@ -30,6 +30,7 @@ import java.util.Map;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.SynchronizationType;
+import javax.transaction.Transaction;
 
 import org.jboss.as.jpa.config.Configuration;
 import org.jboss.as.jpa.messages.JpaLogger;
@@ -72,12 +73,12 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
     @Override
     protected EntityManager getEntityManager() {
         EntityManager entityManager;
-        boolean isInTx;
+        Transaction transaction;
 
-        isInTx = TransactionUtil.isInTx();
+        transaction = TransactionUtil.getActiveTransaction();
 
-        if (isInTx) {
-            entityManager = getOrCreateTransactionScopedEntityManager(emf, puScopedName, properties, synchronizationType);
+        if (transaction != null) {
+            entityManager = getOrCreateTransactionScopedEntityManager(transaction, emf, puScopedName, properties, synchronizationType);
         } else {
             entityManager = NonTxEmCloser.get(puScopedName);
             if (entityManager == null) {
@@ -132,6 +133,7 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
      * get or create a Transactional entity manager.
      * Only call while a transaction is active in the current thread.
      *
+     * @param transaction the active transaction of the current thread
      * @param emf
      * @param scopedPuName
      * @param properties
@@ -139,24 +141,25 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
      * @return
      */
     private EntityManager getOrCreateTransactionScopedEntityManager(
+            final Transaction transaction,
             final EntityManagerFactory emf,
             final String scopedPuName,
             final Map properties,
             final SynchronizationType synchronizationType) {
-        EntityManager entityManager = TransactionUtil.getTransactionScopedEntityManager(puScopedName);
+        EntityManager entityManager = TransactionUtil.getTransactionScopedEntityManager(transaction, puScopedName);
         if (entityManager == null) {
             entityManager = createEntityManager(emf, properties, synchronizationType);
             if (JPA_LOGGER.isDebugEnabled())
                 JPA_LOGGER.debugf("%s: created entity manager session %s", TransactionUtil.getEntityManagerDetails(entityManager, scopedPuName),
-                    TransactionUtil.getTransaction().toString());
+                    transaction.toString());
             TransactionUtil.registerSynchronization(entityManager, scopedPuName);
-            TransactionUtil.putEntityManagerInTransactionRegistry(scopedPuName, entityManager);
+            TransactionUtil.putEntityManagerInTransactionRegistry(transaction, scopedPuName, entityManager);
         }
         else {
             testForMixedSynchronizationTypes(entityManager, puScopedName, synchronizationType);
             if (JPA_LOGGER.isDebugEnabled()) {
                 JPA_LOGGER.debugf("%s: reuse entity manager session already in tx %s", TransactionUtil.getEntityManagerDetails(entityManager, scopedPuName),
-                    TransactionUtil.getTransaction().toString());
+                    transaction.toString());
             }
         }
         return entityManager;
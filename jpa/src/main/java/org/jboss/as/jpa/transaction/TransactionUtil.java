@@ -24,6 +24,9 @@ package org.jboss.as.jpa.transaction;
 
 import static org.jboss.as.jpa.messages.JpaLogger.JPA_LOGGER;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.persistence.EntityManager;
 import javax.transaction.Status;
 import javax.transaction.Synchronization;
@@ -46,6 +49,13 @@ public class TransactionUtil {
     private static volatile TransactionSynchronizationRegistry transactionSynchronizationRegistry;
     private static volatile TransactionManager transactionManager;
 
+    /**
+     * The transaction scoped entity managers of the last transaction that was active on the current thread.  These
+     * are also stored in the TransactionSynchronizationRegistry, but keeping them here avoids a registry lookup on every
+     * EntityManager invocation.
+     */
+    private static final ThreadLocal<TransactionScopedEntityManagers> TRANSACTION_SCOPED_ENTITY_MANAGERS = new ThreadLocal<>();
+
     public static void setTransactionManager(TransactionManager tm) {
         if (transactionManager == null) {
             transactionManager = tm;
@@ -63,10 +73,19 @@ public class TransactionUtil {
     }
 
     public static boolean isInTx() {
+        return getActiveTransaction() != null;
+    }
+
+    /**
+     * Get the transaction of the current thread, if it is active.
+     *
+     * @return the active transaction, or null if there is none
+     */
+    public static Transaction getActiveTransaction() {
         Transaction tx = getTransaction();
         if (tx == null || !TxUtils.isActive(tx))
-            return false;
-        return true;
+            return null;
+        return tx;
     }
 
     /**
@@ -76,7 +95,34 @@ public class TransactionUtil {
      * @return
      */
     public static EntityManager getTransactionScopedEntityManager(String puScopedName) {
-        return getEntityManagerInTransactionRegistry(puScopedName);
+        return getTransactionScopedEntityManager(getTransaction(), puScopedName);
+    }
+
+    /**
+     * Get current persistence context.  Only call while the specified transaction is active in the current thread.
+     *
+     * @param transaction the active transaction of the current thread
+     * @param puScopedName
+     * @return
+     */
+    public static EntityManager getTransactionScopedEntityManager(Transaction transaction, String puScopedName) {
+        TransactionScopedEntityManagers entityManagers = TRANSACTION_SCOPED_ENTITY_MANAGERS.get();
+        if (entityManagers != null && entityManagers.completed) {
+            // completed by another thread, e.g. the transaction reaper, so drop the reference to its transaction
+            TRANSACTION_SCOPED_ENTITY_MANAGERS.remove();
+            entityManagers = null;
+        }
+        if (transaction != null && entityManagers != null && transaction.equals(entityManagers.transaction)) {
+            EntityManager entityManager = entityManagers.get(puScopedName);
+            if (entityManager != null) {
+                return entityManager;
+            }
+        }
+        EntityManager entityManager = getEntityManagerInTransactionRegistry(puScopedName);
+        if (entityManager != null) {
+            cacheTransactionScopedEntityManager(transaction, puScopedName, entityManager);
+        }
+        return entityManager;
     }
 
     public static void registerSynchronization(EntityManager entityManager, String puScopedName) {
@@ -124,7 +170,80 @@ public class TransactionUtil {
      * @param entityManager
      */
     public static void putEntityManagerInTransactionRegistry(String scopedPuName, EntityManager entityManager) {
+        putEntityManagerInTransactionRegistry(getTransaction(), scopedPuName, entityManager);
+    }
+
+    /**
+     * Save the specified EntityManager in the specified transaction, which must be the active transaction of the
+     * local thread.
+     *
+     * @param transaction
+     * @param scopedPuName
+     * @param entityManager
+     */
+    public static void putEntityManagerInTransactionRegistry(Transaction transaction, String scopedPuName, EntityManager entityManager) {
         getTransactionSynchronizationRegistry().putResource(scopedPuName, entityManager);
+        cacheTransactionScopedEntityManager(transaction, scopedPuName, entityManager);
+    }
+
+    private static void cacheTransactionScopedEntityManager(Transaction transaction, String scopedPuName, EntityManager entityManager) {
+        if (transaction == null) {
+            return;
+        }
+        TransactionScopedEntityManagers entityManagers = TRANSACTION_SCOPED_ENTITY_MANAGERS.get();
+        if (entityManagers == null || !transaction.equals(entityManagers.transaction)) {
+            // the transaction may have been suspended and resumed since it was last cached, e.g. around a REQUIRES_NEW call
+            final TransactionSynchronizationRegistry registry = getTransactionSynchronizationRegistry();
+            entityManagers = (TransactionScopedEntityManagers) registry.getResource(TransactionScopedEntityManagers.class);
+            if (entityManagers == null) {
+                entityManagers = new TransactionScopedEntityManagers(transaction);
+                try {
+                    registry.registerInterposedSynchronization(entityManagers);
+                } catch (IllegalStateException notActive) {
+                    // too late in the transaction to find out when it completes, so just rely on the registry
+                    return;
+                }
+                registry.putResource(TransactionScopedEntityManagers.class, entityManagers);
+            }
+            TRANSACTION_SCOPED_ENTITY_MANAGERS.set(entityManagers);
+        }
+        entityManagers.put(scopedPuName, entityManager);
+    }
+
+    /**
+     * The transaction scoped entity managers of one transaction, which are forgotten once the transaction completes.
+     * There is one per transaction, stored as a TransactionSynchronizationRegistry resource under this class.
+     */
+    private static class TransactionScopedEntityManagers implements Synchronization {
+        private final Transaction transaction;
+        private final Map<String, EntityManager> entityManagers = new ConcurrentHashMap<>(4);
+        private volatile boolean completed;
+
+        TransactionScopedEntityManagers(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        EntityManager get(String scopedPuName) {
+            return completed ? null : entityManagers.get(scopedPuName);
+        }
+
+        void put(String scopedPuName, EntityManager entityManager) {
+            if (!completed) {
+                entityManagers.put(scopedPuName, entityManager);
+            }
+        }
+
+        public void beforeCompletion() {
+        }
+
+        public void afterCompletion(int status) {
+            // may be called by the transaction reaper, in which case the owning thread drops this on its next lookup
+            completed = true;
+            entityManagers.clear();
+            if (TRANSACTION_SCOPED_ENTITY_MANAGERS.get() == this) {
+                TRANSACTION_SCOPED_ENTITY_MANAGERS.remove();
+            }
+        }
     }
 
     private static class SessionSynchronization implements Synchronization {
@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.transaction.xa.XAResource;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the caching of transaction scoped entity managers in {@link TransactionUtil}.
+ */
+public class TransactionUtilTestCase {
+
+    private static final String PU = "test.jar#test";
+
+    private static final TestTransactionManager transactionManager = new TestTransactionManager();
+    private static final TestTransactionSynchronizationRegistry registry = new TestTransactionSynchronizationRegistry();
+
+    @BeforeClass
+    public static void init() {
+        TransactionUtil.setTransactionManager(transactionManager);
+        TransactionUtil.setTransactionSynchronizationRegistry(registry);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Transaction transaction = transactionManager.suspend();
+        if (transaction != null) {
+            ((TestTransaction) transaction).complete(Status.STATUS_ROLLEDBACK);
+        }
+        registry.lookups = 0;
+    }
+
+    @Test
+    public void reuseWithinTransaction() throws Exception {
+        TestTransaction transaction = transactionManager.begin(new TestTransaction());
+        EntityManager entityManager = entityManager();
+
+        assertNull(TransactionUtil.getTransactionScopedEntityManager(transaction, PU));
+        TransactionUtil.putEntityManagerInTransactionRegistry(transaction, PU, entityManager);
+        int lookups = registry.lookups;
+
+        for (int i = 0; i < 10; ++i) {
+            assertSame(entityManager, TransactionUtil.getTransactionScopedEntityManager(transaction, PU));
+        }
+        // served from the thread local cache
+        assertEquals(lookups, registry.lookups);
+    }
+
+    @Test
+    public void invalidatedOnCompletion() throws Exception {
+        final TestTransaction transaction = transactionManager.begin(new TestTransaction());
+        TransactionUtil.putEntityManagerInTransactionRegistry(transaction, PU, entityManager());
+
+        // e.g. rolled back by the transaction reaper
+        Thread reaper = new Thread() {
+            @Override
+            public void run() {
+                transaction.complete(Status.STATUS_ROLLEDBACK);
+            }
+        };
+        reaper.start();
+        reaper.join();
+
+        int lookups = registry.lookups;
+        assertNull(TransactionUtil.getTransactionScopedEntityManager(transaction, PU));
+        assertEquals(lookups + 1, registry.lookups);
+
+        // a new transaction does not see the entity manager of the completed one
+        TestTransaction next = transactionManager.begin(new TestTransaction());
+        assertNull(TransactionUtil.getTransactionScopedEntityManager(next, PU));
+    }
+
+    @Test
+    public void suspendAndResume() throws Exception {
+        TestTransaction outer = transactionManager.begin(new TestTransaction());
+        EntityManager outerEntityManager = entityManager();
+        TransactionUtil.putEntityManagerInTransactionRegistry(outer, PU, outerEntityManager);
+        assertSame(outerEntityManager, TransactionUtil.getTransactionScopedEntityManager(outer, PU));
+
+        int synchronizations = outer.synchronizations.size();
+
+        // a loop of REQUIRES_NEW calls
+        for (int i = 0; i < 10; ++i) {
+            transactionManager.suspend();
+            TestTransaction inner = transactionManager.begin(new TestTransaction());
+            assertNull(TransactionUtil.getTransactionScopedEntityManager(inner, PU));
+            EntityManager innerEntityManager = entityManager();
+            TransactionUtil.putEntityManagerInTransactionRegistry(inner, PU, innerEntityManager);
+            assertSame(innerEntityManager, TransactionUtil.getTransactionScopedEntityManager(inner, PU));
+            assertEquals(1, inner.synchronizations.size());
+            transactionManager.suspend();
+            inner.complete(Status.STATUS_COMMITTED);
+            transactionManager.resume(outer);
+
+            assertSame(outerEntityManager, TransactionUtil.getTransactionScopedEntityManager(outer, PU));
+            assertSame(outerEntityManager, TransactionUtil.getTransactionScopedEntityManager(PU));
+        }
+        // the entity managers of the outer transaction are only bound to it once
+        assertEquals(synchronizations, outer.synchronizations.size());
+        assertEquals(2, outer.resources.size());
+    }
+
+    private static EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] { EntityManager.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                if (method.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                return null;
+            }
+        });
+    }
+
+    static class TestTransaction implements Transaction {
+        final Map<Object, Object> resources = new HashMap<>();
+        final List<Synchronization> synchronizations = new ArrayList<>();
+        volatile int status = Status.STATUS_ACTIVE;
+
+        void complete(int status) {
+            for (Synchronization synchronization : this.synchronizations) {
+                synchronization.afterCompletion(status);
+            }
+            this.resources.clear();
+            this.status = status;
+        }
+
+        @Override
+        public void commit() {
+            this.complete(Status.STATUS_COMMITTED);
+        }
+
+        @Override
+        public boolean delistResource(XAResource resource, int flag) {
+            return false;
+        }
+
+        @Override
+        public boolean enlistResource(XAResource resource) {
+            return false;
+        }
+
+        @Override
+        public int getStatus() {
+            return this.status;
+        }
+
+        @Override
+        public void registerSynchronization(Synchronization synchronization) {
+            this.synchronizations.add(synchronization);
+        }
+
+        @Override
+        public void rollback() {
+            this.complete(Status.STATUS_ROLLEDBACK);
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            this.status = Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+
+    static class TestTransactionManager implements TransactionManager {
+        private final ThreadLocal<TestTransaction> transaction = new ThreadLocal<>();
+
+        TestTransaction begin(TestTransaction transaction) {
+            this.transaction.set(transaction);
+            return transaction;
+        }
+
+        @Override
+        public void begin() {
+            this.begin(new TestTransaction());
+        }
+
+        @Override
+        public void commit() {
+            this.suspend().commit();
+        }
+
+        @Override
+        public int getStatus() {
+            TestTransaction transaction = this.transaction.get();
+            return (transaction != null) ? transaction.getStatus() : Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public TestTransaction getTransaction() {
+            return this.transaction.get();
+        }
+
+        @Override
+        public void resume(Transaction transaction) {
+            this.transaction.set((TestTransaction) transaction);
+        }
+
+        @Override
+        public void rollback() {
+            this.suspend().rollback();
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            this.transaction.get().setRollbackOnly();
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+
+        @Override
+        public TestTransaction suspend() {
+            TestTransaction transaction = this.transaction.get();
+            this.transaction.remove();
+            return transaction;
+        }
+    }
+
+    static class TestTransactionSynchronizationRegistry implements TransactionSynchronizationRegistry {
+        volatile int lookups;
+
+        private static TestTransaction current() {
+            TestTransaction transaction = transactionManager.getTransaction();
+            if (transaction == null) {
+                throw new IllegalStateException();
+            }
+            return transaction;
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return transactionManager.getTransaction();
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            current().resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            this.lookups += 1;
+            return current().resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization synchronization) {
+            current().registerSynchronization(synchronization);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return transactionManager.getStatus();
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            transactionManager.setRollbackOnly();
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return transactionManager.getStatus() == Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+}
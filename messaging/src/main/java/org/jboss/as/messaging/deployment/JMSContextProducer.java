@@ -72,7 +72,6 @@ import org.jboss.metadata.property.PropertyReplacer;
 public class JMSContextProducer {
 
     private static final String TRANSACTION_SYNCHRONIZATION_REGISTRY_LOOKUP = "java:comp/TransactionSynchronizationRegistry";
-    private static final Object TRANSACTION_KEY = "TRANSACTED_JMS_CONTEXT";
 
     /**
      * the propertyReplace is set in {@link org.jboss.as.messaging.deployment.JMSCDIExtension#wrapInjectionTarget(javax.enterprise.inject.spi.ProcessInjectionTarget)}.
@@ -174,21 +173,25 @@ public class JMSContextProducer {
     /**
      * Wrapper to restrict use of methods for injected JMSContext (JMS 2.0 spec, §12.4.5)
      * and lazily create the real JMSContext depending on the transaction status.
+     *
+     * The transaction synchronization registry and the connection factory are looked up once, on first use.
+     * Within a transaction, all the calls use the same transacted context, which is stored in the transaction
+     * synchronization registry.
      */
     private class JMSContextWrapper implements JMSContext {
 
         private final JMSInfo info;
-        private JMSContext delegate;
-        private boolean inTransaction = false;
+        private volatile JMSContext delegate;
+        private volatile TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+        private volatile ConnectionFactory connectionFactory;
 
         JMSContextWrapper(JMSInfo info) {
             this.info = info;
         }
 
-        private JMSContext create(JMSInfo info, boolean inTx) {
-            inTransaction = inTx;
-            ConnectionFactory cf = (ConnectionFactory) lookup(info.connectionFactoryLookup);
-            if (inTransaction) {
+        private JMSContext create(boolean inTx) {
+            ConnectionFactory cf = getConnectionFactory();
+            if (inTx) {
                 XAJMSContext xaContext = ((XAConnectionFactory) cf).createXAContext(info.userName, info.password);
                 return xaContext.getContext();
             } else {
@@ -196,8 +199,8 @@ public class JMSContextProducer {
             }
         }
 
-        private void internalClose() {
-            if (delegate != null && !inTransaction) {
+        private synchronized void internalClose() {
+            if (delegate != null) {
                 delegate.close();
                 delegate = null;
             }
@@ -206,41 +209,66 @@ public class JMSContextProducer {
         /**
          * create the underlying JMSContext or return it if there is already one create.
          */
-        private synchronized JMSContext getDelegate() {
-            TransactionSynchronizationRegistry txSyncRegistry = (TransactionSynchronizationRegistry) lookup(TRANSACTION_SYNCHRONIZATION_REGISTRY_LOOKUP);
+        private JMSContext getDelegate() {
+            TransactionSynchronizationRegistry txSyncRegistry = getTransactionSynchronizationRegistry();
             boolean inTx = txSyncRegistry.getTransactionStatus() == Status.STATUS_ACTIVE;
             if (inTx) {
-                Object resource = txSyncRegistry.getResource(TRANSACTION_KEY);
+                // the context is shared by all the injected contexts with the same configuration
+                Object resource = txSyncRegistry.getResource(info);
                 if (resource != null) {
                     return (JMSContext) resource;
                 } else {
-                    final JMSContext transactedContext = create(info, inTx);
-                    txSyncRegistry.putResource(TRANSACTION_KEY, resource);
+                    final JMSContext transactedContext = create(inTx);
+                    txSyncRegistry.putResource(info, transactedContext);
                     txSyncRegistry.registerInterposedSynchronization(new Synchronization() {
                         @Override
                         public void beforeCompletion() {
                         }
 
                         @Override
-                        public synchronized void afterCompletion(int status) {
+                        public void afterCompletion(int status) {
                             transactedContext.close();
-                            inTransaction = false;
                         }
                     });
                     return transactedContext;
                 }
             } else {
+                JMSContext delegate = this.delegate;
                 if (delegate == null) {
-                    try {
-                        delegate = create(info, inTx);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+                    synchronized (this) {
+                        delegate = this.delegate;
+                        if (delegate == null) {
+                            try {
+                                delegate = create(inTx);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                            this.delegate = delegate;
+                        }
                     }
                 }
                 return delegate;
             }
         }
 
+        private TransactionSynchronizationRegistry getTransactionSynchronizationRegistry() {
+            TransactionSynchronizationRegistry registry = transactionSynchronizationRegistry;
+            if (registry == null) {
+                registry = (TransactionSynchronizationRegistry) lookup(TRANSACTION_SYNCHRONIZATION_REGISTRY_LOOKUP);
+                transactionSynchronizationRegistry = registry;
+            }
+            return registry;
+        }
+
+        private ConnectionFactory getConnectionFactory() {
+            ConnectionFactory cf = connectionFactory;
+            if (cf == null) {
+                cf = (ConnectionFactory) lookup(info.connectionFactoryLookup);
+                connectionFactory = cf;
+            }
+            return cf;
+        }
+
         private Object lookup(String name) {
             Context ctx = null;
             try {
@@ -475,7 +503,6 @@ public class JMSContextProducer {
         public String toString() {
             return "JMSContextWrapper{" +
                     ", delegate=" + getDelegate() +
-                    ", inTransaction=" + inTransaction +
                     '}';
         }
     }
@@ -0,0 +1,272 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.messaging.deployment;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSContext;
+import javax.jms.XAConnectionFactory;
+import javax.jms.XAJMSContext;
+import javax.naming.Context;
+import javax.naming.spi.InitialContextFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link JMSContext} instances produced by {@link JMSContextProducer}.
+ */
+public class JMSContextProducerTestCase {
+
+    static final Map<String, Object> BINDINGS = new HashMap<String, Object>();
+
+    private final TestTransactionSynchronizationRegistry registry = new TestTransactionSynchronizationRegistry();
+    private final TestConnectionFactory connectionFactory = new TestConnectionFactory();
+    private final JMSContextProducer producer = new JMSContextProducer();
+    private String initialContextFactory;
+
+    @Before
+    public void setUp() {
+        BINDINGS.put("java:comp/TransactionSynchronizationRegistry", this.registry);
+        BINDINGS.put(DefaultJMSConnectionFactoryBindingProcessor.COMP_DEFAULT_JMS_CONNECTION_FACTORY, this.connectionFactory.proxy);
+        this.initialContextFactory = System.setProperty(Context.INITIAL_CONTEXT_FACTORY, TestInitialContextFactory.class.getName());
+    }
+
+    @After
+    public void tearDown() {
+        if (this.initialContextFactory != null) {
+            System.setProperty(Context.INITIAL_CONTEXT_FACTORY, this.initialContextFactory);
+        } else {
+            System.clearProperty(Context.INITIAL_CONTEXT_FACTORY);
+        }
+        BINDINGS.clear();
+    }
+
+    @Test
+    public void transaction() throws Exception {
+        JMSContext context1 = this.producer.getJMSContext(null);
+        JMSContext context2 = this.producer.getJMSContext(null);
+
+        this.registry.begin();
+        context1.createTextMessage();
+        context2.createTextMessage();
+        context1.createTextMessage();
+
+        // The injected contexts share a single transacted context within the transaction
+        assertEquals(1, this.connectionFactory.transactedContexts.size());
+        assertEquals(0, this.connectionFactory.contexts.size());
+        TestContext transacted = this.connectionFactory.transactedContexts.get(0);
+        assertEquals(3, transacted.messages);
+        assertEquals(1, this.registry.synchronizations.size());
+        assertFalse(transacted.closed);
+
+        // ... which is closed once the transaction completes
+        this.registry.complete(Status.STATUS_COMMITTED);
+        assertTrue(transacted.closed);
+
+        // The next transaction gets a context of its own
+        this.registry.begin();
+        context2.createTextMessage();
+        assertEquals(2, this.connectionFactory.transactedContexts.size());
+        assertEquals(1, this.connectionFactory.transactedContexts.get(1).messages);
+        this.registry.complete(Status.STATUS_ROLLEDBACK);
+        assertTrue(this.connectionFactory.transactedContexts.get(1).closed);
+
+        // Disposing of the injected contexts does not affect transacted contexts
+        this.producer.closeJMSContext(context1);
+        this.producer.closeJMSContext(context2);
+        assertEquals(2, this.connectionFactory.transactedContexts.size());
+        assertEquals(0, this.connectionFactory.contexts.size());
+    }
+
+    @Test
+    public void noTransaction() throws Exception {
+        JMSContext context = this.producer.getJMSContext(null);
+
+        context.createTextMessage();
+        context.createTextMessage();
+
+        // Outside of a transaction, each injected context creates its own context once
+        assertEquals(0, this.connectionFactory.transactedContexts.size());
+        assertEquals(1, this.connectionFactory.contexts.size());
+        TestContext delegate = this.connectionFactory.contexts.get(0);
+        assertEquals(2, delegate.messages);
+        assertTrue(this.registry.synchronizations.isEmpty());
+
+        this.producer.closeJMSContext(context);
+        assertTrue(delegate.closed);
+    }
+
+    public static class TestInitialContextFactory implements InitialContextFactory {
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            InvocationHandler handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "lookup":
+                            return BINDINGS.get(String.valueOf(args[0]));
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            };
+            return (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[] { Context.class }, handler);
+        }
+    }
+
+    static class TestContext implements InvocationHandler {
+        final JMSContext proxy = (JMSContext) Proxy.newProxyInstance(JMSContext.class.getClassLoader(), new Class<?>[] { JMSContext.class }, this);
+        volatile int messages;
+        volatile boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "createTextMessage":
+                    this.messages += 1;
+                    return null;
+                case "close":
+                    this.closed = true;
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+
+    static class TestConnectionFactory implements InvocationHandler {
+        final Object proxy = Proxy.newProxyInstance(ConnectionFactory.class.getClassLoader(), new Class<?>[] { ConnectionFactory.class, XAConnectionFactory.class }, this);
+        final List<TestContext> contexts = new ArrayList<TestContext>();
+        final List<TestContext> transactedContexts = new ArrayList<TestContext>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "createContext": {
+                    TestContext context = new TestContext();
+                    this.contexts.add(context);
+                    return context.proxy;
+                }
+                case "createXAContext": {
+                    final TestContext context = new TestContext();
+                    this.transactedContexts.add(context);
+                    InvocationHandler handler = new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getName().equals("getContext")) {
+                                return context.proxy;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    };
+                    return Proxy.newProxyInstance(XAJMSContext.class.getClassLoader(), new Class<?>[] { XAJMSContext.class }, handler);
+                }
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+
+    static class TestTransactionSynchronizationRegistry implements TransactionSynchronizationRegistry {
+        final List<Synchronization> synchronizations = new ArrayList<Synchronization>();
+        private final Map<Object, Object> resources = new HashMap<Object, Object>();
+        private int status = Status.STATUS_NO_TRANSACTION;
+
+        void begin() {
+            this.status = Status.STATUS_ACTIVE;
+        }
+
+        void complete(int status) {
+            for (Synchronization synchronization : this.synchronizations) {
+                synchronization.beforeCompletion();
+            }
+            this.status = status;
+            for (Synchronization synchronization : this.synchronizations) {
+                synchronization.afterCompletion(status);
+            }
+            this.synchronizations.clear();
+            this.resources.clear();
+            this.status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        private void checkActive() {
+            if (this.status != Status.STATUS_ACTIVE) {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return (this.status == Status.STATUS_ACTIVE) ? this.resources : null;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            this.checkActive();
+            this.resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            this.checkActive();
+            return this.resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization synchronization) {
+            this.checkActive();
+            this.synchronizations.add(synchronization);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return this.status;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            this.status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return this.status == Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+}
@@ -30,7 +30,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -65,6 +68,13 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
 
+    /**
+     * The binder services resolved by previous lookups, keyed by the looked up name. It is cleared whenever a binding
+     * is added or removed, and entries whose service has since been removed from the registry are ignored.
+     */
+    private final ConcurrentMap<String, ServiceController<?>> resolvedBindings = new ConcurrentHashMap<String, ServiceController<?>>();
+    private final AtomicLong bindingsVersion = new AtomicLong();
+
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
@@ -79,8 +89,25 @@ public class ServiceBasedNamingStore implements NamingStore {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
+        final String nameString = name.toString();
+        final ServiceController<?> resolved = resolvedBindings.get(nameString);
+        if (resolved != null && resolved.getState() != ServiceController.State.REMOVED) {
+            final Object obj = lookup(nameString, resolved, dereference);
+            if (obj != null) {
+                return obj;
+            }
+        }
+        final long version = bindingsVersion.get();
         final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName, dereference);
+        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        if (controller != null) {
+            resolvedBindings.put(nameString, controller);
+            if (bindingsVersion.get() != version) {
+                // the bindings changed during the lookup, so the controller may already be gone
+                resolvedBindings.remove(nameString, controller);
+            }
+        }
+        Object obj = lookup(nameString, controller, dereference);
         if (obj == null) {
             final ServiceName lower = boundServices.lower(lookupName);
             if (lower != null && lower.isParentOf(lookupName)) {
@@ -125,8 +152,11 @@ public class ServiceBasedNamingStore implements NamingStore {
     }
 
     private Object lookup(final String name, final ServiceName lookupName, boolean dereference) throws NamingException {
+        return lookup(name, serviceRegistry.getService(lookupName), dereference);
+    }
+
+    private Object lookup(final String name, final ServiceController<?> controller, boolean dereference) throws NamingException {
         try {
-            final ServiceController<?> controller = serviceRegistry.getService(lookupName);
             if (controller != null) {
                 final Object object = controller.getValue();
                 if (dereference && object instanceof ManagedReferenceFactory) {
@@ -257,6 +287,7 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public void close() throws NamingException {
         boundServices.clear();
+        bindingsChanged();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -271,10 +302,17 @@ public class ServiceBasedNamingStore implements NamingStore {
             throw NamingLogger.ROOT_LOGGER.serviceAlreadyBound(serviceName);
         }
         boundServices.add(serviceName);
+        bindingsChanged();
     }
 
     public void remove(final ServiceName serviceName) {
         boundServices.remove(serviceName);
+        bindingsChanged();
+    }
+
+    private void bindingsChanged() {
+        bindingsVersion.incrementAndGet();
+        resolvedBindings.clear();
     }
 
     protected ServiceName buildServiceName(final Name name) {
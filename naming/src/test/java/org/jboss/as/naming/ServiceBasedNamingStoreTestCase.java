@@ -31,13 +31,16 @@ import javax.naming.CompositeName;
 import javax.naming.Context;
 import javax.naming.Name;
 import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
 import javax.naming.NameParser;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StabilityMonitor;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
@@ -98,6 +101,32 @@ public class ServiceBasedNamingStoreTestCase {
         assertEquals(value, obj);
     }
 
+    @Test
+    public void testLookupAfterRebinding() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        final Object value = new Object();
+        bindObject(bindingName, value);
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+        // the second lookup is served from the resolved bindings
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+
+        final ServiceController<?> controller = container.getService(bindingName);
+        controller.setMode(ServiceController.Mode.REMOVE);
+        final StabilityMonitor monitor = new StabilityMonitor();
+        monitor.addController(controller);
+        monitor.awaitStability();
+        store.remove(bindingName);
+        try {
+            store.lookup(new CompositeName("foo/bar"));
+            fail("Should have thrown name not found");
+        } catch (NameNotFoundException expected) {
+        }
+
+        final Object newValue = new Object();
+        bindObject(bindingName, newValue);
+        assertEquals(newValue, store.lookup(new CompositeName("foo/bar")));
+    }
+
     @Test
     public void testLookupParentContext() throws Exception {
         final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
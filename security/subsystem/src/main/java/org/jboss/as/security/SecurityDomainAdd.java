@@ -72,6 +72,7 @@ import javax.security.auth.login.Configuration;
 import javax.transaction.TransactionManager;
 
 import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -134,6 +135,9 @@ class SecurityDomainAdd extends AbstractAddStepHandler {
 
     protected void populateModel(ModelNode operation, ModelNode model) throws OperationFailedException {
         SecurityDomainResourceDefinition.CACHE_TYPE.validateAndSet(operation, model);
+        for (AttributeDefinition attribute : SecurityDomainResourceDefinition.CACHE_ATTRIBUTES) {
+            attribute.validateAndSet(operation, model);
+        }
     }
 
     protected void performRuntime(OperationContext context, ModelNode operation, final ModelNode model) {
@@ -156,9 +160,12 @@ class SecurityDomainAdd extends AbstractAddStepHandler {
         final ApplicationPolicy applicationPolicy = createApplicationPolicy(context, securityDomain, model);
         final JSSESecurityDomain jsseSecurityDomain = createJSSESecurityDomain(context, securityDomain, model);
         final String cacheType = getAuthenticationCacheType(model);
+        final int cacheMaxEntries = SecurityDomainResourceDefinition.CACHE_MAX_ENTRIES.resolveModelAttribute(context, model).asInt();
+        final long cacheLifespan = SecurityDomainResourceDefinition.CACHE_LIFESPAN.resolveModelAttribute(context, model).asLong();
+        final long cacheMaxIdle = SecurityDomainResourceDefinition.CACHE_MAX_IDLE.resolveModelAttribute(context, model).asLong();
 
         final SecurityDomainService securityDomainService = new SecurityDomainService(securityDomain,
-                applicationPolicy, jsseSecurityDomain, cacheType);
+                applicationPolicy, jsseSecurityDomain, cacheType, cacheMaxEntries, cacheLifespan, cacheMaxIdle);
         final ServiceTarget target = context.getServiceTarget();
         // some login modules may require the TransactionManager
         final Injector<TransactionManager> transactionManagerInjector = new Injector<TransactionManager>() {
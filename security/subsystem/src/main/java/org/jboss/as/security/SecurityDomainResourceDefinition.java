@@ -43,10 +43,15 @@ import org.jboss.as.controller.access.constraint.ApplicationTypeConfig;
 import org.jboss.as.controller.access.management.AccessConstraintDefinition;
 import org.jboss.as.controller.access.management.ApplicationTypeAccessConstraintDefinition;
 import org.jboss.as.controller.access.management.SensitiveTargetAccessConstraintDefinition;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.common.Util;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.org.jboss.as.security.lru.LRUCache;
 import org.jboss.as.security.plugins.SecurityDomainContext;
 import org.jboss.as.security.service.SecurityDomainService;
 import org.jboss.dmr.ModelNode;
@@ -66,6 +71,40 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
             .setAllowExpression(true)
             .build();
 
+    public static final SimpleAttributeDefinition CACHE_MAX_ENTRIES = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MAX_ENTRIES, ModelType.INT, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(1000))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_LIFESPAN = new SimpleAttributeDefinitionBuilder(Constants.CACHE_LIFESPAN, ModelType.LONG, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .setValidator(new LongRangeValidator(0, true, true))
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_MAX_IDLE = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MAX_IDLE, ModelType.LONG, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .setValidator(new LongRangeValidator(0, true, true))
+            .build();
+
+    static final SimpleAttributeDefinition[] CACHE_ATTRIBUTES = { CACHE_MAX_ENTRIES, CACHE_LIFESPAN, CACHE_MAX_IDLE };
+
+    static final SimpleAttributeDefinition CACHE_HITS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_HITS, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition CACHE_MISSES = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MISSES, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition CACHE_EVICTIONS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_EVICTIONS, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
     private final boolean registerRuntimeOnly;
     private final List<AccessConstraintDefinition> accessConstraints;
 
@@ -83,6 +122,14 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
     @Override
     public void registerAttributes(final ManagementResourceRegistration resourceRegistration) {
         resourceRegistration.registerReadWriteAttribute(CACHE_TYPE, null, new SecurityDomainReloadWriteHandler(CACHE_TYPE));
+        for (SimpleAttributeDefinition attribute : CACHE_ATTRIBUTES) {
+            resourceRegistration.registerReadWriteAttribute(attribute, null, new SecurityDomainReloadWriteHandler(attribute));
+        }
+        if (registerRuntimeOnly) {
+            resourceRegistration.registerMetric(CACHE_HITS, CacheMetricHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_MISSES, CacheMetricHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_EVICTIONS, CacheMetricHandler.INSTANCE);
+        }
     }
 
     @Override
@@ -189,6 +236,36 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    /**
+     * Reads the statistics of the default authentication cache of a security domain. The metrics are undefined if the
+     * security domain uses no cache, or an infinispan cache.
+     */
+    static final class CacheMetricHandler extends AbstractRuntimeOnlyHandler {
+        static final CacheMetricHandler INSTANCE = new CacheMetricHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String securityDomain = PathAddress.pathAddress(operation.require(OP_ADDR)).getLastElement().getValue();
+            final String metric = operation.require(ModelDescriptionConstants.NAME).asString();
+
+            ServiceController<SecurityDomainContext> controller = getSecurityDomainService(context, securityDomain);
+            if (controller != null && controller.getState() == ServiceController.State.UP) {
+                Object cache = controller.getValue().getAuthenticationCache();
+                if (cache instanceof LRUCache) {
+                    LRUCache<?, ?> lruCache = (LRUCache<?, ?>) cache;
+                    if (Constants.CACHE_HITS.equals(metric)) {
+                        context.getResult().set(lruCache.getHits());
+                    } else if (Constants.CACHE_MISSES.equals(metric)) {
+                        context.getResult().set(lruCache.getMisses());
+                    } else if (Constants.CACHE_EVICTIONS.equals(metric)) {
+                        context.getResult().set(lruCache.getEvictions());
+                    }
+                }
+            }
+            context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+        }
+    }
+
     /**
      * Wait for the required service to start up and fail otherwise. This method is necessary when a runtime operation
      * uses a service that might have been created within a composite operation.
@@ -60,6 +60,7 @@ import org.jboss.as.controller.transform.PathAddressTransformer;
 import org.jboss.as.controller.transform.ResourceTransformationContext;
 import org.jboss.as.controller.transform.ResourceTransformer;
 import org.jboss.as.controller.transform.TransformationContext;
+import org.jboss.as.controller.transform.description.DiscardAttributeChecker;
 import org.jboss.as.controller.transform.description.RejectAttributeChecker;
 import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
 import org.jboss.as.controller.transform.description.TransformationDescription;
@@ -152,6 +153,7 @@ import org.jboss.msc.service.ServiceName;
         context.setSubsystemXmlMapping(SUBSYSTEM_NAME, Namespace.SECURITY_1_0.getUriString(), PARSER);
         context.setSubsystemXmlMapping(SUBSYSTEM_NAME, Namespace.SECURITY_1_1.getUriString(), PARSER);
         context.setSubsystemXmlMapping(SUBSYSTEM_NAME, Namespace.SECURITY_1_2.getUriString(), PARSER);
+        context.setSubsystemXmlMapping(SUBSYSTEM_NAME, Namespace.SECURITY_1_3.getUriString(), PARSER);
     }
 
     private void registerTransformers(SubsystemRegistration subsystemRegistration) {
@@ -164,6 +166,7 @@ import org.jboss.msc.service.ServiceName;
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, SecuritySubsystemRootResourceDefinition.DEEP_COPY_SUBJECT_MODE);
         final ResourceTransformationDescriptionBuilder securityDomain = builder.addChildResource(SECURITY_DOMAIN_PATH);
         securityDomain.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, SecurityDomainResourceDefinition.CACHE_TYPE).end();
+        rejectCacheAttributes(securityDomain);
 
         final ModulesToAttributeTransformer authClassicLoginModule = new ModulesToAttributeTransformer(Constants.LOGIN_MODULE, Constants.LOGIN_MODULES);
         registerModuleTransformer(securityDomain, PATH_CLASSIC_AUTHENTICATION, authClassicLoginModule,
@@ -222,10 +225,21 @@ import org.jboss.msc.service.ServiceName;
         TransformationDescription.Tools.register(builder.build(), subsystemRegistration, ModelVersion.create(1, 1, 0));
     }
 
+    /**
+     * The authentication cache size and expiration attributes were added in 1.3.0.
+     */
+    private static void rejectCacheAttributes(ResourceTransformationDescriptionBuilder securityDomain) {
+        securityDomain.getAttributeBuilder()
+                .setDiscard(DiscardAttributeChecker.UNDEFINED, SecurityDomainResourceDefinition.CACHE_ATTRIBUTES)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, SecurityDomainResourceDefinition.CACHE_ATTRIBUTES)
+                .end();
+    }
+
     private void registerTransformers_1_2_0(SubsystemRegistration subsystemRegistration) {
         ResourceTransformationDescriptionBuilder builder = TransformationDescriptionBuilder.Factory.createSubsystemInstance();
 
         ResourceTransformationDescriptionBuilder securityDomain = builder.addChildResource(SECURITY_DOMAIN_PATH);
+        rejectCacheAttributes(securityDomain);
 
         // Transform any add op that includes the module list attribute into a compsosite of an add w/o that + write-attribute
         AttributeToModulesTransformer loginModule = new AttributeToModulesTransformer(Constants.LOGIN_MODULES);
@@ -72,6 +72,7 @@ import javax.xml.stream.XMLStreamException;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.PropertiesAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.operations.common.Util;
 import org.jboss.as.controller.persistence.SubsystemMarshallingContext;
 import org.jboss.as.security.logging.SecurityLogger;
@@ -191,6 +192,9 @@ public class SecuritySubsystemParser implements XMLStreamConstants, XMLElementRe
                 writer.writeAttribute(Attribute.NAME.getLocalName(), policy.getName());
                 ModelNode policyDetails = policy.getValue();
                 SecurityDomainResourceDefinition.CACHE_TYPE.marshallAsAttribute(policyDetails, writer);
+                for (SimpleAttributeDefinition attribute : SecurityDomainResourceDefinition.CACHE_ATTRIBUTES) {
+                    attribute.marshallAsAttribute(policyDetails, writer);
+                }
                 writeSecurityDomainContent(writer, policyDetails);
                 writer.writeEndElement();
             }
@@ -220,6 +224,9 @@ public class SecuritySubsystemParser implements XMLStreamConstants, XMLElementRe
         Set<String> keys = policyDetails.keys();
         keys.remove(NAME);
         keys.remove(CACHE_TYPE);
+        for (SimpleAttributeDefinition attribute : SecurityDomainResourceDefinition.CACHE_ATTRIBUTES) {
+            keys.remove(attribute.getName());
+        }
 
         for (String key : keys) {
             Element element = Element.forName(key);
@@ -426,6 +433,7 @@ public class SecuritySubsystemParser implements XMLStreamConstants, XMLElementRe
     }
 
     private void parseSecurityDomain(List<ModelNode> list, XMLExtendedStreamReader reader, PathAddress parentAddress) throws XMLStreamException {
+        Namespace schemaVer = Namespace.forUri(reader.getNamespaceURI());
         ModelNode op = Util.createAddOperation();
         list.add(op);
         PathElement secDomainPath = null;
@@ -448,6 +456,28 @@ public class SecuritySubsystemParser implements XMLStreamConstants, XMLElementRe
                     SecurityDomainResourceDefinition.CACHE_TYPE.parseAndSetParameter(value, op, reader);
                     break;
                 }
+                case CACHE_MAX_ENTRIES: {
+                    // the default cache attributes were introduced in version 1.3 of the schema.
+                    if (schemaVer != Namespace.SECURITY_1_3) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    SecurityDomainResourceDefinition.CACHE_MAX_ENTRIES.parseAndSetParameter(value, op, reader);
+                    break;
+                }
+                case CACHE_LIFESPAN: {
+                    if (schemaVer != Namespace.SECURITY_1_3) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    SecurityDomainResourceDefinition.CACHE_LIFESPAN.parseAndSetParameter(value, op, reader);
+                    break;
+                }
+                case CACHE_MAX_IDLE: {
+                    if (schemaVer != Namespace.SECURITY_1_3) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    SecurityDomainResourceDefinition.CACHE_MAX_IDLE.parseAndSetParameter(value, op, reader);
+                    break;
+                }
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -746,7 +776,7 @@ public class SecuritySubsystemParser implements XMLStreamConstants, XMLElementRe
         EnumSet<Attribute> required = EnumSet.of(Attribute.CODE);
         EnumSet<Attribute> notAllowed;
         // in version 1.2 of the schema the optional flag attribute has been included.
-        if (schemaVer == Namespace.SECURITY_1_2) {
+        if (schemaVer == Namespace.SECURITY_1_2 || schemaVer == Namespace.SECURITY_1_3) {
             notAllowed = EnumSet.of(Attribute.TYPE);
         }
         // in earlier versions of the schema, the flag attribute was missing (not allowed).
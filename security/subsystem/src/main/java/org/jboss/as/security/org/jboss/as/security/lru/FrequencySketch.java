@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.org.jboss.as.security.lru;
+
+/**
+ * A probabilistic estimate of how often keys were accessed recently, used to decide whether a new cache entry is
+ * worth evicting an existing one for.
+ * <p/>
+ * <p>This is a count-min sketch with four 4-bit counters per key, packed sixteen to a {@code long}. Once the number
+ * of recorded accesses reaches ten times the capacity of the cache, all counters are halved, so that the estimates
+ * favour recent accesses. Updates are not atomic, but every write is computed from a single read of a table slot, so
+ * concurrent updates can only be lost, which makes an estimate slightly less accurate.</p>
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long COUNTER_MASK = 0xfL;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int MIN_TABLE_LENGTH = 64;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int length = Integer.highestOneBit(Math.max(MIN_TABLE_LENGTH, Math.min(capacity, 1 << 30)) - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = this.table.length - 1;
+        this.sampleSize = (capacity > Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : Math.max(10, capacity * 10);
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of a key, at most 15.
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int shift = counterOffset(hash, i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> shift) & COUNTER_MASK);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of a key.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int shift = counterOffset(hash, i) << 2;
+            long mask = COUNTER_MASK << shift;
+            // a single read, so that a concurrent increment can never carry a saturated counter into its neighbour
+            long value = table[index];
+            if ((value & mask) != mask) {
+                table[index] = value + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int counterOffset(int hash, int i) {
+        return (hash >>> (i << 3)) & 0xf;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -34,6 +35,12 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
  * fashion (entry hits modulo N). Eviction follows an LRU approach (oldest sampled
  * entries are removed first) when the cache is out of capacity.</p>
  * <p/>
+ * <p>Optionally, entries expire a fixed time after they were created (lifespan) or after they were last accessed
+ * (max idle time). Expired entries are removed when they are accessed, and are reported as misses. Also optionally,
+ * a new entry is only admitted into a full cache if its key was accessed more often recently than the key of the
+ * entry it would evict, see {@link FrequencySketch}, which keeps frequently used entries from being flushed out by
+ * a burst of one-off keys.</p>
+ * <p/>
  *
  * @author Jason T. Greene
  */
@@ -49,15 +56,41 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
     private final ConcurrentDirectDeque<CacheEntry<K, V>> accessQueue;
     private final RemoveCallback<K, V> removeCallback;
 
+    /**
+     * Milliseconds after creation, resp. last access, after which an entry expires, or 0 if entries never expire.
+     */
+    private final long lifespan;
+    private final long maxIdle;
+    private final FrequencySketch sketch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
     public LRUCache(int maxEntries) {
         this(maxEntries, null);
     }
 
     public LRUCache(int maxEntries, RemoveCallback<K, V> removeCallback) {
+        this(maxEntries, 0, 0, false, removeCallback);
+    }
+
+    /**
+     * @param maxEntries the maximum number of entries
+     * @param lifespan the milliseconds after which an entry expires once created, or 0 if entries never expire
+     * @param maxIdle the milliseconds after which an entry expires once last accessed, or 0 if entries never expire
+     * @param admission whether new entries are only admitted into a full cache if their key is accessed more often
+     * than the key of the least recently used entry
+     * @param removeCallback the callback for entries that are removed, or null
+     */
+    public LRUCache(int maxEntries, long lifespan, long maxIdle, boolean admission, RemoveCallback<K, V> removeCallback) {
         this.cache = new ConcurrentHashMap<>();
         this.accessQueue = ConcurrentDirectDeque.newInstance();
         this.maxEntries = maxEntries;
         this.removeCallback = removeCallback;
+        this.lifespan = Math.max(0, lifespan);
+        this.maxIdle = Math.max(0, maxIdle);
+        this.sketch = admission ? new FrequencySketch(maxEntries) : null;
     }
 
     public V put(K key, V newValue) {
@@ -67,8 +100,9 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
     public V put(K key, V newValue, boolean ifAbsent) {
         CacheEntry<K, V> entry = cache.get(key);
         V old = null;
-        if (entry == null) {
-            entry = new CacheEntry<>(key, newValue);
+        boolean added = entry == null;
+        if (added) {
+            entry = new CacheEntry<>(key, newValue, currentTime());
             CacheEntry<K, V> result = cache.putIfAbsent(key, entry);
             if (result != null) {
                 return this.put(key, newValue);
@@ -81,16 +115,23 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
                 return old;
             }
             entry.setValue(newValue);
+            entry.created = entry.lastAccessed = currentTime();
             if (entry.hit() % SAMPLE_INTERVAL == 0) {
                 bumpAccess(entry);
             }
         }
 
         if (cache.size() > maxEntries) {
+            CacheEntry<K, V> oldest = accessQueue.peek();
+            if (added && sketch != null && oldest != null && oldest != entry && sketch.frequency(key) <= sketch.frequency(oldest.key())) {
+                // the oldest entry is used at least as often as the new one, so keep the former
+                reject(entry);
+                return old;
+            }
             //remove the oldest
-            CacheEntry<K, V> oldest = accessQueue.poll();
-            if (oldest != entry) {
-                this.remove(oldest.key());
+            oldest = accessQueue.poll();
+            if (oldest != null && oldest != entry && this.remove(oldest.key()) != null) {
+                evictions.incrementAndGet();
             }
         }
 
@@ -130,9 +171,15 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
     }
 
     public V get(Object key) {
+        if (sketch != null && key != null) {
+            sketch.increment(key);
+        }
         CacheEntry<K, V> cacheEntry = get0(key);
-        if (cacheEntry == null) return null;
-
+        if (cacheEntry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
         return cacheEntry.getValue();
     }
 
@@ -143,6 +190,17 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
             return null;
         }
 
+        if (lifespan > 0 || maxIdle > 0) {
+            long now = System.currentTimeMillis();
+            if ((lifespan > 0 && now - cacheEntry.created >= lifespan) || (maxIdle > 0 && now - cacheEntry.lastAccessed >= maxIdle)) {
+                expire(cacheEntry);
+                return null;
+            }
+            if (maxIdle > 0) {
+                cacheEntry.lastAccessed = now;
+            }
+        }
+
         if (cacheEntry.hit() % SAMPLE_INTERVAL == 0) {
             bumpAccess(cacheEntry);
         }
@@ -182,6 +240,38 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
         return true;
     }
 
+    /**
+     * Removes an expired entry, unless it was replaced or removed concurrently.
+     */
+    private void expire(CacheEntry<K, V> entry) {
+        if (cache.remove(entry.key(), entry)) {
+            Object old = entry.killToken();
+            if (old != null) {
+                accessQueue.removeToken(old);
+            }
+            evictions.incrementAndGet();
+            if (removeCallback != null) {
+                removeCallback.afterRemove(entry.key(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Removes an entry that was just added but not admitted. The remove callback is notified, so that it can release
+     * the value, which the cache took ownership of, just like the value of an evicted entry.
+     */
+    private void reject(CacheEntry<K, V> entry) {
+        if (cache.remove(entry.key(), entry)) {
+            Object old = entry.killToken();
+            if (old != null) {
+                accessQueue.removeToken(old);
+            }
+            if (removeCallback != null) {
+                removeCallback.afterRemove(entry.key(), entry.getValue());
+            }
+        }
+    }
+
     public V remove(Object key) {
         CacheEntry<K, V> remove = cache.remove(key);
         if (remove == null) {
@@ -223,6 +313,31 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
         return put(key, value, true);
     }
 
+    /**
+     * @return the number of lookups which found an entry
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups which found no entry, or an expired one
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full, or because they expired
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private long currentTime() {
+        return (lifespan > 0 || maxIdle > 0) ? System.currentTimeMillis() : 0;
+    }
+
     public static final class CacheEntry<K, V> {
         private static final Object CLAIM_TOKEN = new Object();
         private static final Object TOKEN_AVAILABLE = new Object();
@@ -235,14 +350,18 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
         private final K key;
         private volatile V value;
         private volatile int hits = 1;
+        private volatile long created;
+        private volatile long lastAccessed;
 
         @SuppressWarnings("UnusedDeclaration")
         private volatile Object tokenState = TOKEN_AVAILABLE;
         private volatile Object accessToken;
 
-        private CacheEntry(K key, V value) {
+        private CacheEntry(K key, V value, long created) {
             this.key = key;
             this.value = value;
+            this.created = created;
+            this.lastAccessed = created;
         }
 
         public V setValue(final V value) {
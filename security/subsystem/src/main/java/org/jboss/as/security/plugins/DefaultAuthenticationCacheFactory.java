@@ -36,13 +36,34 @@ import org.jboss.security.authentication.JBossCachedAuthenticationManager.Domain
  */
 public class DefaultAuthenticationCacheFactory implements AuthenticationCacheFactory {
 
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final int maxEntries;
+    private final long lifespan;
+    private final long maxIdle;
+
+    public DefaultAuthenticationCacheFactory() {
+        this(DEFAULT_MAX_ENTRIES, 0, 0);
+    }
+
+    /**
+     * @param maxEntries the maximum number of cached principals
+     * @param lifespan the milliseconds after which a cached authentication expires, or 0 if it never expires
+     * @param maxIdle the milliseconds after which an unused cached authentication expires, or 0 if it never expires
+     */
+    public DefaultAuthenticationCacheFactory(int maxEntries, long lifespan, long maxIdle) {
+        this.maxEntries = maxEntries;
+        this.lifespan = lifespan;
+        this.maxIdle = maxIdle;
+    }
+
     /**
      * Returns a default cache implementation
      *
      * @return cache implementation
      */
     public ConcurrentMap<Principal, DomainInfo> getCache() {
-        ConcurrentMap<Principal, DomainInfo> map = new LRUCache<>(1000,  new RemoveCallback<Principal, DomainInfo>() {
+        ConcurrentMap<Principal, DomainInfo> map = new LRUCache<>(maxEntries, lifespan, maxIdle, true, new RemoveCallback<Principal, DomainInfo>() {
             @Override
             public void afterRemove(Principal key, DomainInfo value) {
                 if (value != null) {
@@ -70,12 +70,21 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
 
     private final String cacheType;
 
+    private final int cacheMaxEntries;
+
+    private final long cacheLifespan;
+
+    private final long cacheMaxIdle;
+
     public SecurityDomainService(String name, ApplicationPolicy applicationPolicy, JSSESecurityDomain jsseSecurityDomain,
-            String cacheType) {
+            String cacheType, int cacheMaxEntries, long cacheLifespan, long cacheMaxIdle) {
         this.name = name;
         this.applicationPolicy = applicationPolicy;
         this.jsseSecurityDomain = jsseSecurityDomain;
         this.cacheType = cacheType;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cacheLifespan = cacheLifespan;
+        this.cacheMaxIdle = cacheMaxIdle;
     }
 
     /** {@inheritDoc} */
@@ -92,7 +101,7 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         if ("infinispan".equals(cacheType)) {
             cacheFactory = new InfinispanAuthenticationCacheFactory(cacheManagerValue.getValue(), name);
         } else if ("default".equals(cacheType)) {
-            cacheFactory = new DefaultAuthenticationCacheFactory();
+            cacheFactory = new DefaultAuthenticationCacheFactory(cacheMaxEntries, cacheLifespan, cacheMaxIdle);
         }
         try {
             securityDomainContext = securityManagement.createSecurityDomainContext(name, cacheFactory);
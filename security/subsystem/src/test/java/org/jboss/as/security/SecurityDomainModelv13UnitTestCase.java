@@ -64,10 +64,10 @@ import org.junit.Test;
 
 /**
  * <p>
- * Security subsystem tests for the version 1.2 of the subsystem schema.
+ * Security subsystem tests for the version 1.3 of the subsystem schema.
  * </p>
  */
-public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTest {
+public class SecurityDomainModelv13UnitTestCase extends AbstractSubsystemBaseTest {
 
     private static String oldConfig;
     @BeforeClass
@@ -91,7 +91,7 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
         }
     }
 
-    public SecurityDomainModelv12UnitTestCase() {
+    public SecurityDomainModelv13UnitTestCase() {
         super(SecurityExtension.SUBSYSTEM_NAME, new SecurityExtension());
     }
 
@@ -107,12 +107,12 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
 
     @Override
     protected String getSubsystemXml() throws IOException {
-        return readResource("securitysubsystemv12.xml");
+        return readResource("securitysubsystemv13.xml");
     }
 
     @Override
     protected String getSubsystemXsdPath() throws Exception {
-        return "schema/jboss-as-security_1_2.xsd";
+        return "schema/jboss-as-security_1_3.xsd";
     }
 
     @Override
@@ -184,6 +184,41 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
         testTransformers_1_2_x(ModelTestControllerVersion.V7_2_0_FINAL, 0);
     }
 
+    @Test
+    public void testRejectedTransformers720() throws Exception {
+        testRejectedTransformers_1_2_x(ModelTestControllerVersion.V7_2_0_FINAL, 0);
+    }
+
+    private void testRejectedTransformers_1_2_x(ModelTestControllerVersion controllerVersion, int micro) throws Exception {
+        ModelVersion modelVersion = ModelVersion.create(1, 2, micro);
+        KernelServicesBuilder builder = createKernelServicesBuilder(AdditionalInitialization.MANAGEMENT);
+
+        builder.createLegacyKernelServicesBuilder(null, controllerVersion, modelVersion)
+                .addMavenResourceURL("org.jboss.as:jboss-as-security:" + controllerVersion.getMavenGavVersion())
+                .dontPersistXml();
+
+        KernelServices mainServices = builder.build();
+        Assert.assertTrue(mainServices.isSuccessfulBoot());
+        Assert.assertTrue(mainServices.getLegacyServices(modelVersion).isSuccessfulBoot());
+
+        PathAddress subsystemAddress = PathAddress.pathAddress(SecurityExtension.PATH_SUBSYSTEM);
+        PathAddress jaspiAuthenticationAuthModule = subsystemAddress.append(
+                PathElement.pathElement(Constants.SECURITY_DOMAIN, "jaspi-test"), SecurityExtension.PATH_JASPI_AUTH, PathElement.pathElement(Constants.AUTH_MODULE, "org.jboss.as.web.security.jaspi.modules.HTTPBasicServerAuthModule"));
+
+        FailedOperationTransformationConfig config = new FailedOperationTransformationConfig();
+        // the default cache attributes were added in 1.3.0, so they are discarded if undefined and rejected otherwise
+        config.addFailedAttribute(subsystemAddress.append(SecurityExtension.SECURITY_DOMAIN_PATH),
+                new NewAttributesConfig(Constants.CACHE_MAX_ENTRIES, Constants.CACHE_LIFESPAN, Constants.CACHE_MAX_IDLE));
+        config.addFailedAttribute(jaspiAuthenticationAuthModule, new NewAttributesConfig(Constants.MODULE));
+
+        ModelTestUtils.checkFailedTransformedBootOperations(
+                mainServices,
+                modelVersion,
+                builder.parseXml(readResource("securitysubsystemv13.xml")),
+                config
+        );
+    }
+
     private void testTransformers_1_2_x(ModelTestControllerVersion controllerVersion, int micro) throws Exception {
         ModelVersion modelVersion = ModelVersion.create(1, 2, micro);
         KernelServicesBuilder builder = createKernelServicesBuilder(AdditionalInitialization.MANAGEMENT)
@@ -246,7 +281,7 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
                 //Here we should really use the main subsystem xml, but since the operation transformers read from the model,
                 //to create the composite add the framework needs beefing up to be able to correct the model as part of try/fail loop
                 //TODO use a custom RejectExpressionsConfig for that?
-                builder.parseXml(readResource("securitysubsystemv12.xml")),
+                builder.parseXml(readResource("securitysubsystemv13.xml")),
                 getConfig_1_1_0(mainServices)
         );
 
@@ -672,7 +707,11 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
         FailedOperationTransformationConfig config = new FailedOperationTransformationConfig();
 
         config.addFailedAttribute(subsystemAddress, new RejectExpressionsConfig(SecuritySubsystemRootResourceDefinition.DEEP_COPY_SUBJECT_MODE));
-        config.addFailedAttribute(securityDomain, new RejectExpressionsConfig(SecurityDomainResourceDefinition.CACHE_TYPE));
+        config.addFailedAttribute(securityDomain,
+                ChainedConfig.createBuilder(Constants.CACHE_TYPE, Constants.CACHE_MAX_ENTRIES, Constants.CACHE_LIFESPAN, Constants.CACHE_MAX_IDLE)
+                    .addConfig(new RejectExpressionsConfig(SecurityDomainResourceDefinition.CACHE_TYPE))
+                    .addConfig(new NewAttributesConfig(Constants.CACHE_MAX_ENTRIES, Constants.CACHE_LIFESPAN, Constants.CACHE_MAX_IDLE))
+                    .build());
         config.addFailedAttribute(securityDomainOther.append(SecurityExtension.JSSE_PATH), new RejectExpressionsConfig(JSSEResourceDefinition.ADDITIONAL_PROPERTIES));
         config.addFailedAttribute(subsystemAddress.append(SecurityExtension.VAULT_PATH), new RejectExpressionsConfig(VaultResourceDefinition.OPTIONS));
 
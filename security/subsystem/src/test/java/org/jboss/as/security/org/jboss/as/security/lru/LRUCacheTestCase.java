@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.org.jboss.as.security.lru;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests expiration, admission and statistics of {@link LRUCache}.
+ */
+public class LRUCacheTestCase {
+
+    @Test
+    public void admission() {
+        LRUCache<String, String> cache = new LRUCache<>(10, 0, 0, true, null);
+        for (int i = 0; i < 10; i++) {
+            cache.get("hot" + i);
+            cache.put("hot" + i, "value");
+        }
+        for (int j = 0; j < 3; j++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("value", cache.get("hot" + i));
+            }
+        }
+        // keys used only once must not flush out the frequently used ones
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("cold" + i) == null) {
+                cache.put("cold" + i, "value");
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value", cache.get("hot" + i));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(40, cache.getHits());
+        assertEquals(110, cache.getMisses());
+    }
+
+    @Test
+    public void rejection() {
+        final List<String> removed = new ArrayList<>();
+        LRUCache<String, String> cache = new LRUCache<>(10, 0, 0, true, new RemoveCallback<String, String>() {
+            @Override
+            public void afterRemove(String key, String value) {
+                removed.add(key);
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            cache.get("hot" + i);
+            cache.get("hot" + i);
+            cache.put("hot" + i, "value");
+        }
+        cache.put("cold", "value");
+        // the rejected entry is released just like an evicted one
+        assertNull(cache.get("cold"));
+        assertEquals(10, cache.size());
+        assertEquals(1, removed.size());
+        assertEquals("cold", removed.get(0));
+    }
+
+    @Test
+    public void eviction() {
+        final List<String> removed = new ArrayList<>();
+        LRUCache<String, String> cache = new LRUCache<>(10, new RemoveCallback<String, String>() {
+            @Override
+            public void afterRemove(String key, String value) {
+                removed.add(key);
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value");
+        }
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.getEvictions());
+        assertEquals(90, removed.size());
+    }
+
+    @Test
+    public void expiration() throws InterruptedException {
+        final List<String> removed = new ArrayList<>();
+        LRUCache<String, String> cache = new LRUCache<>(10, 0, 50, false, new RemoveCallback<String, String>() {
+            @Override
+            public void afterRemove(String key, String value) {
+                removed.add(key);
+            }
+        });
+        cache.put("key", "value");
+        assertEquals("value", cache.get("key"));
+        Thread.sleep(100);
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.getMisses());
+        assertTrue(removed.contains("key"));
+    }
+}
@@ -14,6 +14,7 @@ import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 
 @Singleton
@@ -54,6 +55,16 @@ public class CommandDispatcherBean implements CommandDispatcher<Node> {
         return this.dispatcher.submitOnCluster(command, excludedNodes);
     }
 
+    @Override
+    public <R> void submitOnNode(Command<R, Node> command, Node node, CommandResponseListener<R> listener) throws Exception {
+        this.dispatcher.submitOnNode(command, node, listener);
+    }
+
+    @Override
+    public <R> void submitOnCluster(Command<R, Node> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
+        this.dispatcher.submitOnCluster(command, listener, excludedNodes);
+    }
+
     @Override
     public void close() {
         this.dispatcher.close();
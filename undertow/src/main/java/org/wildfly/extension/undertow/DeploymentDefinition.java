@@ -28,6 +28,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 
+import io.undertow.server.handlers.resource.ResourceManager;
 import io.undertow.server.session.SessionManager;
 import io.undertow.server.session.SessionManagerStatistics;
 import io.undertow.servlet.api.Deployment;
@@ -45,6 +46,7 @@ import org.jboss.as.controller.registry.Resource;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.ServiceController;
+import org.wildfly.extension.undertow.deployment.ResourceCacheStatisticsManager;
 import org.wildfly.extension.undertow.deployment.UndertowDeploymentService;
 import org.wildfly.extension.undertow.logging.UndertowLogger;
 
@@ -57,6 +59,8 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
     public static final AttributeDefinition SERVER = new SimpleAttributeDefinitionBuilder("server", ModelType.STRING).setStorageRuntime().build();
     public static final AttributeDefinition CONTEXT_ROOT = new SimpleAttributeDefinitionBuilder("context-root", ModelType.STRING).setStorageRuntime().build();
     public static final AttributeDefinition VIRTUAL_HOST = new SimpleAttributeDefinitionBuilder("virtual-host", ModelType.STRING).setStorageRuntime().build();
+    public static final AttributeDefinition RESOURCE_CACHE_HITS = new SimpleAttributeDefinitionBuilder("resource-cache-hits", ModelType.LONG, false).setStorageRuntime().build();
+    public static final AttributeDefinition RESOURCE_CACHE_MISSES = new SimpleAttributeDefinitionBuilder("resource-cache-misses", ModelType.LONG, false).setStorageRuntime().build();
 
     private DeploymentDefinition() {
         super(PathElement.pathElement(SUBSYSTEM, UndertowExtension.SUBSYSTEM_NAME),
@@ -71,6 +75,23 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
         for (SessionStat stat : SessionStat.values()) {
             resourceRegistration.registerMetric(stat.definition, SessionManagerStatsHandler.getInstance());
         }
+        resourceRegistration.registerMetric(RESOURCE_CACHE_HITS, ResourceCacheStatsHandler.INSTANCE);
+        resourceRegistration.registerMetric(RESOURCE_CACHE_MISSES, ResourceCacheStatsHandler.INSTANCE);
+    }
+
+    private static Deployment getDeployment(OperationContext context, ModelNode operation) throws OperationFailedException {
+        final PathAddress address = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR));
+
+        final Resource web = context.readResourceFromRoot(address.subAddress(0, address.size()), false);
+        final ModelNode subModel = web.getModel();
+
+        final String host = VIRTUAL_HOST.resolveModelAttribute(context, subModel).asString();
+        final String path = CONTEXT_ROOT.resolveModelAttribute(context, subModel).asString();
+        final String server = SERVER.resolveModelAttribute(context, subModel).asString();
+
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(UndertowService.deploymentServiceName(server, host, path));
+        final UndertowDeploymentService deploymentService = (UndertowDeploymentService) controller.getService();
+        return deploymentService.getDeployment();
     }
 
     static class SessionManagerStatsHandler extends AbstractRuntimeOnlyHandler {
@@ -87,18 +108,7 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
         @Override
         protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
 
-            final PathAddress address = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR));
-
-            final Resource web = context.readResourceFromRoot(address.subAddress(0, address.size()), false);
-            final ModelNode subModel = web.getModel();
-
-            final String host = VIRTUAL_HOST.resolveModelAttribute(context, subModel).asString();
-            final String path = CONTEXT_ROOT.resolveModelAttribute(context, subModel).asString();
-            final String server = SERVER.resolveModelAttribute(context, subModel).asString();
-
-            final ServiceController<?> controller = context.getServiceRegistry(false).getService(UndertowService.deploymentServiceName(server, host, path));
-            final UndertowDeploymentService deploymentService = (UndertowDeploymentService) controller.getService();
-            Deployment deployment = deploymentService.getDeployment();
+            Deployment deployment = getDeployment(context, operation);
             SessionManager sessionManager = deployment.getSessionManager();
 
             SessionStat stat = SessionStat.getStat(operation.require(ModelDescriptionConstants.NAME).asString());
@@ -168,6 +178,33 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
 
     }
 
+    static class ResourceCacheStatsHandler extends AbstractRuntimeOnlyHandler {
+
+        static final ResourceCacheStatsHandler INSTANCE = new ResourceCacheStatsHandler();
+
+        private ResourceCacheStatsHandler() {
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String name = operation.require(ModelDescriptionConstants.NAME).asString();
+            final ResourceManager resourceManager = getDeployment(context, operation).getDeploymentInfo().getResourceManager();
+            final ResourceCacheStatisticsManager statistics = resourceManager instanceof ResourceCacheStatisticsManager ? (ResourceCacheStatisticsManager) resourceManager : null;
+            final ModelNode result = new ModelNode();
+            if (RESOURCE_CACHE_HITS.getName().equals(name)) {
+                result.set(statistics == null ? 0 : statistics.getHitCount());
+            } else if (RESOURCE_CACHE_MISSES.getName().equals(name)) {
+                result.set(statistics == null ? 0 : statistics.getMissCount());
+            } else {
+                context.getFailureDescription().set(UndertowLogger.ROOT_LOGGER.unknownMetric(name));
+                context.stepCompleted();
+                return;
+            }
+            context.getResult().set(result);
+            context.stepCompleted();
+        }
+    }
+
     public enum SessionStat {
         ACTIVE_SESSIONS(new SimpleAttributeDefinitionBuilder("active-sessions", ModelType.INT, false).setStorageRuntime().build()),
         EXPIRED_SESSIONS(new SimpleAttributeDefinitionBuilder("expired-sessions", ModelType.INT, false).setStorageRuntime().build()),
@@ -52,6 +52,11 @@ public class DeploymentServletDefinition extends SimpleResourceDefinition {
     static final SimpleAttributeDefinition MIN_REQUEST_TIME = new SimpleAttributeDefinitionBuilder("min-request-time", ModelType.LONG, true).setStorageRuntime().build();
     static final SimpleAttributeDefinition TOTAL_REQUEST_TIME = new SimpleAttributeDefinitionBuilder("total-request-time", ModelType.LONG, true).setStorageRuntime().build();
     static final SimpleAttributeDefinition REQUEST_COUNT = new SimpleAttributeDefinitionBuilder("request-count", ModelType.LONG, true).setStorageRuntime().build();
+    static final SimpleAttributeDefinition REQUEST_TIME_P50 = new SimpleAttributeDefinitionBuilder("request-time-p50", ModelType.LONG, true).setStorageRuntime().build();
+    static final SimpleAttributeDefinition REQUEST_TIME_P99 = new SimpleAttributeDefinitionBuilder("request-time-p99", ModelType.LONG, true).setStorageRuntime().build();
+    static final SimpleAttributeDefinition REQUEST_TIME_P999 = new SimpleAttributeDefinitionBuilder("request-time-p999", ModelType.LONG, true).setStorageRuntime().build();
+    static final SimpleAttributeDefinition REQUESTS_IN_FLIGHT = new SimpleAttributeDefinitionBuilder("requests-in-flight", ModelType.LONG, true).setStorageRuntime().build();
+    static final SimpleAttributeDefinition ERROR_COUNT = new SimpleAttributeDefinitionBuilder("error-count", ModelType.LONG, true).setStorageRuntime().build();
 
 
     private DeploymentServletDefinition() {
@@ -85,12 +90,72 @@ public class DeploymentServletDefinition extends SimpleResourceDefinition {
                 response.set(metricResult.getTotalRequests());
             }
         });
+        registration.registerMetric(REQUEST_TIME_P50, new AbstractStatisticsHandler() {
+            @Override
+            void handle(final ModelNode response, final UndertowMetricsCollector.ServletStatistics statistics) {
+                response.set(statistics.getRequestTimePercentile(0.5));
+            }
+        });
+        registration.registerMetric(REQUEST_TIME_P99, new AbstractStatisticsHandler() {
+            @Override
+            void handle(final ModelNode response, final UndertowMetricsCollector.ServletStatistics statistics) {
+                response.set(statistics.getRequestTimePercentile(0.99));
+            }
+        });
+        registration.registerMetric(REQUEST_TIME_P999, new AbstractStatisticsHandler() {
+            @Override
+            void handle(final ModelNode response, final UndertowMetricsCollector.ServletStatistics statistics) {
+                response.set(statistics.getRequestTimePercentile(0.999));
+            }
+        });
+        registration.registerMetric(REQUESTS_IN_FLIGHT, new AbstractStatisticsHandler() {
+            @Override
+            void handle(final ModelNode response, final UndertowMetricsCollector.ServletStatistics statistics) {
+                response.set(statistics.getRequestsInFlight());
+            }
+        });
+        registration.registerMetric(ERROR_COUNT, new AbstractStatisticsHandler() {
+            @Override
+            void handle(final ModelNode response, final UndertowMetricsCollector.ServletStatistics statistics) {
+                response.set(statistics.getErrorCount());
+            }
+        });
     }
 
-    abstract static class AbstractMetricsHandler implements OperationStepHandler {
+    abstract static class AbstractMetricsHandler extends AbstractServletMetricsHandler {
 
         abstract void handle(ModelNode response, String name, MetricsHandler.MetricResult metricResult);
 
+        @Override
+        void handle(final ModelNode response, final String name, final UndertowMetricsCollector collector) {
+            MetricsHandler.MetricResult result = collector != null ? collector.getMetrics(name) : null;
+            if (result == null) {
+                response.set(0);
+            } else {
+                handle(response, name, result);
+            }
+        }
+    }
+
+    abstract static class AbstractStatisticsHandler extends AbstractServletMetricsHandler {
+
+        abstract void handle(ModelNode response, UndertowMetricsCollector.ServletStatistics statistics);
+
+        @Override
+        void handle(final ModelNode response, final String name, final UndertowMetricsCollector collector) {
+            UndertowMetricsCollector.ServletStatistics statistics = collector != null ? collector.getStatistics(name) : null;
+            if (statistics == null) {
+                response.set(0);
+            } else {
+                handle(response, statistics);
+            }
+        }
+    }
+
+    abstract static class AbstractServletMetricsHandler implements OperationStepHandler {
+
+        abstract void handle(ModelNode response, String name, UndertowMetricsCollector collector);
+
         @Override
         public void execute(final OperationContext context, final ModelNode operation) throws OperationFailedException {
             final PathAddress address = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR));
@@ -113,12 +178,7 @@ public class DeploymentServletDefinition extends SimpleResourceDefinition {
                     if (controller != null) {
                         final String name = address.getLastElement().getValue();
                         final ModelNode response = new ModelNode();
-                        MetricsHandler.MetricResult result = collector != null ? collector.getMetrics(name) : null;
-                        if (result == null) {
-                            response.set(0);
-                        } else {
-                            handle(response, name, result);
-                        }
+                        handle(response, name, collector);
                         context.getResult().set(response);
                     }
                     context.stepCompleted();
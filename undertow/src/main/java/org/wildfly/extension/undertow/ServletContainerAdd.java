@@ -86,6 +86,10 @@ final class ServletContainerAdd extends AbstractBoottimeAddStepHandler {
         final boolean disableCachingForSecuredPages = ServletContainerDefinition.DISABLE_CACHING_FOR_SECURED_PAGES.resolveModelAttribute(context, model).asBoolean();
 
         final int sessionTimeout = ServletContainerDefinition.DEFAULT_SESSION_TIMEOUT.resolveModelAttribute(context, model).asInt();
+        final int fileCacheMetadataSize = ServletContainerDefinition.FILE_CACHE_METADATA_SIZE.resolveModelAttribute(context, model).asInt();
+        final int fileCacheMaxFileSize = ServletContainerDefinition.FILE_CACHE_MAX_FILE_SIZE.resolveModelAttribute(context, model).asInt();
+        final ModelNode fileCacheTimeToLiveValue = ServletContainerDefinition.FILE_CACHE_TIME_TO_LIVE.resolveModelAttribute(context, model);
+        final Integer fileCacheTimeToLive = fileCacheTimeToLiveValue.isDefined() ? fileCacheTimeToLiveValue.asInt() : null;
 
         WebsocketsDefinition.WebSocketInfo info = WebsocketsDefinition.INSTANCE.getConfig(context, model);
 
@@ -98,7 +102,10 @@ final class ServletContainerAdd extends AbstractBoottimeAddStepHandler {
                 ignoreFlush,
                 eagerFilterInit,
                 sessionTimeout,
-                disableCachingForSecuredPages, info != null, info != null && info.isDispatchToWorker());
+                disableCachingForSecuredPages, info != null, info != null && info.isDispatchToWorker(),
+                fileCacheMetadataSize,
+                fileCacheMaxFileSize,
+                fileCacheTimeToLive);
         final ServiceTarget target = context.getServiceTarget();
         final ServiceBuilder<ServletContainerService> builder = target.addService(UndertowService.SERVLET_CONTAINER.append(name), container);
         if(bufferCache != null) {
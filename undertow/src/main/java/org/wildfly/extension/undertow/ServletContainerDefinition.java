@@ -36,6 +36,7 @@ import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.EnumValidator;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
@@ -113,6 +114,31 @@ public class ServletContainerDefinition extends PersistentResourceDefinition {
                     .build(); //30 minutes
 
 
+    protected static final AttributeDefinition FILE_CACHE_METADATA_SIZE =
+            new SimpleAttributeDefinitionBuilder("file-cache-metadata-size", ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, true, true))
+                    .setDefaultValue(new ModelNode(100))
+                    .build();
+
+    protected static final AttributeDefinition FILE_CACHE_MAX_FILE_SIZE =
+            new SimpleAttributeDefinitionBuilder("file-cache-max-file-size", ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, true, true))
+                    .setMeasurementUnit(MeasurementUnit.BYTES)
+                    .setDefaultValue(new ModelNode(10 * 1024 * 1024))
+                    .build();
+
+    protected static final AttributeDefinition FILE_CACHE_TIME_TO_LIVE =
+            new SimpleAttributeDefinitionBuilder("file-cache-time-to-live", ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(-1, true, true))
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .build(); //undefined means 2 seconds for exploded deployments, and forever otherwise
+
     private static final List<? extends PersistentResourceDefinition> CHILDREN;
     private static final Collection<AttributeDefinition> ATTRIBUTES = Arrays.asList(
             ALLOW_NON_STANDARD_WRAPPERS,
@@ -123,7 +149,10 @@ public class ServletContainerDefinition extends PersistentResourceDefinition {
             IGNORE_FLUSH,
             EAGER_FILTER_INIT,
             DEFAULT_SESSION_TIMEOUT,
-            DISABLE_CACHING_FOR_SECURED_PAGES
+            DISABLE_CACHING_FOR_SECURED_PAGES,
+            FILE_CACHE_METADATA_SIZE,
+            FILE_CACHE_MAX_FILE_SIZE,
+            FILE_CACHE_TIME_TO_LIVE
             );
 
     static {
@@ -62,9 +62,14 @@ public class ServletContainerService implements Service<ServletContainerService>
     private final InjectedValue<XnioWorker> websocketsWorker = new InjectedValue<>();
     private final boolean dispatchWebsocketInvocationToWorker;
 
+    private final int fileCacheMetadataSize;
+    private final int fileCacheMaxFileSize;
+    private final Integer fileCacheTimeToLive;
+
     public ServletContainerService(boolean allowNonStandardWrappers, ServletStackTraces stackTraces, SessionCookieConfig sessionCookieConfig, JSPConfig jspConfig,
                                    String defaultEncoding, boolean useListenerEncoding, boolean ignoreFlush, boolean eagerFilterInit, int defaultSessionTimeout,
-                                   boolean disableCachingForSecuredPages, boolean websocketsEnabled, boolean dispatchWebsocketInvocationToWorker) {
+                                   boolean disableCachingForSecuredPages, boolean websocketsEnabled, boolean dispatchWebsocketInvocationToWorker,
+                                   int fileCacheMetadataSize, int fileCacheMaxFileSize, Integer fileCacheTimeToLive) {
         this.allowNonStandardWrappers = allowNonStandardWrappers;
         this.stackTraces = stackTraces;
         this.sessionCookieConfig = sessionCookieConfig;
@@ -77,6 +82,9 @@ public class ServletContainerService implements Service<ServletContainerService>
         this.disableCachingForSecuredPages = disableCachingForSecuredPages;
         this.websocketsEnabled = websocketsEnabled;
         this.dispatchWebsocketInvocationToWorker = dispatchWebsocketInvocationToWorker;
+        this.fileCacheMetadataSize = fileCacheMetadataSize;
+        this.fileCacheMaxFileSize = fileCacheMaxFileSize;
+        this.fileCacheTimeToLive = fileCacheTimeToLive;
     }
 
     public void start(StartContext context) throws StartException {
@@ -166,4 +174,19 @@ public class ServletContainerService implements Service<ServletContainerService>
     public int getDefaultSessionTimeout() {
         return defaultSessionTimeout;
     }
+
+    public int getFileCacheMetadataSize() {
+        return fileCacheMetadataSize;
+    }
+
+    public int getFileCacheMaxFileSize() {
+        return fileCacheMaxFileSize;
+    }
+
+    /**
+     * @return the time to live of cached static resources in milliseconds, or null if it depends on the deployment
+     */
+    public Integer getFileCacheTimeToLive() {
+        return fileCacheTimeToLive;
+    }
 }
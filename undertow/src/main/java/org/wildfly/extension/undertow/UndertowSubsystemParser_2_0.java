@@ -133,6 +133,9 @@ public class UndertowSubsystemParser_2_0 implements XMLStreamConstants, XMLEleme
                                 .addAttribute(ServletContainerDefinition.EAGER_FILTER_INIT)
                                 .addAttribute(ServletContainerDefinition.DEFAULT_SESSION_TIMEOUT)
                                 .addAttribute(ServletContainerDefinition.DISABLE_CACHING_FOR_SECURED_PAGES)
+                                .addAttribute(ServletContainerDefinition.FILE_CACHE_METADATA_SIZE)
+                                .addAttribute(ServletContainerDefinition.FILE_CACHE_MAX_FILE_SIZE)
+                                .addAttribute(ServletContainerDefinition.FILE_CACHE_TIME_TO_LIVE)
                                 .addChild(
                                         builder(JspDefinition.INSTANCE)
                                                 .setXmlElementName(Constants.JSP_CONFIG)
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.deployment;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeListener;
+import io.undertow.server.handlers.resource.ResourceManager;
+
+/**
+ * Resource manager that sits in front of the caching resource manager of a deployment, and keeps track of how many
+ * static resource lookups were served from the cache.
+ * <p/>
+ * Every lookup that misses the cache is delegated to the {@link ServletResourceManager}, so the number of hits is the
+ * number of lookups made here minus the number of lookups that reached the deployment content.
+ */
+public class ResourceCacheStatisticsManager implements ResourceManager {
+
+    private final ResourceManager cachingResourceManager;
+    private final ServletResourceManager servletResourceManager;
+    private final AtomicLong lookups = new AtomicLong();
+
+    public ResourceCacheStatisticsManager(final ResourceManager cachingResourceManager, final ServletResourceManager servletResourceManager) {
+        this.cachingResourceManager = cachingResourceManager;
+        this.servletResourceManager = servletResourceManager;
+    }
+
+    @Override
+    public Resource getResource(final String path) throws IOException {
+        lookups.incrementAndGet();
+        return cachingResourceManager.getResource(path);
+    }
+
+    @Override
+    public boolean isResourceChangeListenerSupported() {
+        return cachingResourceManager.isResourceChangeListenerSupported();
+    }
+
+    @Override
+    public void registerResourceChangeListener(ResourceChangeListener listener) {
+        cachingResourceManager.registerResourceChangeListener(listener);
+    }
+
+    @Override
+    public void removeResourceChangeListener(ResourceChangeListener listener) {
+        cachingResourceManager.removeResourceChangeListener(listener);
+    }
+
+    @Override
+    public void close() throws IOException {
+        cachingResourceManager.close();
+    }
+
+    /**
+     * Returns the number of lookups served from the cache, i.e. the number of lookups made via this resource manager
+     * minus the {@link ServletResourceManager#getLookupCount() number of lookups} that reached the deployment content.
+     * A lookup of a missing resource that was already found missing counts as a hit too.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        // the miss count is read first, so that a lookup in progress can not make the result negative
+        final long misses = getMissCount();
+        return Math.max(0, lookups.get() - misses);
+    }
+
+    /**
+     * Returns the number of lookups that missed the cache, i.e. the {@link ServletResourceManager#getLookupCount() number of lookups}
+     * that reached the deployment content.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return servletResourceManager.getLookupCount();
+    }
+}
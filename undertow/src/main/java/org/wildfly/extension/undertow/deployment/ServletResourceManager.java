@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.undertow.server.handlers.resource.FileResourceManager;
 import io.undertow.server.handlers.resource.Resource;
@@ -42,6 +43,7 @@ public class ServletResourceManager implements ResourceManager {
     private final FileResourceManager deploymentResourceManager;
     private final Collection<VirtualFile> overlays;
     private final boolean explodedDeployment;
+    private final AtomicLong lookups = new AtomicLong();
 
     public ServletResourceManager(final VirtualFile resourcesRoot, final Collection<VirtualFile> overlays, boolean explodedDeployment, boolean followSymlink) throws IOException {
         this.explodedDeployment = explodedDeployment;
@@ -51,6 +53,7 @@ public class ServletResourceManager implements ResourceManager {
 
     @Override
     public Resource getResource(final String path) throws IOException {
+        lookups.incrementAndGet();
         Resource res = deploymentResourceManager.getResource(path);
         if (res != null) {
             return new ServletResource(this, res);
@@ -90,6 +93,13 @@ public class ServletResourceManager implements ResourceManager {
         deploymentResourceManager.close();
     }
 
+    /**
+     * @return the number of resource lookups that have been resolved against the deployment content and overlays
+     */
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
     /**
      * Lists all children of a particular path, taking overlays into account
      * @param path The path
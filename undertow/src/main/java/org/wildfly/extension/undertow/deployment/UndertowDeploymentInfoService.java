@@ -381,7 +381,9 @@ public class UndertowDeploymentInfoService implements Service<DeploymentInfo> {
             }
             deploymentInfo.setServerName("WildFly " + Version.AS_VERSION);
             if (undertowService.getValue().isStatisticsEnabled()) {
-                deploymentInfo.setMetricsCollector(new UndertowMetricsCollector());
+                final UndertowMetricsCollector metricsCollector = new UndertowMetricsCollector();
+                deploymentInfo.setMetricsCollector(metricsCollector);
+                deploymentInfo.addInnerHandlerChainWrapper(metricsCollector);
             }
 
             ControlPoint controlPoint = controlPointInjectedValue.getOptionalValue();
@@ -534,11 +536,11 @@ public class UndertowDeploymentInfoService implements Service<DeploymentInfo> {
             d.setHostName(host.getValue().getName());
             final ServletContainerService servletContainer = container.getValue();
             try {
-                //TODO: make the caching limits configurable
-                ResourceManager resourceManager = new ServletResourceManager(deploymentRoot, overlays, explodedDeployment, mergedMetaData.isSymbolicLinkingEnabled());
-
-                resourceManager = new CachingResourceManager(100, 10 * 1024 * 1024, servletContainer.getBufferCache(), resourceManager, explodedDeployment ? 2000 : -1);
-                d.setResourceManager(resourceManager);
+                final ServletResourceManager servletResourceManager = new ServletResourceManager(deploymentRoot, overlays, explodedDeployment, mergedMetaData.isSymbolicLinkingEnabled());
+                final Integer fileCacheTimeToLive = servletContainer.getFileCacheTimeToLive();
+                final int maxAge = fileCacheTimeToLive != null ? fileCacheTimeToLive : (explodedDeployment ? 2000 : -1);
+                final ResourceManager resourceManager = new CachingResourceManager(servletContainer.getFileCacheMetadataSize(), servletContainer.getFileCacheMaxFileSize(), servletContainer.getBufferCache(), servletResourceManager, maxAge);
+                d.setResourceManager(new ResourceCacheStatisticsManager(resourceManager, servletResourceManager));
             } catch (IOException e) {
                 throw new StartException(e);
             }
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.undertow.deployment;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import io.undertow.server.handlers.cache.DirectBufferCache;
+import io.undertow.server.handlers.resource.CachingResourceManager;
+
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VirtualFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ResourceCacheStatisticsManager}
+ */
+public class ResourceCacheStatisticsManagerTestCase {
+
+    private File root;
+    private ResourceCacheStatisticsManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        this.root = File.createTempFile("resources", null);
+        this.root.delete();
+        this.root.mkdir();
+        try (OutputStream output = new FileOutputStream(new File(this.root, "index.html"))) {
+            output.write("<html/>".getBytes(StandardCharsets.UTF_8));
+        }
+        VirtualFile resources = VFS.getChild(this.root.getAbsolutePath());
+        ServletResourceManager servletResourceManager = new ServletResourceManager(resources, Collections.<VirtualFile>emptyList(), false, false);
+        CachingResourceManager cachingResourceManager = new CachingResourceManager(100, 1024, new DirectBufferCache(1024, 10, 10240), servletResourceManager, -1);
+        this.manager = new ResourceCacheStatisticsManager(cachingResourceManager, servletResourceManager);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.manager.close();
+        new File(this.root, "index.html").delete();
+        this.root.delete();
+    }
+
+    @Test
+    public void repeatedLookups() throws IOException {
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(0, this.manager.getMissCount());
+
+        assertNotNull(this.manager.getResource("/index.html"));
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(1, this.manager.getMissCount());
+
+        for (int i = 1; i <= 3; ++i) {
+            assertNotNull(this.manager.getResource("/index.html"));
+            assertEquals(i, this.manager.getHitCount());
+            assertEquals(1, this.manager.getMissCount());
+        }
+    }
+
+    @Test
+    public void missingLookups() throws IOException {
+        assertNull(this.manager.getResource("/missing.html"));
+        assertEquals(0, this.manager.getHitCount());
+        assertEquals(1, this.manager.getMissCount());
+
+        // The caching resource manager remembers missing resources too
+        assertNull(this.manager.getResource("/missing.html"));
+        assertEquals(1, this.manager.getHitCount());
+        assertEquals(1, this.manager.getMissCount());
+
+        // Every distinct missing resource misses once
+        assertNull(this.manager.getResource("/other.html"));
+        assertNotNull(this.manager.getResource("/index.html"));
+        assertEquals(1, this.manager.getHitCount());
+        assertEquals(3, this.manager.getMissCount());
+    }
+}
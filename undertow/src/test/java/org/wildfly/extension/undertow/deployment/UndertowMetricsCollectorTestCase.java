@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.extension.undertow.deployment;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.MetricsHandler;
+
+import org.junit.Test;
+import org.wildfly.extension.undertow.deployment.UndertowMetricsCollector.ServletStatistics;
+
+/**
+ * Unit test for {@link UndertowMetricsCollector}
+ */
+public class UndertowMetricsCollectorTestCase {
+
+    private final UndertowMetricsCollector collector = new UndertowMetricsCollector();
+
+    @Test
+    public void registerMetric() {
+        assertNull(this.collector.getStatistics("servlet"));
+
+        this.collector.registerMetric("servlet", mock(MetricsHandler.class));
+
+        ServletStatistics statistics = this.collector.getStatistics("servlet");
+        assertNotNull(statistics);
+
+        // Registering the servlet again keeps its statistics
+        this.collector.registerMetric("servlet", mock(MetricsHandler.class));
+
+        assertSame(statistics, this.collector.getStatistics("servlet"));
+    }
+
+    @Test
+    public void requestsInFlight() {
+        ServletStatistics statistics = new ServletStatistics();
+        HttpServerExchange exchange1 = new HttpServerExchange(null);
+        HttpServerExchange exchange2 = new HttpServerExchange(null);
+
+        assertEquals(0, statistics.getRequestsInFlight());
+
+        statistics.requestStarted(exchange1);
+        statistics.requestStarted(exchange2);
+
+        assertEquals(2, statistics.getRequestsInFlight());
+
+        statistics.requestCompleted(exchange1);
+
+        assertEquals(1, statistics.getRequestsInFlight());
+
+        statistics.requestCompleted(exchange2);
+
+        assertEquals(0, statistics.getRequestsInFlight());
+    }
+
+    @Test
+    public void errorCount() {
+        ServletStatistics statistics = new ServletStatistics();
+
+        for (int responseCode : new int[] { 200, 404, 500, 503 }) {
+            HttpServerExchange exchange = new HttpServerExchange(null);
+            statistics.requestStarted(exchange);
+            exchange.setResponseCode(responseCode);
+            statistics.requestCompleted(exchange);
+        }
+
+        assertEquals(2, statistics.getErrorCount());
+        assertEquals(0, statistics.getRequestsInFlight());
+    }
+
+    @Test
+    public void requestTimePercentiles() {
+        ServletStatistics statistics = new ServletStatistics();
+
+        assertEquals(0, statistics.getRequestTimePercentile(0.5));
+
+        for (int i = 0; i < 99; ++i) {
+            complete(statistics, 10);
+        }
+        complete(statistics, 1000);
+
+        // Percentiles are the upper bound of their bucket, at most 12.5% above the actual value
+        long p50 = statistics.getRequestTimePercentile(0.5);
+        assertTrue(String.valueOf(p50), p50 >= 10 && p50 <= 12);
+        long p99 = statistics.getRequestTimePercentile(0.99);
+        assertTrue(String.valueOf(p99), p99 >= 10 && p99 <= 12);
+        long p999 = statistics.getRequestTimePercentile(0.999);
+        assertTrue(String.valueOf(p999), p999 >= 1000 && p999 <= 1125);
+    }
+
+    /**
+     * A forward, include or error dispatch runs the handler chain of another servlet on the same exchange.
+     */
+    @Test
+    public void dispatch() {
+        ServletStatistics front = new ServletStatistics();
+        ServletStatistics target = new ServletStatistics();
+        HttpServerExchange exchange = new HttpServerExchange(null);
+
+        front.requestStarted(exchange);
+        exchange.putAttachment(front.startTime, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+        target.requestStarted(exchange);
+        exchange.putAttachment(target.startTime, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10));
+        // e.g. an error dispatch back to the front servlet
+        front.requestStarted(exchange);
+        exchange.setResponseCode(500);
+
+        assertEquals(1, front.getRequestsInFlight());
+        assertEquals(1, target.getRequestsInFlight());
+
+        target.requestCompleted(exchange);
+        front.requestCompleted(exchange);
+
+        assertEquals(0, front.getRequestsInFlight());
+        assertEquals(0, target.getRequestsInFlight());
+        assertEquals(1, front.getErrorCount());
+        assertEquals(1, target.getErrorCount());
+        long frontTime = front.getRequestTimePercentile(1);
+        assertTrue(String.valueOf(frontTime), frontTime >= 100 && frontTime <= 112);
+        long targetTime = target.getRequestTimePercentile(1);
+        assertTrue(String.valueOf(targetTime), targetTime >= 10 && targetTime <= 12);
+    }
+
+    private static void complete(ServletStatistics statistics, long millis) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        statistics.requestStarted(exchange);
+        // Backdate the start of the request instead of waiting
+        exchange.putAttachment(statistics.startTime, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis));
+        statistics.requestCompleted(exchange);
+    }
+}